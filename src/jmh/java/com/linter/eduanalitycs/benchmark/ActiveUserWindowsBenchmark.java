@@ -0,0 +1,78 @@
+package com.linter.eduanalitycs.benchmark;
+
+import com.linter.eduanalitycs.service.ActiveUserWindows;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.roaringbitmap.longlong.Roaring64Bitmap;
+
+import java.time.LocalDate;
+import java.util.NavigableMap;
+import java.util.SplittableRandom;
+import java.util.TreeMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * DAU/WAU/MAU по дневным битмапам: 1M пользователей × 365 дней.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+public class ActiveUserWindowsBenchmark {
+
+    @Param("1000000")
+    private int users;
+
+    @Param("365")
+    private int days;
+
+    // Доля пользователей, активных в отдельно взятый день
+    @Param("0.03")
+    private double dailyActiveShare;
+
+    private NavigableMap<LocalDate, Roaring64Bitmap> dailyActive;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        SplittableRandom random = new SplittableRandom(42);
+        LocalDate firstDay = LocalDate.now().minusDays(days);
+        int activePerDay = (int) (users * dailyActiveShare);
+
+        dailyActive = new TreeMap<>();
+        for (int day = 0; day < days; day++) {
+            Roaring64Bitmap active = new Roaring64Bitmap();
+            for (int i = 0; i < activePerDay; i++) {
+                active.addLong(random.nextInt(users) + 1L);
+            }
+            active.runOptimize();
+            dailyActive.put(firstDay.plusDays(day), active);
+        }
+    }
+
+    @Benchmark
+    public NavigableMap<LocalDate, Integer> dau() {
+        return ActiveUserWindows.cardinalities(dailyActive);
+    }
+
+    @Benchmark
+    public NavigableMap<LocalDate, Integer> wau() {
+        return ActiveUserWindows.rolling(dailyActive, 7);
+    }
+
+    @Benchmark
+    public NavigableMap<LocalDate, Integer> mau() {
+        return ActiveUserWindows.rolling(dailyActive, 30);
+    }
+}
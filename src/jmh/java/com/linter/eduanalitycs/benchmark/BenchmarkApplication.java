@@ -0,0 +1,35 @@
+package com.linter.eduanalitycs.benchmark;
+
+import com.linter.eduanalitycs.EduAnalitycsApplication;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Приложение без веб-слоя на синтетических данных в H2 для бенчмарков сервисов.
+ */
+final class BenchmarkApplication {
+
+    private BenchmarkApplication() {
+    }
+
+    static ConfigurableApplicationContext start(int users, String... extraArgs) {
+        // Аргументы командной строки, чтобы перекрыть application.yml; кэш выключен, меряем вычисление
+        List<String> args = new ArrayList<>(List.of(
+                "--spring.datasource.url=jdbc:h2:mem:benchmark;DB_CLOSE_ON_EXIT=FALSE",
+                "--spring.cache.type=none",
+                // Фоновый пересчёт снимков не должен попадать в замеры
+                "--metrics.snapshot.enabled=false",
+                "--spring.devtools.restart.enabled=false",
+                "--logging.level.root=WARN",
+                "--app.data.users=" + users,
+                "--app.data.seed=42"));
+        args.addAll(List.of(extraArgs));
+        return new SpringApplicationBuilder(EduAnalitycsApplication.class)
+                .web(WebApplicationType.NONE)
+                .run(args.toArray(String[]::new));
+    }
+}
@@ -0,0 +1,73 @@
+package com.linter.eduanalitycs.benchmark;
+
+import com.linter.eduanalitycs.model.dto.CompleteMetricsResponse;
+import com.linter.eduanalitycs.service.MetricsFacadeService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Полный ответ дашборда: секции последовательно и параллельно. Отдельно от {@link MetricsServicesBenchmark},
+ * чтобы параметр parallel не умножал прогоны методов сервисов, которым он безразличен.
+ * <p>
+ * mvn -Pbenchmarks test-compile exec:exec -Djmh.includes=MetricsFacade
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(value = 1, jvmArgsAppend = "-Xmx8g")
+public class MetricsFacadeBenchmark {
+
+    @Param({"10000", "100000", "1000000"})
+    private int users;
+
+    // Длина периода дашборда в днях
+    @Param({"30", "365"})
+    private int periodDays;
+
+    @Param({"false", "true"})
+    private boolean parallel;
+
+    private ConfigurableApplicationContext context;
+    private MetricsFacadeService metricsFacadeService;
+
+    private LocalDateTime start;
+    private LocalDateTime end;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = BenchmarkApplication.start(users, "--metrics.execution.parallel=" + parallel);
+        metricsFacadeService = context.getBean(MetricsFacadeService.class);
+
+        LocalDate today = LocalDate.now();
+        start = today.minusDays(periodDays).atStartOfDay();
+        end = today.plusDays(1).atStartOfDay();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public CompleteMetricsResponse completeMetrics() {
+        return metricsFacadeService.getCompleteMetrics(start, end);
+    }
+}
@@ -0,0 +1,125 @@
+package com.linter.eduanalitycs.benchmark;
+
+import com.linter.eduanalitycs.model.dto.DashboardStats;
+import com.linter.eduanalitycs.model.dto.ProductPerformanceDTO;
+import com.linter.eduanalitycs.service.AudienceMetricsService;
+import com.linter.eduanalitycs.service.FinancialMetricsService;
+import com.linter.eduanalitycs.service.MetricsFacadeService;
+import com.linter.eduanalitycs.service.ProductMetricsService;
+import com.linter.eduanalitycs.service.RetentionMetricsService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Методы сервисов метрик на синтетических данных в H2.
+ * Данные генерирует DataInitializer с той же моделью поведения пользователей, что и при обычном старте.
+ * Полный ответ дашборда — {@link MetricsFacadeBenchmark}.
+ * <p>
+ * mvn -Pbenchmarks test-compile exec:exec -Djmh.includes=MetricsServices
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(value = 1, jvmArgsAppend = "-Xmx8g")
+public class MetricsServicesBenchmark {
+
+    @Param({"10000", "100000", "1000000"})
+    private int users;
+
+    // Длина периода дашборда в днях
+    @Param({"30", "365"})
+    private int periodDays;
+
+    private ConfigurableApplicationContext context;
+    private AudienceMetricsService audienceMetricsService;
+    private RetentionMetricsService retentionMetricsService;
+    private FinancialMetricsService financialMetricsService;
+    private ProductMetricsService productMetricsService;
+    private MetricsFacadeService metricsFacadeService;
+
+    private LocalDateTime start;
+    private LocalDateTime end;
+    private String aggregation;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = BenchmarkApplication.start(users);
+
+        audienceMetricsService = context.getBean(AudienceMetricsService.class);
+        retentionMetricsService = context.getBean(RetentionMetricsService.class);
+        financialMetricsService = context.getBean(FinancialMetricsService.class);
+        productMetricsService = context.getBean(ProductMetricsService.class);
+        metricsFacadeService = context.getBean(MetricsFacadeService.class);
+
+        LocalDate today = LocalDate.now();
+        start = today.minusDays(periodDays).atStartOfDay();
+        end = today.plusDays(1).atStartOfDay();
+        aggregation = periodDays > 180 ? "month" : (periodDays >= 30 ? "week" : "day");
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public DashboardStats dashboardStats() {
+        return metricsFacadeService.getDashboardStats(start, end);
+    }
+
+    @Benchmark
+    public Map<String, Map<LocalDate, Integer>> audience() {
+        return audienceMetricsService.getAudienceMetrics(start, end, aggregation);
+    }
+
+    @Benchmark
+    public double retentionRate() {
+        return retentionMetricsService.getRetentionRate(start, end);
+    }
+
+    @Benchmark
+    public Map<LocalDate, Double> retentionTrend() {
+        return retentionMetricsService.getRetentionTrend(start, end, aggregation);
+    }
+
+    @Benchmark
+    public BigDecimal ltv() {
+        return financialMetricsService.getLTV();
+    }
+
+    @Benchmark
+    public BigDecimal cac() {
+        return financialMetricsService.getCAC(start, end);
+    }
+
+    @Benchmark
+    public BigDecimal arppu() {
+        return financialMetricsService.getARPPU(start, end);
+    }
+
+    @Benchmark
+    public List<ProductPerformanceDTO> productPerformance() {
+        return productMetricsService.getProductPerformance(start, end);
+    }
+}
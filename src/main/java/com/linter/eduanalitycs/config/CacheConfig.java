@@ -0,0 +1,43 @@
+package com.linter.eduanalitycs.config;
+
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.springframework.boot.autoconfigure.cache.CacheManagerCustomizer;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.cache.annotation.EnableCaching;
+import org.springframework.cache.caffeine.CaffeineCacheManager;
+import org.springframework.cache.interceptor.KeyGenerator;
+import org.springframework.cache.interceptor.SimpleKey;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.Arrays;
+
+/**
+ * Кэш результатов дашборда. TTL, размер и сбор статистики задаются
+ * через spring.cache.caffeine.spec; у cohortRows своя спецификация ({@link CohortCacheProperties}).
+ */
+@Configuration
+@EnableCaching
+@EnableConfigurationProperties(CohortCacheProperties.class)
+public class CacheConfig {
+    public static final String COMPLETE_METRICS_CACHE = "completeMetrics";
+    public static final String COHORT_ROWS_CACHE = "cohortRows";
+
+    @Bean
+    public CacheManagerCustomizer<CaffeineCacheManager> cohortRowsCacheCustomizer(CohortCacheProperties properties) {
+        return cacheManager -> cacheManager.registerCustomCache(COHORT_ROWS_CACHE, Caffeine.from(properties.spec()).build());
+    }
+
+    /**
+     * Ключ по границам периода, округлённым до минуты: запросы одного пресета
+     * в пределах минуты попадают в одну запись.
+     */
+    @Bean
+    public KeyGenerator periodKeyGenerator() {
+        return (target, method, params) -> new SimpleKey(Arrays.stream(params)
+                .map(param -> param instanceof LocalDateTime dateTime ? dateTime.truncatedTo(ChronoUnit.MINUTES) : param)
+                .toArray());
+    }
+}
@@ -0,0 +1,16 @@
+package com.linter.eduanalitycs.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+/**
+ * Кэш закончившихся периодов когорт (cohortRows).
+ *
+ * @param spec спецификация Caffeine. Без expireAfterWrite: закрытые столбцы меняются только вместе с данными,
+ *             а тогда кэш сбрасывается целиком. Запись — одна когорта; за 365 дней это 53 недельные
+ *             и 13 месячных когорт на каждое событие, около 130 записей
+ */
+@ConfigurationProperties("metrics.cohorts.cache")
+public record CohortCacheProperties(
+        @DefaultValue("maximumSize=500,recordStats") String spec
+) {}
@@ -0,0 +1,48 @@
+package com.linter.eduanalitycs.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+/**
+ * Настройки генерации тестовых данных при старте.
+ *
+ * @param enabled   генерировать ли данные в пустую базу
+ * @param users     сколько пользователей сгенерировать
+ * @param spanDays  за сколько дней до текущего момента распределяются регистрации
+ * @param seed      зерно генератора; без него каждый запуск даёт новые данные
+ * @param chunkSize пользователей на одну порцию (порция генерируется и пишется целиком в одном потоке)
+ * @param batchSize строк в одном JDBC batch
+ * @param threads   сколько порций генерируется параллельно; 0 — по числу процессоров
+ * @param behavior  доли пользователей с разными сценариями поведения
+ */
+@ConfigurationProperties("app.data")
+public record DataGeneratorProperties(
+        @DefaultValue("true") boolean enabled,
+        @DefaultValue("500") int users,
+        @DefaultValue("365") int spanDays,
+        Long seed,
+        @DefaultValue("10000") int chunkSize,
+        @DefaultValue("1000") int batchSize,
+        @DefaultValue("0") int threads,
+        @DefaultValue Behavior behavior
+) {
+
+    /**
+     * @param churnShare            зарегистрировались и ушли навсегда
+     * @param earlyPurchaseShare    купили в первые 3 дня
+     * @param delayedPurchaseShare  купили через неделю-две (отложенная конверсия)
+     * @param repeatPurchaseShare   повторная покупка
+     * @param returnVisitShare      покупатели, которые возвращаются просто "погулять"
+     */
+    public record Behavior(
+            @DefaultValue("0.30") double churnShare,
+            @DefaultValue("0.60") double earlyPurchaseShare,
+            @DefaultValue("0.25") double delayedPurchaseShare,
+            @DefaultValue("0.12") double repeatPurchaseShare,
+            @DefaultValue("0.70") double returnVisitShare
+    ) {}
+
+    public int effectiveThreads() {
+        return threads > 0 ? threads : Runtime.getRuntime().availableProcessors();
+    }
+}
@@ -0,0 +1,14 @@
+package com.linter.eduanalitycs.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+/**
+ * Настройки /api/ingest.
+ *
+ * @param batchSize строк в одной пачке: одна транзакция, один JDBC batch и одно подтверждение в ответе
+ */
+@ConfigurationProperties("app.ingest")
+public record IngestProperties(
+        @DefaultValue("1000") int batchSize
+) {}
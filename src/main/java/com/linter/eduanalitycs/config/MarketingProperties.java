@@ -0,0 +1,17 @@
+package com.linter.eduanalitycs.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+import java.math.BigDecimal;
+
+/**
+ * Модель маркетинговых расходов для CAC.
+ *
+ * @param defaultMonthlyCost расходы за 30 дней для дней вне загруженных данных marketing_spend
+ *                           (до первого и после последнего дня с расходами); 0 — такие дни бесплатны
+ */
+@ConfigurationProperties("metrics.marketing")
+public record MarketingProperties(
+        @DefaultValue("50000") BigDecimal defaultMonthlyCost
+) {}
@@ -0,0 +1,20 @@
+package com.linter.eduanalitycs.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+import java.time.Duration;
+
+/**
+ * Настройки вычисления секций дашборда.
+ *
+ * @param parallel       считать секции параллельно на виртуальных потоках
+ * @param maxConcurrency сколько секций одновременно держат соединение из пула
+ * @param sectionTimeout сколько ждать одну секцию, включая ожидание очереди
+ */
+@ConfigurationProperties("metrics.execution")
+public record MetricsExecutionProperties(
+        @DefaultValue("false") boolean parallel,
+        @DefaultValue("4") int maxConcurrency,
+        @DefaultValue("30s") Duration sectionTimeout
+) {}
@@ -0,0 +1,67 @@
+package com.linter.eduanalitycs.config;
+
+import com.linter.eduanalitycs.model.dto.MetricsPeriod;
+import com.linter.eduanalitycs.model.dto.MetricsRange;
+import com.linter.eduanalitycs.model.dto.PeriodInfo;
+import io.micrometer.common.KeyValues;
+import jakarta.servlet.http.HttpServletRequest;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.server.observation.DefaultServerRequestObservationConvention;
+import org.springframework.http.server.observation.ServerRequestObservationContext;
+import org.springframework.http.server.observation.ServerRequestObservationConvention;
+
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
+
+/**
+ * Метки period и aggregation в http.server.requests: по ним видно, какое окно дашборда медленное.
+ * Значения нормализуются так же, как их разбирает контроллер, поэтому число серий ограничено.
+ * Окно есть только у /api/metrics/**; у остальных запросов обе метки — none.
+ */
+@Configuration
+public class MetricsObservationConfig {
+
+    @Bean
+    public ServerRequestObservationConvention dashboardRequestObservationConvention() {
+        return new DefaultServerRequestObservationConvention() {
+            @Override
+            public KeyValues getLowCardinalityKeyValues(ServerRequestObservationContext context) {
+                Window window = window(context.getCarrier());
+                return super.getLowCardinalityKeyValues(context)
+                        .and("period", window.period())
+                        .and("aggregation", window.aggregation());
+            }
+        };
+    }
+
+    record Window(String period, String aggregation) {}
+
+    // Период и шаг, которые посчитал контроллер: пресет, либо custom (или ключ пресета той же длины) для from/to
+    static Window window(HttpServletRequest request) {
+        String path = request.getRequestURI().substring(request.getContextPath().length());
+        if (!path.equals("/api/metrics") && !path.startsWith("/api/metrics/")) {
+            return new Window("none", "none");
+        }
+        String period = request.getParameter("period");
+        String from = request.getParameter("from");
+        String to = request.getParameter("to");
+        String granularity = request.getParameter("granularity");
+        if (period == null && from == null && to == null && granularity == null) {
+            return new Window("none", "none");
+        }
+        try {
+            PeriodInfo range = from != null || to != null
+                    ? MetricsRange.customRange(from != null ? LocalDate.parse(from) : null,
+                    to != null ? LocalDate.parse(to) : null, LocalDate.now())
+                    : MetricsPeriod.parse(period).toPeriod(LocalDate.now());
+            String aggregation = granularity != null
+                    ? MetricsRange.parseGranularity(granularity)
+                    : MetricsPeriod.aggregationOf(range.start(), range.end());
+            return new Window(MetricsPeriod.tagOf(range.start(), range.end()), aggregation);
+        } catch (DateTimeParseException | IllegalArgumentException e) {
+            // Запрос отклонён с 400: одна серия на все неверные параметры
+            return new Window("invalid", "invalid");
+        }
+    }
+}
@@ -0,0 +1,77 @@
+package com.linter.eduanalitycs.config;
+
+import com.linter.eduanalitycs.service.MetricsRequestContext;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.Timer;
+import lombok.RequiredArgsConstructor;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.springframework.data.domain.Slice;
+import org.springframework.stereotype.Component;
+
+import java.util.Collection;
+import java.util.Optional;
+import java.util.stream.BaseStream;
+
+/**
+ * Время и число строк запросов OrderRepository и UserRepository: таймер metrics.repository.query
+ * и распределение metrics.repository.rows с метками метода и расчёта дашборда (период, шаг агрегации).
+ * <p>
+ * Для методов, возвращающих Stream, таймер покрывает только открытие курсора, а строки не считаются:
+ * их читает вызывающий код.
+ */
+@Aspect
+@Component
+@RequiredArgsConstructor
+public class RepositoryMetricsAspect {
+    private final MeterRegistry meterRegistry;
+
+    // this(), а не target(): реализация Spring Data (SimpleJpaRepository) интерфейсов приложения не реализует
+    @Around("execution(* *(..)) && this(com.linter.eduanalitycs.repository.OrderRepository)")
+    public Object timeOrderRepository(ProceedingJoinPoint joinPoint) throws Throwable {
+        return timed("OrderRepository", joinPoint);
+    }
+
+    @Around("execution(* *(..)) && this(com.linter.eduanalitycs.repository.UserRepository)")
+    public Object timeUserRepository(ProceedingJoinPoint joinPoint) throws Throwable {
+        return timed("UserRepository", joinPoint);
+    }
+
+    private Object timed(String repository, ProceedingJoinPoint joinPoint) throws Throwable {
+        Tags tags = MetricsRequestContext.currentTags()
+                .and("repository", repository, "method", joinPoint.getSignature().getName());
+        Timer.Sample sample = Timer.start(meterRegistry);
+        String outcome = "error";
+        try {
+            Object result = joinPoint.proceed();
+            outcome = "success";
+            rows(result).ifPresent(rows -> DistributionSummary.builder("metrics.repository.rows")
+                    .description("Строк в ответе запроса репозитория")
+                    .tags(tags)
+                    .register(meterRegistry)
+                    .record(rows));
+            return result;
+        } finally {
+            sample.stop(Timer.builder("metrics.repository.query")
+                    .description("Время запроса репозитория")
+                    .tags(tags)
+                    .tag("outcome", outcome)
+                    .register(meterRegistry));
+        }
+    }
+
+    // Агрегат (count, сумма, сводка) — одна строка
+    private static Optional<Integer> rows(Object result) {
+        return switch (result) {
+            case null -> Optional.of(0);
+            case Collection<?> collection -> Optional.of(collection.size());
+            case Slice<?> slice -> Optional.of(slice.getNumberOfElements());
+            case Optional<?> optional -> Optional.of(optional.isPresent() ? 1 : 0);
+            case BaseStream<?, ?> stream -> Optional.empty();
+            default -> Optional.of(1);
+        };
+    }
+}
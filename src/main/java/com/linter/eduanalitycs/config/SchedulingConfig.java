@@ -0,0 +1,14 @@
+package com.linter.eduanalitycs.config;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.annotation.EnableScheduling;
+
+/**
+ * Планировщик нужен только для снимков метрик (MetricsSnapshotService).
+ */
+@Configuration
+@EnableScheduling
+@ConditionalOnProperty(prefix = "metrics.snapshot", name = "enabled", havingValue = "true", matchIfMissing = true)
+public class SchedulingConfig {
+}
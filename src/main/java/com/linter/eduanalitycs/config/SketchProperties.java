@@ -0,0 +1,23 @@
+package com.linter.eduanalitycs.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+/**
+ * Настройки приближённого подсчёта уникальных пользователей (precision=approx).
+ *
+ * @param relativeError целевая относительная ошибка оценки (одно стандартное отклонение); по ней выбирается
+ *                      размер HLL-скетча. Уже записанные скетчи не меняются до пересборки агрегатов
+ */
+@ConfigurationProperties("metrics.sketch")
+public record SketchProperties(
+        @DefaultValue("0.01") double relativeError
+) {
+    /**
+     * log2 числа регистров HLL: ошибка ≈ 1.04 / sqrt(2^lgK), для 1% — 14 (16 КБ на день).
+     */
+    public int lgK() {
+        double registers = Math.pow(1.04 / relativeError, 2);
+        return Math.clamp((long) Math.ceil(Math.log(registers) / Math.log(2)), 4, 21);
+    }
+}
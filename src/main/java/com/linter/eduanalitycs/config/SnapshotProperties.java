@@ -0,0 +1,20 @@
+package com.linter.eduanalitycs.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+import java.time.Duration;
+
+/**
+ * Фоновая материализация метрик стандартных периодов.
+ *
+ * @param enabled         пересчитывать снимки по расписанию; без них дашборд считает метрики по запросу
+ * @param refreshInterval пауза между окончанием одного прохода и началом следующего
+ * @param initialDelay    задержка первого прохода после старта
+ */
+@ConfigurationProperties("metrics.snapshot")
+public record SnapshotProperties(
+        @DefaultValue("true") boolean enabled,
+        @DefaultValue("1m") Duration refreshInterval,
+        @DefaultValue("10s") Duration initialDelay
+) {}
@@ -0,0 +1,236 @@
+package com.linter.eduanalitycs.config;
+
+import com.linter.eduanalitycs.model.entity.Course;
+import com.linter.eduanalitycs.repository.SequenceIdAllocator;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Date;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Генерирует пользователей и заказы порциями по {@code chunkSize} пользователей.
+ * Порции независимы: у каждой свой генератор случайных чисел ({@code seed + номер порции}),
+ * свой блок id из последовательностей и своя транзакция, поэтому они генерируются параллельно,
+ * а в памяти одновременно живёт не больше {@code threads} порций.
+ * Строки пишутся JDBC batch-ами в обход Hibernate, поэтому дневные агрегаты и сводку заходов
+ * после генерации пересобирает DailyRollupService.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class SyntheticDataGenerator {
+    private static final String INSERT_USER =
+            "INSERT INTO users (id, name, registration_date, last_activity_date) VALUES (?, ?, ?, ?)";
+    private static final String INSERT_ORDER =
+            "INSERT INTO orders (id, user_id, course_id, order_date, amount) VALUES (?, ?, ?, ?, ?)";
+    private static final String INSERT_ACTIVITY =
+            "INSERT INTO activity_events (id, user_id, occurred_at, activity_date) VALUES (?, ?, ?, ?)";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final PlatformTransactionManager transactionManager;
+    private final SequenceIdAllocator idAllocator;
+    private final DataGeneratorProperties properties;
+
+    public record Result(long users, long orders, long activityEvents) {}
+
+    public Result generate(List<Course> courses) {
+        CourseSampler sampler = new CourseSampler(courses);
+        LocalDateTime now = LocalDateTime.now();
+        int chunkSize = Math.max(1, properties.chunkSize());
+        int chunks = (properties.users() + chunkSize - 1) / chunkSize;
+        long baseSeed = properties.seed() != null ? properties.seed() : new SplittableRandom().nextLong();
+
+        long startedAt = System.nanoTime();
+        ExecutorService executor = Executors.newFixedThreadPool(Math.min(properties.effectiveThreads(), Math.max(chunks, 1)));
+        try {
+            List<Future<Result>> futures = new ArrayList<>(chunks);
+            for (int chunk = 0; chunk < chunks; chunk++) {
+                int firstUser = chunk * chunkSize;
+                int size = Math.min(chunkSize, properties.users() - firstUser);
+                SplittableRandom random = new SplittableRandom(baseSeed + chunk);
+                futures.add(executor.submit(() -> generateChunk(firstUser, size, random, sampler, now)));
+            }
+
+            long users = 0;
+            long orders = 0;
+            long activityEvents = 0;
+            for (Future<Result> future : futures) {
+                Result result = future.get();
+                users += result.users();
+                orders += result.orders();
+                activityEvents += result.activityEvents();
+            }
+            log.info("Generated {} users, {} orders and {} activity events in {} chunks, {} ms",
+                    users, orders, activityEvents, chunks, (System.nanoTime() - startedAt) / 1_000_000);
+            return new Result(users, orders, activityEvents);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Data generation interrupted", e);
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Data generation failed", e.getCause());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private Result generateChunk(int firstUser, int size, SplittableRandom r, CourseSampler sampler, LocalDateTime now) {
+        DataGeneratorProperties.Behavior behavior = properties.behavior();
+        LocalDateTime spanStart = now.minusDays(properties.spanDays());
+        long[] userIds = idAllocator.allocate(SequenceIdAllocator.USERS_SEQUENCE, size);
+
+        List<Object[]> users = new ArrayList<>(size);
+        List<Object[]> orders = new ArrayList<>(size);
+        List<Object[]> activity = new ArrayList<>(size * 3);
+        List<LocalDateTime> userOrderDates = new ArrayList<>(3);
+
+        for (int i = 0; i < size; i++) {
+            long userId = userIds[i];
+            LocalDateTime regDate = randomDate(spanStart, r);
+            userOrderDates.clear();
+
+            addVisit(userId, regDate, activity);
+
+            // Зарегистрировались и ушли навсегда (churn сразу)
+            if (r.nextDouble() < behavior.churnShare()) {
+                LocalDateTime lastVisit = regDate.plusHours(r.nextInt(24));
+                addVisit(userId, lastVisit, activity);
+                users.add(userRow(userId, firstUser + i, regDate, lastVisit));
+                continue;
+            }
+
+            // Купили в первые 3 дня, потом иногда возвращаются
+            if (r.nextDouble() < behavior.earlyPurchaseShare()) {
+                addOrder(userId, regDate.plusDays(r.nextLong(0, 4)), sampler.next(r), now, orders, userOrderDates);
+            }
+
+            // Купили через неделю-две (отложенная конверсия)
+            if (r.nextDouble() < behavior.delayedPurchaseShare()) {
+                addOrder(userId, regDate.plusDays(7 + r.nextInt(30)), sampler.next(r), now, orders, userOrderDates);
+            }
+
+            // Повторные покупки
+            if (r.nextDouble() < behavior.repeatPurchaseShare()) {
+                addOrder(userId, regDate.plusDays(20 + r.nextInt(120)), sampler.next(r), now, orders, userOrderDates);
+            }
+
+            // lastActivityDate — последний заказ или + случайная активность
+            LocalDateTime lastAct = userOrderDates.stream()
+                    .max(LocalDateTime::compareTo)
+                    .orElse(regDate);
+
+            // Покупатели возвращаются 1–5 раз просто "погулять" после покупки
+            if (!userOrderDates.isEmpty() && r.nextDouble() < behavior.returnVisitShare()) {
+                int extraVisits = r.nextInt(1, 6);
+                for (int v = 0; v < extraVisits; v++) {
+                    LocalDateTime visit = lastAct.plusDays(r.nextInt(1, 90));
+                    if (visit.isBefore(now)) {
+                        lastAct = visit;
+                        addVisit(userId, visit, activity);
+                    }
+                }
+            }
+
+            LocalDateTime lastVisit = lastAct.plusMinutes(r.nextInt(120)); // финальный заход
+            addVisit(userId, lastVisit, activity);
+            users.add(userRow(userId, firstUser + i, regDate, lastVisit));
+        }
+        // Заказы — тоже заходы
+        for (Object[] order : orders) {
+            activity.add(new Object[]{null, order[1], order[3], Date.valueOf(((Timestamp) order[3]).toLocalDateTime().toLocalDate())});
+        }
+
+        // id заказов выдаём одним блоком, когда уже известно их количество
+        long[] orderIds = idAllocator.allocate(SequenceIdAllocator.ORDERS_SEQUENCE, orders.size());
+        for (int i = 0; i < orders.size(); i++) {
+            orders.get(i)[0] = orderIds[i];
+        }
+        long[] activityIds = idAllocator.allocate(SequenceIdAllocator.ACTIVITY_EVENTS_SEQUENCE, activity.size());
+        for (int i = 0; i < activity.size(); i++) {
+            activity.get(i)[0] = activityIds[i];
+        }
+
+        new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+            batchInsert(INSERT_USER, users);
+            batchInsert(INSERT_ORDER, orders);
+            batchInsert(INSERT_ACTIVITY, activity);
+        });
+        return new Result(users.size(), orders.size(), activity.size());
+    }
+
+    private void batchInsert(String sql, List<Object[]> rows) {
+        int batchSize = Math.max(1, properties.batchSize());
+        for (int from = 0; from < rows.size(); from += batchSize) {
+            jdbcTemplate.batchUpdate(sql, rows.subList(from, Math.min(from + batchSize, rows.size())));
+        }
+    }
+
+    private static Object[] userRow(long id, int number, LocalDateTime registrationDate, LocalDateTime lastActivityDate) {
+        return new Object[]{id, "User" + (1000 + number), Timestamp.valueOf(registrationDate), Timestamp.valueOf(lastActivityDate)};
+    }
+
+    private static void addVisit(long userId, LocalDateTime date, List<Object[]> activity) {
+        activity.add(new Object[]{null, userId, Timestamp.valueOf(date), Date.valueOf(date.toLocalDate())});
+    }
+
+    private static void addOrder(long userId, LocalDateTime date, Course course, LocalDateTime now,
+                                 List<Object[]> orders, List<LocalDateTime> userOrderDates) {
+        if (date.isAfter(now)) return;
+        orders.add(new Object[]{null, userId, course.getId(), Timestamp.valueOf(date), course.getPrice()});
+        userOrderDates.add(date);
+    }
+
+    private LocalDateTime randomDate(LocalDateTime start, SplittableRandom r) {
+        return start.plusDays(r.nextLong(properties.spanDays() + 1L))
+                .plusHours(r.nextInt(24))
+                .plusMinutes(r.nextInt(60));
+    }
+
+    /**
+     * Выбор курса с весами: популярные курсы чаще. Кумулятивные веса считаются один раз,
+     * выбор — бинарный поиск по ним.
+     */
+    static final class CourseSampler {
+        private final Course[] courses;
+        private final int[] cumulativeWeights;
+
+        CourseSampler(List<Course> courses) {
+            this.courses = courses.toArray(Course[]::new);
+            this.cumulativeWeights = new int[this.courses.length];
+            int total = 0;
+            for (int i = 0; i < this.courses.length; i++) {
+                total += weight(this.courses[i]);
+                cumulativeWeights[i] = total;
+            }
+        }
+
+        Course next(SplittableRandom r) {
+            int point = r.nextInt(cumulativeWeights[cumulativeWeights.length - 1]);
+            int index = Arrays.binarySearch(cumulativeWeights, point + 1);
+            return courses[index >= 0 ? index : -index - 1];
+        }
+
+        private static int weight(Course course) {
+            return switch (course.getName()) {
+                case "История музыки за 15 минут в день. Балкон",
+                     "Мой друг Моцарт 3.0. История искусств",
+                     "Семейный просмотр" -> 10;
+                case "Как устроена музыка", "Великие композиторы" -> 7;
+                default -> 3;
+            };
+        }
+    }
+}
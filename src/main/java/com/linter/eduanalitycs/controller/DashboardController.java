@@ -1,30 +1,60 @@
 package com.linter.eduanalitycs.controller;
 
+import com.linter.eduanalitycs.model.dto.CohortCac;
+import com.linter.eduanalitycs.model.dto.CohortEvent;
+import com.linter.eduanalitycs.model.dto.CohortGranularity;
+import com.linter.eduanalitycs.model.dto.CohortLtv;
+import com.linter.eduanalitycs.model.dto.CohortMatrix;
 import com.linter.eduanalitycs.model.dto.CompleteMetricsResponse;
 import com.linter.eduanalitycs.model.dto.DashboardStats;
+import com.linter.eduanalitycs.model.dto.MetricsPeriod;
+import com.linter.eduanalitycs.model.dto.MetricsPrecision;
+import com.linter.eduanalitycs.model.dto.MetricsRange;
+import com.linter.eduanalitycs.model.dto.MetricsSection;
 import com.linter.eduanalitycs.model.dto.PeriodInfo;
+import com.linter.eduanalitycs.model.dto.ProductPerformanceDTO;
+import com.linter.eduanalitycs.model.dto.ProductSort;
+import com.linter.eduanalitycs.service.CohortRetentionService;
+import com.linter.eduanalitycs.service.FinancialMetricsService;
 import com.linter.eduanalitycs.service.MetricsFacadeService;
+import com.linter.eduanalitycs.service.MetricsSnapshotService;
+import com.linter.eduanalitycs.service.ProductMetricsService;
 import lombok.RequiredArgsConstructor;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.stereotype.Controller;
 import org.springframework.ui.Model;
 import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.server.ResponseStatusException;
 
 import java.time.LocalDate;
-import java.time.LocalDateTime;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
 
 @Controller
 @RequiredArgsConstructor
 public class DashboardController {
+    private static final int MAX_TOP_PRODUCTS = 100;
+
     private final MetricsFacadeService metricsFacadeService;
+    private final CohortRetentionService cohortRetentionService;
+    private final MetricsSnapshotService metricsSnapshotService;
+    private final ProductMetricsService productMetricsService;
+    private final FinancialMetricsService financialMetricsService;
 
     @GetMapping("/")
     public String dashboard(Model model, @RequestParam(defaultValue = "last30days") String period) {
-        PeriodInfo periodInfo = calculatePeriod(period);
+        MetricsPeriod preset = MetricsPeriod.parse(period);
+        PeriodInfo periodInfo = preset.toPeriod(LocalDate.now());
 
-        // Получаем все метрики за один вызов
-        CompleteMetricsResponse metrics = metricsFacadeService.getCompleteMetrics(periodInfo.start(), periodInfo.end());
+        // Все метрики за один вызов: из фонового снимка, если он уже есть
+        CompleteMetricsResponse metrics = metricsSnapshotService.getSnapshot(preset)
+                .orElseGet(() -> metricsFacadeService.getCompleteMetrics(periodInfo.start(), periodInfo.end()));
 
         // Основные метрики
         model.addAttribute("audienceMetrics", metrics.getAudienceMetrics());
@@ -43,26 +73,170 @@ public class DashboardController {
         model.addAttribute("totalRevenue", stats.getTotalRevenue());
 
         model.addAttribute("selectedPeriod", period);
+        model.addAttribute("generatedAt", metrics.getGeneratedAt());
 
         return "dashboard";
     }
 
-    private PeriodInfo calculatePeriod(String period) {
-        LocalDateTime now = LocalDateTime.now();
-        LocalDate endDate = now.toLocalDate();
-        LocalDate startDate = switch (period.toLowerCase()) {
-            case "last7days" -> endDate.minusDays(7);
-            case "last90days" -> endDate.minusDays(90);
-            case "last365days" -> endDate.minusDays(365);
-            default -> endDate.minusDays(30);
-        };
-        return new PeriodInfo(startDate.atStartOfDay(), endDate.plusDays(1).atStartOfDay());
+    /**
+     * Период — пресет {@code period} или даты {@code from}/{@code to} включительно; будущие дни отбрасываются,
+     * период длиннее {@link MetricsRange#MAX_RANGE_DAYS} обрезается слева. {@code granularity} (day, week, month) задаёт шаг
+     * графиков, без него шаг выбирается по длине периода. Фактические границы и шаг — в period и aggregation ответа.
+     * {@code fields} — секции через запятую (stats, audience, retention, financial, products); без него — все.
+     */
+    @GetMapping("/api/metrics")
+    public ResponseEntity<CompleteMetricsResponse> getMetrics(@RequestParam(defaultValue = "last30days") String period,
+                                                              @RequestParam(defaultValue = "exact") String precision,
+                                                              @RequestParam(defaultValue = "false") boolean live,
+                                                              @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+                                                              @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to,
+                                                              @RequestParam(required = false) String granularity,
+                                                              @RequestParam(required = false) String fields) {
+        return ResponseEntity.ok(metrics(period, precision, live, from, to, granularity, parseFields(fields)));
     }
 
-    @GetMapping("/api/metrics")
-    public ResponseEntity<CompleteMetricsResponse> getMetrics(@RequestParam(defaultValue = "last30days") String period) {
-        PeriodInfo periodInfo = calculatePeriod(period);
-        CompleteMetricsResponse metrics = metricsFacadeService.getCompleteMetrics(periodInfo.start(), periodInfo.end());
-        return ResponseEntity.ok(metrics);
+    // Одна секция /api/metrics с теми же параметрами: дашборд догружает тяжёлые графики отдельно от карточек
+    @GetMapping("/api/metrics/{section:audience|retention|financial}")
+    public ResponseEntity<CompleteMetricsResponse> getSection(@PathVariable String section,
+                                                              @RequestParam(defaultValue = "last30days") String period,
+                                                              @RequestParam(defaultValue = "exact") String precision,
+                                                              @RequestParam(defaultValue = "false") boolean live,
+                                                              @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+                                                              @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to,
+                                                              @RequestParam(required = false) String granularity) {
+        return ResponseEntity.ok(metrics(period, precision, live, from, to, granularity, parseFields(section)));
+    }
+
+    /**
+     * Рейтинг курсов: top первых по продажам (sort=sales) или выручке (sort=revenue). Период и остальные параметры —
+     * как у {@link #getMetrics}; рейтинг по умолчанию (sort=sales, top=5) берётся из той же секции products.
+     */
+    @GetMapping("/api/metrics/products")
+    public ResponseEntity<List<ProductPerformanceDTO>> getProducts(@RequestParam(defaultValue = "last30days") String period,
+                                                                   @RequestParam(defaultValue = "exact") String precision,
+                                                                   @RequestParam(defaultValue = "false") boolean live,
+                                                                   @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+                                                                   @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to,
+                                                                   @RequestParam(required = false) String granularity,
+                                                                   @RequestParam(defaultValue = "5") int top,
+                                                                   @RequestParam(defaultValue = "sales") String sort) {
+        if (top < 1 || top > MAX_TOP_PRODUCTS) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "'top' must be between 1 and " + MAX_TOP_PRODUCTS);
+        }
+        ProductSort productSort = parseSort(sort);
+        if (productSort == ProductSort.SALES && top == ProductMetricsService.DEFAULT_TOP) {
+            return ResponseEntity.ok(metrics(period, precision, live, from, to, granularity,
+                    EnumSet.of(MetricsSection.PRODUCTS)).getProductPerformance());
+        }
+        // Рейтинг не зависит от точности и шага графиков, но параметры проверяются так же, как у секций
+        parsePrecision(precision);
+        if (granularity != null) {
+            parseGranularity(granularity);
+        }
+        PeriodInfo range = from != null || to != null
+                ? customRange(from, to)
+                : MetricsPeriod.parse(period).toPeriod(LocalDate.now());
+        return ResponseEntity.ok(productMetricsService.getProductPerformance(range.start(), range.end(), productSort, top));
+    }
+
+    // CAC когорт регистрации по неделям или месяцам
+    @GetMapping("/api/metrics/cac/cohorts")
+    public ResponseEntity<List<CohortCac>> getCacCohorts(@RequestParam(defaultValue = "last365days") String period,
+                                                         @RequestParam(defaultValue = "month") String granularity) {
+        PeriodInfo periodInfo = MetricsPeriod.parse(period).toPeriod(LocalDate.now());
+        return ResponseEntity.ok(financialMetricsService.getCacByCohort(periodInfo.start().toLocalDate(),
+                periodInfo.end().toLocalDate(), CohortGranularity.parse(granularity)));
+    }
+
+    // Накопительный LTV месячных когорт регистрации, зарегистрировавшихся за период
+    @GetMapping("/api/metrics/ltv/cohorts")
+    public ResponseEntity<List<CohortLtv>> getLtvCohorts(@RequestParam(defaultValue = "last365days") String period) {
+        PeriodInfo periodInfo = MetricsPeriod.parse(period).toPeriod(LocalDate.now());
+        return ResponseEntity.ok(financialMetricsService.getLtvByCohort(periodInfo.start().toLocalDate(),
+                periodInfo.end().toLocalDate()));
+    }
+
+    // Когорты по неделе или месяцу регистрации; удержание — заход (activity) или покупка (purchase) в k-м периоде
+    @GetMapping("/api/metrics/cohorts")
+    public ResponseEntity<CohortMatrix> getCohorts(@RequestParam(defaultValue = "last90days") String period,
+                                                   @RequestParam(defaultValue = "week") String granularity,
+                                                   @RequestParam(defaultValue = "activity") String event) {
+        PeriodInfo periodInfo = MetricsPeriod.parse(period).toPeriod(LocalDate.now());
+        CohortMatrix matrix = cohortRetentionService.getMatrix(periodInfo.start().toLocalDate(), periodInfo.end().toLocalDate(),
+                CohortGranularity.parse(granularity), CohortEvent.parse(event));
+        return ResponseEntity.ok(matrix);
+    }
+
+    private CompleteMetricsResponse metrics(String period, String precision, boolean live, LocalDate from, LocalDate to,
+                                            String granularity, Set<MetricsSection> sections) {
+        MetricsPrecision metricsPrecision = parsePrecision(precision);
+        String aggregation = granularity != null ? parseGranularity(granularity) : null;
+        // Полный ответ — прежними вызовами, чтобы делить записи кэша со страницей дашборда
+        boolean allSections = sections.size() == MetricsSection.values().length;
+        if (from != null || to != null) {
+            PeriodInfo range = customRange(from, to);
+            String rangeAggregation = aggregation != null ? aggregation : MetricsPeriod.aggregationOf(range.start(), range.end());
+            return allSections
+                    ? metricsFacadeService.getCompleteMetrics(range.start(), range.end(), metricsPrecision, rangeAggregation)
+                    : metricsFacadeService.getCompleteMetrics(range.start(), range.end(), metricsPrecision, rangeAggregation, sections);
+        }
+
+        MetricsPeriod preset = MetricsPeriod.parse(period);
+        // Снимки считаются точно и с шагом по умолчанию; live=true, approx или другой шаг — расчёт по запросу
+        if (!live && metricsPrecision == MetricsPrecision.EXACT
+                && (aggregation == null || aggregation.equals(preset.aggregation()))) {
+            Optional<CompleteMetricsResponse> snapshot = metricsSnapshotService.getSnapshot(preset);
+            if (snapshot.isPresent()) {
+                return MetricsFacadeService.onlySections(snapshot.get(), sections);
+            }
+        }
+        PeriodInfo periodInfo = preset.toPeriod(LocalDate.now());
+        if (!allSections) {
+            return metricsFacadeService.getCompleteMetrics(periodInfo.start(), periodInfo.end(), metricsPrecision,
+                    aggregation != null ? aggregation : preset.aggregation(), sections);
+        }
+        return aggregation == null
+                ? metricsFacadeService.getCompleteMetrics(periodInfo.start(), periodInfo.end(), metricsPrecision)
+                : metricsFacadeService.getCompleteMetrics(periodInfo.start(), periodInfo.end(), metricsPrecision, aggregation);
+    }
+
+    // Секции через запятую; пустой список — все
+    private static Set<MetricsSection> parseFields(String fields) {
+        Set<MetricsSection> sections = EnumSet.noneOf(MetricsSection.class);
+        if (fields != null) {
+            for (String field : fields.split(",")) {
+                if (!field.isBlank()) {
+                    sections.add(MetricsSection.byKey(field.trim()).orElseThrow(() -> new ResponseStatusException(
+                            HttpStatus.BAD_REQUEST, "'fields' must list stats, audience, retention, financial, products")));
+                }
+            }
+        }
+        return sections.isEmpty() ? EnumSet.allOf(MetricsSection.class) : sections;
+    }
+
+    private static ProductSort parseSort(String sort) {
+        return ProductSort.byKey(sort).orElseThrow(() ->
+                new ResponseStatusException(HttpStatus.BAD_REQUEST, "'sort' must be sales or revenue"));
+    }
+
+    private static MetricsPrecision parsePrecision(String precision) {
+        return MetricsPrecision.byKey(precision).orElseThrow(() ->
+                new ResponseStatusException(HttpStatus.BAD_REQUEST, "'precision' must be exact or approx"));
+    }
+
+    private static String parseGranularity(String granularity) {
+        try {
+            return MetricsRange.parseGranularity(granularity);
+        } catch (IllegalArgumentException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, e.getMessage());
+        }
+    }
+
+    private static PeriodInfo customRange(LocalDate from, LocalDate to) {
+        try {
+            return MetricsRange.customRange(from, to, LocalDate.now());
+        } catch (IllegalArgumentException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, e.getMessage());
+        }
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,75 @@
+package com.linter.eduanalitycs.controller;
+
+import com.linter.eduanalitycs.service.MetricsExportService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.time.LocalDate;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Выгрузки для финансов в CSV, сжатом gzip. Границы — даты включительно.
+ * Ответ пишется потоком после выхода из контроллера, в памяти держится буфер сжатия.
+ */
+@RestController
+@RequestMapping("/api/export")
+@RequiredArgsConstructor
+public class ExportController {
+    static final MediaType GZIP = MediaType.parseMediaType("application/gzip");
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private final MetricsExportService metricsExportService;
+
+    @GetMapping("/orders")
+    public ResponseEntity<StreamingResponseBody> exportOrders(@RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+                                                              @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to) {
+        checkRange(from, to);
+        return csvGzip("orders", from, to, out -> metricsExportService.exportOrders(from, to.plusDays(1), out));
+    }
+
+    @GetMapping("/product-performance")
+    public ResponseEntity<StreamingResponseBody> exportProductPerformance(@RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+                                                                          @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to) {
+        checkRange(from, to);
+        return csvGzip("product-performance", from, to,
+                out -> metricsExportService.exportProductPerformance(from, to.plusDays(1), out));
+    }
+
+    @GetMapping("/dau")
+    public ResponseEntity<StreamingResponseBody> exportDailyActiveUsers(@RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+                                                                        @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to) {
+        checkRange(from, to);
+        return csvGzip("dau", from, to, out -> metricsExportService.exportDailyActiveUsers(from, to.plusDays(1), out));
+    }
+
+    private static void checkRange(LocalDate from, LocalDate to) {
+        if (to.isBefore(from)) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "'to' must not be before 'from'");
+        }
+    }
+
+    private static ResponseEntity<StreamingResponseBody> csvGzip(String name, LocalDate from, LocalDate to, StreamingResponseBody export) {
+        String fileName = name + "_" + from + "_" + to + ".csv.gz";
+        StreamingResponseBody body = out -> {
+            GZIPOutputStream gzip = new GZIPOutputStream(out, BUFFER_SIZE);
+            export.writeTo(gzip);
+            // finish, а не close: поток ответа закрывает контейнер
+            gzip.finish();
+        };
+        return ResponseEntity.ok()
+                .contentType(GZIP)
+                .header(HttpHeaders.CONTENT_DISPOSITION, ContentDisposition.attachment().filename(fileName).build().toString())
+                .body(body);
+    }
+}
@@ -0,0 +1,55 @@
+package com.linter.eduanalitycs.controller;
+
+import com.linter.eduanalitycs.model.dto.IngestResult;
+import com.linter.eduanalitycs.service.IngestService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.io.InputStream;
+
+/**
+ * Загрузка данных в обход DataInitializer: NDJSON (по объекту на строку) или CSV с заголовком.
+ * Тело запроса читается потоком, в памяти держится одна пачка строк.
+ */
+@RestController
+@RequestMapping("/api/ingest")
+@RequiredArgsConstructor
+public class IngestController {
+    static final String NDJSON = "application/x-ndjson";
+    static final String CSV = "text/csv";
+
+    private final IngestService ingestService;
+
+    // Колонки: userId, courseId, orderDate (ISO), amount (необязательно)
+    @PostMapping(value = "/orders", consumes = {NDJSON, CSV})
+    public ResponseEntity<IngestResult> ingestOrders(@RequestHeader(HttpHeaders.CONTENT_TYPE) String contentType,
+                                                     InputStream body) {
+        return ResponseEntity.ok(ingestService.ingestOrders(body, format(contentType)));
+    }
+
+    // Колонки: userId, activityDate (ISO)
+    @PostMapping(value = "/activity", consumes = {NDJSON, CSV})
+    public ResponseEntity<IngestResult> ingestActivity(@RequestHeader(HttpHeaders.CONTENT_TYPE) String contentType,
+                                                       InputStream body) {
+        return ResponseEntity.ok(ingestService.ingestActivity(body, format(contentType)));
+    }
+
+    // Колонки: date (ISO), channel (необязательно), amount; повторная загрузка дня и канала заменяет сумму
+    @PostMapping(value = "/marketing-spend", consumes = {NDJSON, CSV})
+    public ResponseEntity<IngestResult> ingestMarketingSpend(@RequestHeader(HttpHeaders.CONTENT_TYPE) String contentType,
+                                                             InputStream body) {
+        return ResponseEntity.ok(ingestService.ingestMarketingSpend(body, format(contentType)));
+    }
+
+    private static IngestService.Format format(String contentType) {
+        return MediaType.parseMediaType(contentType).isCompatibleWith(MediaType.parseMediaType(CSV))
+                ? IngestService.Format.CSV
+                : IngestService.Format.NDJSON;
+    }
+}
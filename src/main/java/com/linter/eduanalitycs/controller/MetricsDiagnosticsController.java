@@ -0,0 +1,50 @@
+package com.linter.eduanalitycs.controller;
+
+import com.linter.eduanalitycs.model.dto.CacheStatsDTO;
+import com.linter.eduanalitycs.model.dto.QueryMemoStatsDTO;
+import com.linter.eduanalitycs.service.DailyRollupService;
+import com.linter.eduanalitycs.service.MetricsCacheService;
+import com.linter.eduanalitycs.service.MetricsRequestContexts;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.DeleteMapping;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.List;
+
+@RestController
+@RequestMapping("/api/metrics/diagnostics")
+@RequiredArgsConstructor
+public class MetricsDiagnosticsController {
+    private final MetricsCacheService metricsCacheService;
+    private final DailyRollupService dailyRollupService;
+    private final MetricsRequestContexts metricsRequestContexts;
+
+    @GetMapping("/cache")
+    public ResponseEntity<List<CacheStatsDTO>> getCacheStats() {
+        return ResponseEntity.ok(metricsCacheService.getStats());
+    }
+
+    // Сколько запросов секций дашборда взято из контекста расчёта вместо базы
+    @GetMapping("/query-memo")
+    public ResponseEntity<QueryMemoStatsDTO> getQueryMemoStats() {
+        return ResponseEntity.ok(metricsRequestContexts.getStats());
+    }
+
+    @DeleteMapping("/cache")
+    public ResponseEntity<Void> invalidateCache() {
+        metricsCacheService.invalidateAll();
+        return ResponseEntity.noContent().build();
+    }
+
+    // Полный пересчёт дневных агрегатов, например после загрузки данных в обход приложения
+    @PostMapping("/rollups/rebuild")
+    public ResponseEntity<Void> rebuildRollups() {
+        dailyRollupService.rebuild();
+        metricsCacheService.invalidateAll();
+        return ResponseEntity.noContent().build();
+    }
+}
@@ -0,0 +1,118 @@
+package com.linter.eduanalitycs.event;
+
+import com.linter.eduanalitycs.model.entity.Order;
+import com.linter.eduanalitycs.model.entity.User;
+import com.linter.eduanalitycs.service.DailyRollupService;
+import jakarta.annotation.PostConstruct;
+import jakarta.persistence.EntityManagerFactory;
+import lombok.RequiredArgsConstructor;
+import org.hibernate.action.spi.AfterTransactionCompletionProcess;
+import org.hibernate.action.spi.BeforeTransactionCompletionProcess;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.event.service.spi.EventListenerRegistry;
+import org.hibernate.event.spi.EventSource;
+import org.hibernate.event.spi.EventType;
+import org.hibernate.event.spi.PostDeleteEvent;
+import org.hibernate.event.spi.PostDeleteEventListener;
+import org.hibernate.event.spi.PostInsertEvent;
+import org.hibernate.event.spi.PostInsertEventListener;
+import org.hibernate.event.spi.PostUpdateEvent;
+import org.hibernate.event.spi.PostUpdateEventListener;
+import org.hibernate.persister.entity.EntityPersister;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Поддерживает дневные агрегаты в актуальном состоянии при записи заказов и пользователей через JPA.
+ * <p>
+ * Hibernate-листенер (а не JPA @PostUpdate), потому что при изменении даты нужен и старый день:
+ * его отдаёт только {@link PostUpdateEvent#getOldState()}. Затронутые дни копятся до конца транзакции
+ * и пересчитываются в before-completion Hibernate-сессии, то есть после последнего flush и в той же
+ * транзакции: агрегаты и исходные данные фиксируются вместе.
+ */
+@Component
+@RequiredArgsConstructor
+public class DailyRollupMaintainer implements PostInsertEventListener, PostUpdateEventListener, PostDeleteEventListener {
+    private static final Map<Class<?>, List<String>> DATE_PROPERTIES = Map.of(
+            Order.class, List.of("orderDate"),
+            User.class, List.of("registrationDate", "lastActivityDate")
+    );
+
+    // Сессия используется одним потоком, но листенер общий на все сессии
+    private final Map<EventSource, Set<LocalDate>> pendingDaysBySession = new ConcurrentHashMap<>();
+
+    private final EntityManagerFactory entityManagerFactory;
+    private final DailyRollupService dailyRollupService;
+
+    @PostConstruct
+    void register() {
+        EventListenerRegistry registry = entityManagerFactory.unwrap(SessionFactoryImplementor.class)
+                .getServiceRegistry()
+                .requireService(EventListenerRegistry.class);
+        registry.appendListeners(EventType.POST_INSERT, this);
+        registry.appendListeners(EventType.POST_UPDATE, this);
+        registry.appendListeners(EventType.POST_DELETE, this);
+    }
+
+    @Override
+    public void onPostInsert(PostInsertEvent event) {
+        markDirty(event.getSession(), event.getPersister(), event.getState());
+    }
+
+    @Override
+    public void onPostUpdate(PostUpdateEvent event) {
+        markDirty(event.getSession(), event.getPersister(), event.getState());
+        markDirty(event.getSession(), event.getPersister(), event.getOldState());
+    }
+
+    @Override
+    public void onPostDelete(PostDeleteEvent event) {
+        markDirty(event.getSession(), event.getPersister(), event.getDeletedState());
+    }
+
+    @Override
+    public boolean requiresPostCommitHandling(EntityPersister persister) {
+        return false;
+    }
+
+    private void markDirty(EventSource session, EntityPersister persister, Object[] state) {
+        List<String> properties = DATE_PROPERTIES.get(persister.getMappedClass());
+        if (properties == null || state == null) {
+            return;
+        }
+
+        List<String> names = Arrays.asList(persister.getPropertyNames());
+        for (String property : properties) {
+            if (state[names.indexOf(property)] instanceof LocalDateTime dateTime) {
+                pendingDays(session).add(dateTime.toLocalDate());
+            }
+        }
+    }
+
+    private Set<LocalDate> pendingDays(EventSource session) {
+        Set<LocalDate> pending = pendingDaysBySession.get(session);
+        if (pending != null) {
+            return pending;
+        }
+
+        Set<LocalDate> days = new HashSet<>();
+        pendingDaysBySession.put(session, days);
+        // Выполняется после последнего flush, но до коммита JDBC-соединения
+        session.getActionQueue().registerProcess((BeforeTransactionCompletionProcess) completing -> {
+            pendingDaysBySession.remove(session);
+            dailyRollupService.refresh(days);
+        });
+        // При откате до пересчёта дело не доходит
+        session.getActionQueue().registerProcess((AfterTransactionCompletionProcess) (success, completing) ->
+                pendingDaysBySession.remove(session));
+        return days;
+    }
+}
@@ -0,0 +1,24 @@
+package com.linter.eduanalitycs.event;
+
+import jakarta.persistence.PostPersist;
+import jakarta.persistence.PostRemove;
+import jakarta.persistence.PostUpdate;
+import lombok.RequiredArgsConstructor;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Component;
+
+/**
+ * JPA-листенер сущностей, влияющих на метрики: сообщает об изменениях через события Spring.
+ */
+@Component
+@RequiredArgsConstructor
+public class MetricsDataChangeListener {
+    private final ApplicationEventPublisher eventPublisher;
+
+    @PostPersist
+    @PostUpdate
+    @PostRemove
+    public void onChange(Object entity) {
+        eventPublisher.publishEvent(new MetricsDataChangedEvent(entity.getClass()));
+    }
+}
@@ -0,0 +1,8 @@
+package com.linter.eduanalitycs.event;
+
+/**
+ * Изменились данные, из которых считаются метрики.
+ */
+public record MetricsDataChangedEvent(
+        Class<?> entityType
+) {}
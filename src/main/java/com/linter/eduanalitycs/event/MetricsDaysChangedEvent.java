@@ -0,0 +1,21 @@
+package com.linter.eduanalitycs.event;
+
+import java.time.LocalDate;
+import java.util.Set;
+
+/**
+ * Изменились исходные данные за дни {@code days}; {@code allDays} — после полной пересборки агрегатов.
+ * Публикуется в транзакции записи, слушатели получают его после коммита.
+ */
+public record MetricsDaysChangedEvent(
+        Set<LocalDate> days,
+        boolean allDays
+) {
+    public static MetricsDaysChangedEvent of(Set<LocalDate> days) {
+        return new MetricsDaysChangedEvent(Set.copyOf(days), false);
+    }
+
+    public static MetricsDaysChangedEvent everything() {
+        return new MetricsDaysChangedEvent(Set.of(), true);
+    }
+}
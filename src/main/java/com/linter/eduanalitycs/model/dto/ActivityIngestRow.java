@@ -0,0 +1,11 @@
+package com.linter.eduanalitycs.model.dto;
+
+import java.time.LocalDateTime;
+
+/**
+ * Заход пользователя во входном потоке /api/ingest/activity.
+ */
+public record ActivityIngestRow(
+        Long userId,
+        LocalDateTime activityDate
+) {}
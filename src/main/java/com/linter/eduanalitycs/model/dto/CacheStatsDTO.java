@@ -0,0 +1,10 @@
+package com.linter.eduanalitycs.model.dto;
+
+public record CacheStatsDTO(
+        String cacheName,
+        long size,
+        long hitCount,
+        long missCount,
+        double hitRate,
+        long evictionCount
+) {}
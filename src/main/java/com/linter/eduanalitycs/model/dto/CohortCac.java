@@ -0,0 +1,14 @@
+package com.linter.eduanalitycs.model.dto;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+/**
+ * CAC когорты регистрации: расходы за период когорты на зарегистрированных в нём пользователей.
+ */
+public record CohortCac(
+        LocalDate cohortStart,
+        long newUsers,
+        BigDecimal spend,
+        BigDecimal cac
+) {}
@@ -0,0 +1,12 @@
+package com.linter.eduanalitycs.model.dto;
+
+/**
+ * Что считается удержанием в когортной матрице: заход (activity_events) или покупка (orders).
+ */
+public enum CohortEvent {
+    ACTIVITY, PURCHASE;
+
+    public static CohortEvent parse(String value) {
+        return "purchase".equalsIgnoreCase(value) ? PURCHASE : ACTIVITY;
+    }
+}
@@ -0,0 +1,41 @@
+package com.linter.eduanalitycs.model.dto;
+
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.temporal.ChronoUnit;
+import java.time.temporal.TemporalAdjusters;
+
+/**
+ * Шаг когортной матрицы: когорта — пользователи, зарегистрированные в один период, столбец — k-й период от её начала.
+ */
+public enum CohortGranularity {
+    WEEK, MONTH;
+
+    public static CohortGranularity parse(String value) {
+        return "month".equalsIgnoreCase(value) ? MONTH : WEEK;
+    }
+
+    /**
+     * Начало периода, содержащего дату: понедельник недели или 1-е число месяца.
+     */
+    public LocalDate periodStart(LocalDate date) {
+        return switch (this) {
+            case WEEK -> date.with(TemporalAdjusters.previousOrSame(DayOfWeek.MONDAY));
+            case MONTH -> date.withDayOfMonth(1);
+        };
+    }
+
+    public LocalDate plusPeriods(LocalDate periodStart, long periods) {
+        return periodStart.plus(periods, this == WEEK ? ChronoUnit.WEEKS : ChronoUnit.MONTHS);
+    }
+
+    /**
+     * Номер периода, в который попадает дата, считая от {@code periodStart} (0 — сам этот период).
+     */
+    public int periodIndex(LocalDate periodStart, LocalDate date) {
+        return switch (this) {
+            case WEEK -> (int) Math.floorDiv(date.toEpochDay() - periodStart.toEpochDay(), 7);
+            case MONTH -> (date.getYear() - periodStart.getYear()) * 12 + date.getMonthValue() - periodStart.getMonthValue();
+        };
+    }
+}
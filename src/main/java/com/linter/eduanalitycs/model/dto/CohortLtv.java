@@ -0,0 +1,21 @@
+package com.linter.eduanalitycs.model.dto;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.List;
+
+/**
+ * Накопительный LTV месячной когорты регистрации.
+ *
+ * @param cohortStart 1-е число месяца регистрации
+ * @param users       размер когорты
+ * @param revenue     выручка когорты за всё время
+ * @param ltv         выручка когорты с регистрации по конец k-го месяца на одного пользователя;
+ *                    последний элемент — текущий месяц, он ещё растёт
+ */
+public record CohortLtv(
+        LocalDate cohortStart,
+        long users,
+        BigDecimal revenue,
+        List<BigDecimal> ltv
+) {}
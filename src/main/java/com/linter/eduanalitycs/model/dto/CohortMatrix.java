@@ -0,0 +1,9 @@
+package com.linter.eduanalitycs.model.dto;
+
+import java.util.List;
+
+public record CohortMatrix(
+        CohortGranularity granularity,
+        CohortEvent event,
+        List<CohortRow> cohorts
+) {}
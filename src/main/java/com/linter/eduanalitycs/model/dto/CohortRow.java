@@ -0,0 +1,28 @@
+package com.linter.eduanalitycs.model.dto;
+
+import java.time.LocalDate;
+
+/**
+ * Строка когортной матрицы.
+ *
+ * @param cohortStart    начало периода регистрации
+ * @param users          размер когорты
+ * @param closedPeriods  сколько первых периодов уже закончились; следующий за ними — текущий, он ещё растёт
+ * @param retained       пользователи когорты с событием в k-м периоде
+ * @param retentionRates {@code retained} в процентах от размера когорты
+ */
+public record CohortRow(
+        LocalDate cohortStart,
+        int users,
+        int closedPeriods,
+        int[] retained,
+        double[] retentionRates
+) {
+    public static CohortRow of(LocalDate cohortStart, int users, int closedPeriods, int[] retained) {
+        double[] rates = new double[retained.length];
+        for (int k = 0; k < retained.length; k++) {
+            rates[k] = users > 0 ? Math.round(retained[k] * 10000.0 / users) / 100.0 : 0.0;
+        }
+        return new CohortRow(cohortStart, users, closedPeriods, retained, rates);
+    }
+}
@@ -1,22 +1,33 @@
 package com.linter.eduanalitycs.model.dto;
 
+import com.fasterxml.jackson.annotation.JsonInclude;
 import lombok.Builder;
 import lombok.Data;
 
 import java.math.BigDecimal;
 import java.time.LocalDate;
+import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Map;
 
+// Секции, не запрошенные в fields, не считаются и в JSON не выводятся
 @Data
-@Builder
+@Builder(toBuilder = true)
+@JsonInclude(JsonInclude.Include.NON_NULL)
 public class CompleteMetricsResponse {
+    private MetricsPrecision precision;
+    // Фактические границы [start, end) и шаг графиков: после ограничения параметров from/to они могут отличаться от запрошенных
+    private PeriodInfo period;
+    private String aggregation;
     private DashboardStats dashboardStats;
     private Map<String, Map<LocalDate, Integer>> audienceMetrics;
-    private double retentionRate;
+    private Double retentionRate;
     private BigDecimal ltv;
     private BigDecimal cac;
     private BigDecimal arppu;
     private List<ProductPerformanceDTO> productPerformance;
     private Map<LocalDate, Double> retentionTrend;
+    private LocalDateTime generatedAt;
+    // true — ответ из фонового снимка (MetricsSnapshotService), а не посчитан по запросу
+    private boolean snapshot;
 }
\ No newline at end of file
@@ -0,0 +1,9 @@
+package com.linter.eduanalitycs.model.dto;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+public record DailyAmount(
+        LocalDate day,
+        BigDecimal amount
+) {}
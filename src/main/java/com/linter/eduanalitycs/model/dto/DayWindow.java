@@ -0,0 +1,26 @@
+package com.linter.eduanalitycs.model.dto;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.Optional;
+
+/**
+ * Период из целых дней [from, to). Такие периоды считаются по дневным агрегатам.
+ */
+public record DayWindow(
+        LocalDate from,
+        LocalDate to
+) {
+    /**
+     * Период, если обе границы приходятся на полночь; иначе пусто и метрика считается по исходным таблицам.
+     */
+    public static Optional<DayWindow> of(LocalDateTime start, LocalDateTime end) {
+        if (!start.toLocalTime().equals(LocalTime.MIDNIGHT)
+                || !end.toLocalTime().equals(LocalTime.MIDNIGHT)
+                || !start.isBefore(end)) {
+            return Optional.empty();
+        }
+        return Optional.of(new DayWindow(start.toLocalDate(), end.toLocalDate()));
+    }
+}
@@ -0,0 +1,22 @@
+package com.linter.eduanalitycs.model.dto;
+
+/**
+ * Подтверждение одной пачки: строки пачки с firstRow по firstRow + rows - 1 (нумерация с 1, без заголовка CSV).
+ *
+ * @param accepted записано строк
+ * @param rejected отброшено строк с ошибками в данных
+ * @param error    первая ошибка в пачке; при status = FAILED пачка не записана целиком
+ */
+public record IngestBatchAck(
+        int batch,
+        long firstRow,
+        int rows,
+        int accepted,
+        int rejected,
+        Status status,
+        String error
+) {
+    public enum Status {
+        COMMITTED, FAILED
+    }
+}
@@ -0,0 +1,9 @@
+package com.linter.eduanalitycs.model.dto;
+
+import java.util.List;
+
+public record IngestResult(
+        long rowsAccepted,
+        long rowsRejected,
+        List<IngestBatchAck> batches
+) {}
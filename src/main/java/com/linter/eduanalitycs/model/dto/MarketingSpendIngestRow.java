@@ -0,0 +1,11 @@
+package com.linter.eduanalitycs.model.dto;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+// channel необязателен: без него расход пишется в канал "total"
+public record MarketingSpendIngestRow(
+        LocalDate date,
+        String channel,
+        BigDecimal amount
+) {}
@@ -0,0 +1,70 @@
+package com.linter.eduanalitycs.model.dto;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.time.temporal.ChronoUnit;
+
+/**
+ * Стандартные периоды дашборда: последние N дней, включая сегодняшний.
+ */
+public enum MetricsPeriod {
+    LAST_7_DAYS("last7days", 7),
+    LAST_30_DAYS("last30days", 30),
+    LAST_90_DAYS("last90days", 90),
+    LAST_365_DAYS("last365days", 365);
+
+    private final String key;
+    private final int days;
+
+    MetricsPeriod(String key, int days) {
+        this.key = key;
+        this.days = days;
+    }
+
+    public String key() {
+        return key;
+    }
+
+    // Неизвестный период — last30days, как и раньше в контроллере
+    public static MetricsPeriod parse(String value) {
+        for (MetricsPeriod period : values()) {
+            if (period.key.equalsIgnoreCase(value)) {
+                return period;
+            }
+        }
+        return LAST_30_DAYS;
+    }
+
+    public PeriodInfo toPeriod(LocalDate today) {
+        return new PeriodInfo(today.minusDays(days).atStartOfDay(), today.plusDays(1).atStartOfDay());
+    }
+
+    public String aggregation() {
+        return aggregationOf(days + 1);
+    }
+
+    /**
+     * Метка периода в метриках: ключ стандартного периода, если [start, end) совпадает с ним по длине, иначе custom.
+     */
+    public static String tagOf(LocalDateTime start, LocalDateTime end) {
+        if (start.toLocalTime().equals(LocalTime.MIDNIGHT) && end.toLocalTime().equals(LocalTime.MIDNIGHT)) {
+            long length = ChronoUnit.DAYS.between(start, end);
+            for (MetricsPeriod period : values()) {
+                if (period.days + 1 == length) {
+                    return period.key;
+                }
+            }
+        }
+        return "custom";
+    }
+
+    // Шаг графиков дашборда по длине периода
+    public static String aggregationOf(LocalDateTime start, LocalDateTime end) {
+        return aggregationOf(ChronoUnit.DAYS.between(start.toLocalDate(), end.toLocalDate()));
+    }
+
+    private static String aggregationOf(long days) {
+        return days > 180 ? "month" : (days >= 30 ? "week" : "day");
+    }
+}
@@ -0,0 +1,20 @@
+package com.linter.eduanalitycs.model.dto;
+
+import java.util.Optional;
+
+/**
+ * Точность уникальных пользователей (DAU/WAU/MAU, покупатели в ARPPU): точный подсчёт
+ * или оценка по дневным HLL-скетчам с постоянной памятью.
+ */
+public enum MetricsPrecision {
+    EXACT, APPROX;
+
+    public static Optional<MetricsPrecision> byKey(String value) {
+        for (MetricsPrecision precision : values()) {
+            if (precision.name().equalsIgnoreCase(value)) {
+                return Optional.of(precision);
+            }
+        }
+        return Optional.empty();
+    }
+}
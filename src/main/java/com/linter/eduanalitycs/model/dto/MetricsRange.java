@@ -0,0 +1,44 @@
+package com.linter.eduanalitycs.model.dto;
+
+import java.time.LocalDate;
+import java.util.Set;
+
+/**
+ * Произвольный период from/to и шаг графиков запросов /api/metrics. Разбор общий для контроллера
+ * и меток http.server.requests; неверные значения — IllegalArgumentException с текстом ответа 400.
+ */
+public final class MetricsRange {
+    // Самый длинный произвольный период from/to: более ранний from сдвигается к to
+    public static final int MAX_RANGE_DAYS = 731;
+    private static final Set<String> GRANULARITIES = Set.of("day", "week", "month");
+
+    private MetricsRange() {
+    }
+
+    public static String parseGranularity(String granularity) {
+        String value = granularity.toLowerCase();
+        if (!GRANULARITIES.contains(value)) {
+            throw new IllegalArgumentException("'granularity' must be one of day, week, month");
+        }
+        return value;
+    }
+
+    /**
+     * Даты from/to включительно; будущие дни отбрасываются, период длиннее {@link #MAX_RANGE_DAYS} обрезается слева.
+     */
+    public static PeriodInfo customRange(LocalDate from, LocalDate to, LocalDate today) {
+        if (from == null || to == null) {
+            throw new IllegalArgumentException("'from' and 'to' must be given together");
+        }
+        if (to.isBefore(from)) {
+            throw new IllegalArgumentException("'to' must not be before 'from'");
+        }
+        if (from.isAfter(today)) {
+            throw new IllegalArgumentException("'from' must not be after today");
+        }
+        LocalDate last = to.isAfter(today) ? today : to;
+        LocalDate earliest = last.minusDays(MAX_RANGE_DAYS - 1);
+        LocalDate first = from.isBefore(earliest) ? earliest : from;
+        return new PeriodInfo(first.atStartOfDay(), last.plusDays(1).atStartOfDay());
+    }
+}
@@ -0,0 +1,35 @@
+package com.linter.eduanalitycs.model.dto;
+
+import java.util.Optional;
+
+/**
+ * Секции {@link CompleteMetricsResponse}, которые можно запросить по отдельности (параметр fields):
+ * stats — dashboardStats, audience — audienceMetrics, retention — retentionRate и retentionTrend,
+ * financial — ltv, cac и arppu, products — productPerformance.
+ */
+public enum MetricsSection {
+    STATS("stats"),
+    AUDIENCE("audience"),
+    RETENTION("retention"),
+    FINANCIAL("financial"),
+    PRODUCTS("products");
+
+    private final String key;
+
+    MetricsSection(String key) {
+        this.key = key;
+    }
+
+    public String key() {
+        return key;
+    }
+
+    public static Optional<MetricsSection> byKey(String value) {
+        for (MetricsSection section : values()) {
+            if (section.key.equalsIgnoreCase(value)) {
+                return Optional.of(section);
+            }
+        }
+        return Optional.empty();
+    }
+}
@@ -0,0 +1,16 @@
+package com.linter.eduanalitycs.model.dto;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/**
+ * Строка выгрузки заказов. Не сущность: при потоковом чтении не попадает в контекст персистентности.
+ */
+public record OrderExportRow(
+        Long orderId,
+        Long userId,
+        Long courseId,
+        String courseName,
+        LocalDateTime orderDate,
+        BigDecimal amount
+) {}
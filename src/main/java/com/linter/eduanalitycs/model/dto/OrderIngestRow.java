@@ -0,0 +1,14 @@
+package com.linter.eduanalitycs.model.dto;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/**
+ * Заказ во входном потоке /api/ingest/orders. Без amount берётся текущая цена курса.
+ */
+public record OrderIngestRow(
+        Long userId,
+        Long courseId,
+        LocalDateTime orderDate,
+        BigDecimal amount
+) {}
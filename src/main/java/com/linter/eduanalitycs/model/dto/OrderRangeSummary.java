@@ -0,0 +1,12 @@
+package com.linter.eduanalitycs.model.dto;
+
+import java.math.BigDecimal;
+
+/**
+ * Заказы за период одним агрегатом: число, выручка и уникальные покупатели.
+ */
+public record OrderRangeSummary(
+        long orderCount,
+        BigDecimal revenue,
+        long buyerCount
+) {}
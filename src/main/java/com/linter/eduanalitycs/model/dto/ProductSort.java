@@ -0,0 +1,19 @@
+package com.linter.eduanalitycs.model.dto;
+
+import java.util.Optional;
+
+/**
+ * Порядок курсов в рейтинге продаж: по числу продаж или по выручке, по убыванию.
+ */
+public enum ProductSort {
+    SALES, REVENUE;
+
+    public static Optional<ProductSort> byKey(String value) {
+        for (ProductSort sort : values()) {
+            if (sort.name().equalsIgnoreCase(value)) {
+                return Optional.of(sort);
+            }
+        }
+        return Optional.empty();
+    }
+}
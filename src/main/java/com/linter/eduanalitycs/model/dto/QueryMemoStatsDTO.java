@@ -0,0 +1,8 @@
+package com.linter.eduanalitycs.model.dto;
+
+public record QueryMemoStatsDTO(
+        long requests,
+        long queries,
+        long savedQueries,
+        double savedRate
+) {}
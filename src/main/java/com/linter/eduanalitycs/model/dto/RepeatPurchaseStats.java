@@ -0,0 +1,6 @@
+package com.linter.eduanalitycs.model.dto;
+
+public record RepeatPurchaseStats(
+        long buyers,
+        long repeatBuyers
+) {}
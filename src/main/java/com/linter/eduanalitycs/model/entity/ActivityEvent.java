@@ -0,0 +1,43 @@
+package com.linter.eduanalitycs.model.entity;
+
+import com.linter.eduanalitycs.repository.SequenceIdAllocator;
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import org.hibernate.annotations.Immutable;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+/**
+ * Заход пользователя. Журнал только дополняется; пишут его ActivityEventRepository и генератор данных,
+ * они же поддерживают сводку daily_active_users.
+ */
+@Entity
+@Immutable
+@Table(name = "activity_events", indexes = {
+        @Index(name = "idx_activity_events_date_user", columnList = "activity_date, user_id"),
+        @Index(name = "idx_activity_events_user_date", columnList = "user_id, activity_date")
+})
+@Getter
+@AllArgsConstructor
+@NoArgsConstructor
+public class ActivityEvent {
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = SequenceIdAllocator.ACTIVITY_EVENTS_SEQUENCE)
+    @SequenceGenerator(name = SequenceIdAllocator.ACTIVITY_EVENTS_SEQUENCE, sequenceName = SequenceIdAllocator.ACTIVITY_EVENTS_SEQUENCE,
+            allocationSize = SequenceIdAllocator.ALLOCATION_SIZE)
+    private Long id;
+
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "user_id", nullable = false)
+    private User user;
+
+    @Column(nullable = false)
+    private LocalDateTime occurredAt;
+
+    // День события: по нему индекс и сводка по дням
+    @Column(nullable = false)
+    private LocalDate activityDate;
+}
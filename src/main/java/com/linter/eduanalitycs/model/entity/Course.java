@@ -1,5 +1,7 @@
 package com.linter.eduanalitycs.model.entity;
 
+import com.linter.eduanalitycs.event.MetricsDataChangeListener;
+import com.linter.eduanalitycs.repository.SequenceIdAllocator;
 import jakarta.persistence.*;
 import lombok.AllArgsConstructor;
 import lombok.Getter;
@@ -9,6 +11,7 @@ import lombok.Setter;
 import java.math.BigDecimal;
 
 @Entity
+@EntityListeners(MetricsDataChangeListener.class)
 @Table(name = "courses")
 @AllArgsConstructor
 @NoArgsConstructor
@@ -16,7 +19,9 @@ import java.math.BigDecimal;
 @Setter
 public class Course {
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = SequenceIdAllocator.COURSES_SEQUENCE)
+    @SequenceGenerator(name = SequenceIdAllocator.COURSES_SEQUENCE, sequenceName = SequenceIdAllocator.COURSES_SEQUENCE,
+            allocationSize = SequenceIdAllocator.ALLOCATION_SIZE)
     private Long id;
 
     @Column(nullable = false)
@@ -0,0 +1,48 @@
+package com.linter.eduanalitycs.model.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import org.hibernate.annotations.Immutable;
+
+import java.io.Serializable;
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+/**
+ * Выручка за день от пользователей, зарегистрированных в одном месяце. Строки пишет DailyRollupRepository,
+ * через JPA только читаем.
+ */
+@Entity
+@Immutable
+@IdClass(DailyCohortRevenue.Key.class)
+@Table(name = "daily_cohort_revenue", indexes = {
+        @Index(name = "idx_daily_cohort_revenue_cohort", columnList = "cohort_month, stat_date")
+})
+@Getter
+@AllArgsConstructor
+@NoArgsConstructor
+public class DailyCohortRevenue {
+    @Id
+    private LocalDate statDate;
+
+    // 1-е число месяца регистрации покупателя
+    @Id
+    private LocalDate cohortMonth;
+
+    @Column(nullable = false)
+    private long orderCount;
+
+    @Column(nullable = false)
+    private BigDecimal revenue;
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Key implements Serializable {
+        private LocalDate statDate;
+        private LocalDate cohortMonth;
+    }
+}
@@ -0,0 +1,47 @@
+package com.linter.eduanalitycs.model.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import org.hibernate.annotations.Immutable;
+
+import java.io.Serializable;
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+/**
+ * Продажи курса за день. Строки пишет DailyRollupRepository, через JPA только читаем.
+ */
+@Entity
+@Immutable
+@IdClass(DailyCourseSales.Key.class)
+@Table(name = "daily_course_sales")
+@Getter
+@AllArgsConstructor
+@NoArgsConstructor
+public class DailyCourseSales {
+    @Id
+    private LocalDate statDate;
+
+    @Id
+    private Long courseId;
+
+    @Column(nullable = false)
+    private long orderCount;
+
+    @Column(nullable = false)
+    private BigDecimal revenue;
+
+    @Column(nullable = false)
+    private long buyerCount;
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Key implements Serializable {
+        private LocalDate statDate;
+        private Long courseId;
+    }
+}
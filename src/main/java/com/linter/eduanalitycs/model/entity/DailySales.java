@@ -0,0 +1,34 @@
+package com.linter.eduanalitycs.model.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import org.hibernate.annotations.Immutable;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+/**
+ * Продажи за день. Строки пишет DailyRollupRepository, через JPA только читаем.
+ */
+@Entity
+@Immutable
+@Table(name = "daily_sales")
+@Getter
+@AllArgsConstructor
+@NoArgsConstructor
+public class DailySales {
+    @Id
+    private LocalDate statDate;
+
+    @Column(nullable = false)
+    private long orderCount;
+
+    @Column(nullable = false)
+    private BigDecimal revenue;
+
+    // Уникальные покупатели за день; за период их не складывают
+    @Column(nullable = false)
+    private long buyerCount;
+}
@@ -0,0 +1,31 @@
+package com.linter.eduanalitycs.model.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import org.hibernate.annotations.Immutable;
+
+import java.time.LocalDate;
+
+/**
+ * Регистрации и последние заходы пользователей за день. Строки пишет DailyRollupRepository, через JPA только читаем.
+ */
+@Entity
+@Immutable
+@Table(name = "daily_users")
+@Getter
+@AllArgsConstructor
+@NoArgsConstructor
+public class DailyUsers {
+    @Id
+    private LocalDate statDate;
+
+    // Пользователи с registrationDate в этот день
+    @Column(nullable = false)
+    private long newUsers;
+
+    // Пользователи с lastActivityDate в этот день
+    @Column(nullable = false)
+    private long activeUsers;
+}
@@ -0,0 +1,41 @@
+package com.linter.eduanalitycs.model.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import org.hibernate.annotations.Immutable;
+
+import java.io.Serializable;
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+/**
+ * Маркетинговые расходы канала за день. Строки пишет IngestRepository, через JPA только читаем.
+ */
+@Entity
+@Immutable
+@IdClass(MarketingSpend.Key.class)
+@Table(name = "marketing_spend")
+@Getter
+@AllArgsConstructor
+@NoArgsConstructor
+public class MarketingSpend {
+    @Id
+    private LocalDate spendDate;
+
+    @Id
+    private String channel;
+
+    @Column(nullable = false)
+    private BigDecimal amount;
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Key implements Serializable {
+        private LocalDate spendDate;
+        private String channel;
+    }
+}
@@ -1,5 +1,7 @@
 package com.linter.eduanalitycs.model.entity;
 
+import com.linter.eduanalitycs.event.MetricsDataChangeListener;
+import com.linter.eduanalitycs.repository.SequenceIdAllocator;
 import jakarta.persistence.*;
 import lombok.AllArgsConstructor;
 import lombok.Getter;
@@ -10,14 +12,22 @@ import java.math.BigDecimal;
 import java.time.LocalDateTime;
 
 @Entity
-@Table(name = "orders")
+@EntityListeners(MetricsDataChangeListener.class)
+@Table(name = "orders", indexes = {
+        @Index(name = "idx_orders_date_course_amount", columnList = "order_date, course_id, amount"),
+        @Index(name = "idx_orders_date_user", columnList = "order_date, user_id"),
+        @Index(name = "idx_orders_user_date", columnList = "user_id, order_date"),
+        @Index(name = "idx_orders_course", columnList = "course_id")
+})
 @Getter
 @Setter
 @NoArgsConstructor
 @AllArgsConstructor
 public class Order {
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = SequenceIdAllocator.ORDERS_SEQUENCE)
+    @SequenceGenerator(name = SequenceIdAllocator.ORDERS_SEQUENCE, sequenceName = SequenceIdAllocator.ORDERS_SEQUENCE,
+            allocationSize = SequenceIdAllocator.ALLOCATION_SIZE)
     private Long id;
 
     @ManyToOne(fetch = FetchType.LAZY)
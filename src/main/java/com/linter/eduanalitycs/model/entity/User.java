@@ -1,5 +1,7 @@
 package com.linter.eduanalitycs.model.entity;
 
+import com.linter.eduanalitycs.event.MetricsDataChangeListener;
+import com.linter.eduanalitycs.repository.SequenceIdAllocator;
 import jakarta.persistence.*;
 import lombok.AllArgsConstructor;
 import lombok.Getter;
@@ -11,14 +13,20 @@ import java.util.ArrayList;
 import java.util.List;
 
 @Entity
-@Table(name = "users")
+@EntityListeners(MetricsDataChangeListener.class)
+@Table(name = "users", indexes = {
+        @Index(name = "idx_users_last_activity", columnList = "last_activity_date, id"),
+        @Index(name = "idx_users_registration", columnList = "registration_date")
+})
 @Getter
 @Setter
 @AllArgsConstructor
 @NoArgsConstructor
 public class User {
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = SequenceIdAllocator.USERS_SEQUENCE)
+    @SequenceGenerator(name = SequenceIdAllocator.USERS_SEQUENCE, sequenceName = SequenceIdAllocator.USERS_SEQUENCE,
+            allocationSize = SequenceIdAllocator.ALLOCATION_SIZE)
     private Long id;
 
     @Column(nullable = false)
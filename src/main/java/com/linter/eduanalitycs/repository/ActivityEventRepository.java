@@ -0,0 +1,166 @@
+package com.linter.eduanalitycs.repository;
+
+import lombok.RequiredArgsConstructor;
+import org.roaringbitmap.longlong.Roaring64Bitmap;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.sql.Date;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+
+/**
+ * Журнал activity_events и сводка daily_active_users: по строке на день с битмапом id пользователей.
+ * <p>
+ * Журнал только дополняется, поэтому сводка обновляется объединением с новыми id ({@link #mergeDailyActiveUsers}),
+ * без перечитывания событий дня. {@link #rebuildDailyActiveUsers} пересобирает её из журнала целиком.
+ */
+@Repository
+@RequiredArgsConstructor
+public class ActivityEventRepository {
+    private static final String INSERT_EVENT =
+            "INSERT INTO activity_events (id, user_id, occurred_at, activity_date) VALUES (?, ?, ?, ?)";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    /**
+     * @param rows {@code id, user_id, occurred_at (Timestamp), activity_date (Date)}
+     */
+    public void insertEvents(List<Object[]> rows) {
+        jdbcTemplate.batchUpdate(INSERT_EVENT, rows);
+    }
+
+    /**
+     * Добавляет пользователей к сводке за дни. Вызывать в транзакции вставки событий:
+     * строка дня блокируется до её конца, параллельные загрузки не теряют id друг друга.
+     * Если строки дня ещё нет, блокировать нечего: первую вставку дня может опередить параллельная
+     * загрузка — тогда её строка блокируется после коммита и id объединяются с ней.
+     */
+    public void mergeDailyActiveUsers(Map<LocalDate, Roaring64Bitmap> usersByDay) {
+        usersByDay.forEach((day, users) -> {
+            if (mergeIntoExistingDay(day, users)) {
+                return;
+            }
+            try {
+                insertDay(day, users);
+            } catch (DuplicateKeyException e) {
+                // Вставка ждала коммита чужой строки; H2 продолжает транзакцию после ошибки оператора
+                mergeIntoExistingDay(day, users);
+            }
+        });
+    }
+
+    private boolean mergeIntoExistingDay(LocalDate day, Roaring64Bitmap users) {
+        List<byte[]> existing = jdbcTemplate.query(
+                "SELECT user_ids FROM daily_active_users WHERE stat_date = ? FOR UPDATE",
+                (rs, rowNum) -> rs.getBytes(1), Date.valueOf(day));
+        if (existing.isEmpty()) {
+            return false;
+        }
+        Roaring64Bitmap merged = deserialize(existing.getFirst());
+        merged.or(users);
+        jdbcTemplate.update("UPDATE daily_active_users SET user_count = ?, user_ids = ? WHERE stat_date = ?",
+                merged.getLongCardinality(), serialize(merged), Date.valueOf(day));
+        return true;
+    }
+
+    /**
+     * Пересобирает сводку за дни [from, to) из журнала; в памяти держится битмап одного дня.
+     */
+    public void rebuildDailyActiveUsers(LocalDate from, LocalDate to) {
+        jdbcTemplate.update("DELETE FROM daily_active_users WHERE stat_date >= ? AND stat_date < ?",
+                Date.valueOf(from), Date.valueOf(to));
+
+        LocalDate[] currentDay = {null};
+        Roaring64Bitmap[] currentUsers = {null};
+        jdbcTemplate.query("SELECT activity_date, user_id FROM activity_events " +
+                        "WHERE activity_date >= ? AND activity_date < ? ORDER BY activity_date",
+                rs -> {
+                    LocalDate day = rs.getDate(1).toLocalDate();
+                    if (!day.equals(currentDay[0])) {
+                        if (currentDay[0] != null) {
+                            insertDay(currentDay[0], currentUsers[0]);
+                        }
+                        currentDay[0] = day;
+                        currentUsers[0] = new Roaring64Bitmap();
+                    }
+                    currentUsers[0].addLong(rs.getLong(2));
+                },
+                Date.valueOf(from), Date.valueOf(to));
+        if (currentDay[0] != null) {
+            insertDay(currentDay[0], currentUsers[0]);
+        }
+    }
+
+    /**
+     * Уникальные пользователи по дням за [from, to); дни без заходов отсутствуют.
+     */
+    public NavigableMap<LocalDate, Roaring64Bitmap> findDailyActiveUsers(LocalDate from, LocalDate to) {
+        NavigableMap<LocalDate, Roaring64Bitmap> dailyActive = new TreeMap<>();
+        jdbcTemplate.query("SELECT stat_date, user_ids FROM daily_active_users WHERE stat_date >= ? AND stat_date < ?",
+                rs -> {
+                    dailyActive.put(rs.getDate(1).toLocalDate(), deserialize(rs.getBytes(2)));
+                },
+                Date.valueOf(from), Date.valueOf(to));
+        return dailyActive;
+    }
+
+    @FunctionalInterface
+    public interface DayCountHandler {
+        void accept(LocalDate day, long users);
+    }
+
+    /**
+     * DAU по дням за [from, to) в порядке дат, без чтения битмапов.
+     */
+    public void scanDailyActiveUserCounts(LocalDate from, LocalDate to, DayCountHandler handler) {
+        jdbcTemplate.query("SELECT stat_date, user_count FROM daily_active_users " +
+                        "WHERE stat_date >= ? AND stat_date < ? ORDER BY stat_date",
+                rs -> {
+                    handler.accept(rs.getDate(1).toLocalDate(), rs.getLong(2));
+                },
+                Date.valueOf(from), Date.valueOf(to));
+    }
+
+    public long countDailyActiveUsersRows() {
+        Long count = jdbcTemplate.queryForObject("SELECT COUNT(*) FROM daily_active_users", Long.class);
+        return count != null ? count : 0;
+    }
+
+    private void insertDay(LocalDate day, Roaring64Bitmap users) {
+        users.runOptimize();
+        jdbcTemplate.update("INSERT INTO daily_active_users (stat_date, user_count, user_ids) VALUES (?, ?, ?)",
+                Date.valueOf(day), users.getLongCardinality(), serialize(users));
+    }
+
+    private static byte[] serialize(Roaring64Bitmap users) {
+        try (ByteArrayOutputStream bytes = new ByteArrayOutputStream((int) users.serializedSizeInBytes());
+             DataOutputStream out = new DataOutputStream(bytes)) {
+            users.serialize(out);
+            out.flush();
+            return bytes.toByteArray();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static Roaring64Bitmap deserialize(byte[] data) {
+        Roaring64Bitmap users = new Roaring64Bitmap();
+        try (DataInputStream in = new DataInputStream(new ByteArrayInputStream(data))) {
+            users.deserialize(in);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return users;
+    }
+}
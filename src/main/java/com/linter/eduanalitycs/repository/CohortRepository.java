@@ -0,0 +1,59 @@
+package com.linter.eduanalitycs.repository;
+
+import com.linter.eduanalitycs.model.dto.CohortEvent;
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.sql.Date;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+
+/**
+ * Потоковое чтение данных для когортной матрицы: строки отдаются обработчику по одной, без списков в памяти.
+ */
+@Repository
+@RequiredArgsConstructor
+public class CohortRepository {
+    private final JdbcTemplate jdbcTemplate;
+
+    @FunctionalInterface
+    public interface UserDayHandler {
+        void accept(long userId, LocalDate day);
+    }
+
+    /**
+     * Пользователи, зарегистрированные в [from, to), по возрастанию id.
+     */
+    public void scanRegistrations(LocalDate from, LocalDate to, UserDayHandler handler) {
+        jdbcTemplate.query("SELECT id, registration_date FROM users " +
+                        "WHERE registration_date >= ? AND registration_date < ? ORDER BY id",
+                rs -> {
+                    handler.accept(rs.getLong(1), rs.getTimestamp(2).toLocalDateTime().toLocalDate());
+                },
+                Timestamp.valueOf(from.atStartOfDay()), Timestamp.valueOf(to.atStartOfDay()));
+    }
+
+    /**
+     * События пользователей с id в [minUserId, maxUserId] за дни [from, to), по пользователю и дате
+     * (индексы idx_activity_events_user_date и idx_orders_user_date).
+     */
+    public void scanEvents(CohortEvent event, long minUserId, long maxUserId, LocalDate from, LocalDate to,
+                           UserDayHandler handler) {
+        String sql = switch (event) {
+            case ACTIVITY -> "SELECT user_id, activity_date FROM activity_events " +
+                    "WHERE user_id BETWEEN ? AND ? AND activity_date >= ? AND activity_date < ? " +
+                    "ORDER BY user_id, activity_date";
+            case PURCHASE -> "SELECT user_id, order_date FROM orders " +
+                    "WHERE user_id BETWEEN ? AND ? AND order_date >= ? AND order_date < ? " +
+                    "ORDER BY user_id, order_date";
+        };
+        Object lower = event == CohortEvent.ACTIVITY ? Date.valueOf(from) : Timestamp.valueOf(from.atStartOfDay());
+        Object upper = event == CohortEvent.ACTIVITY ? Date.valueOf(to) : Timestamp.valueOf(to.atStartOfDay());
+        jdbcTemplate.query(sql,
+                rs -> {
+                    handler.accept(rs.getLong(1), rs.getTimestamp(2).toLocalDateTime().toLocalDate());
+                },
+                minUserId, maxUserId, lower, upper);
+    }
+}
@@ -0,0 +1,20 @@
+package com.linter.eduanalitycs.repository;
+
+import com.linter.eduanalitycs.model.entity.DailyCohortRevenue;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDate;
+import java.util.List;
+
+// Периоды полуоткрытые: [from, to)
+@Repository
+public interface DailyCohortRevenueRepository extends JpaRepository<DailyCohortRevenue, DailyCohortRevenue.Key> {
+    /**
+     * Выручка когорт с cohortMonth в [from, to) за все дни, по возрастанию даты.
+     */
+    @Query("SELECT d FROM DailyCohortRevenue d WHERE d.cohortMonth >= :from AND d.cohortMonth < :to ORDER BY d.statDate")
+    List<DailyCohortRevenue> findCohorts(@Param("from") LocalDate from, @Param("to") LocalDate to);
+}
@@ -0,0 +1,31 @@
+package com.linter.eduanalitycs.repository;
+
+import com.linter.eduanalitycs.model.dto.ProductPerformanceDTO;
+import com.linter.eduanalitycs.model.dto.ProductSort;
+import com.linter.eduanalitycs.model.entity.DailyCourseSales;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.JpaSort;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDate;
+import java.util.List;
+
+// Периоды полуоткрытые: [from, to)
+@Repository
+public interface DailyCourseSalesRepository extends JpaRepository<DailyCourseSales, DailyCourseSales.Key> {
+    // Тот же результат, что у OrderRepository.getProductPerformance; сортировка — из productPerformanceSort
+    @Query("SELECT new com.linter.eduanalitycs.model.dto.ProductPerformanceDTO(c.id, c.name, SUM(d.orderCount), SUM(d.revenue)) " +
+            "FROM DailyCourseSales d JOIN Course c ON c.id = d.courseId " +
+            "WHERE d.statDate >= :from AND d.statDate < :to " +
+            "GROUP BY c.id, c.name")
+    List<ProductPerformanceDTO> getProductPerformance(@Param("from") LocalDate from, @Param("to") LocalDate to, Pageable pageable);
+
+    static Sort productPerformanceSort(ProductSort sort) {
+        return JpaSort.unsafe(Sort.Direction.DESC, sort == ProductSort.REVENUE ? "SUM(d.revenue)" : "SUM(d.orderCount)")
+                .and(JpaSort.unsafe(Sort.Direction.ASC, "c.id"));
+    }
+}
@@ -0,0 +1,119 @@
+package com.linter.eduanalitycs.repository;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.sql.Date;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.util.Collection;
+import java.util.List;
+import java.util.TreeSet;
+
+/**
+ * Пересчёт дневных агрегатов из orders и users за полуоткрытый диапазон дней [from, to):
+ * строки диапазона удаляются и вставляются заново одним INSERT ... SELECT на таблицу.
+ * Перед пересчётом дни блокируются ({@link #lockDays}): иначе две транзакции, пересчитывающие один день,
+ * вставляют одинаковые ключи stat_date, и одна из них падает.
+ */
+@Repository
+@RequiredArgsConstructor
+public class DailyRollupRepository {
+    private static final String[] TABLES = {"daily_sales", "daily_course_sales", "daily_users", "daily_cohort_revenue"};
+
+    private static final String INSERT_SALES = """
+            INSERT INTO daily_sales (stat_date, order_count, revenue, buyer_count)
+            SELECT CAST(o.order_date AS DATE), COUNT(*), SUM(o.amount), COUNT(DISTINCT o.user_id)
+            FROM orders o
+            WHERE o.order_date >= ? AND o.order_date < ?
+            GROUP BY CAST(o.order_date AS DATE)
+            """;
+
+    private static final String INSERT_COURSE_SALES = """
+            INSERT INTO daily_course_sales (stat_date, course_id, order_count, revenue, buyer_count)
+            SELECT CAST(o.order_date AS DATE), o.course_id, COUNT(*), SUM(o.amount), COUNT(DISTINCT o.user_id)
+            FROM orders o
+            WHERE o.order_date >= ? AND o.order_date < ?
+            GROUP BY CAST(o.order_date AS DATE), o.course_id
+            """;
+
+    private static final String INSERT_USERS = """
+            INSERT INTO daily_users (stat_date, new_users, active_users)
+            SELECT t.stat_date, SUM(t.new_users), SUM(t.active_users)
+            FROM (
+                SELECT CAST(u.registration_date AS DATE) AS stat_date, 1 AS new_users, 0 AS active_users
+                FROM users u
+                WHERE u.registration_date >= ? AND u.registration_date < ?
+                UNION ALL
+                SELECT CAST(u.last_activity_date AS DATE), 0, 1
+                FROM users u
+                WHERE u.last_activity_date >= ? AND u.last_activity_date < ?
+            ) t
+            GROUP BY t.stat_date
+            """;
+
+    // Когорта — месяц регистрации покупателя на момент пересчёта дня заказа
+    private static final String INSERT_COHORT_REVENUE = """
+            INSERT INTO daily_cohort_revenue (stat_date, cohort_month, order_count, revenue)
+            SELECT CAST(o.order_date AS DATE), CAST(DATE_TRUNC('MONTH', u.registration_date) AS DATE), COUNT(*), SUM(o.amount)
+            FROM orders o
+            JOIN users u ON u.id = o.user_id
+            WHERE o.order_date >= ? AND o.order_date < ?
+            GROUP BY CAST(o.order_date AS DATE), CAST(DATE_TRUNC('MONTH', u.registration_date) AS DATE)
+            """;
+
+    private static final String DAYS_WITH_DATA = """
+            SELECT CAST(order_date AS DATE) FROM orders
+            UNION
+            SELECT CAST(registration_date AS DATE) FROM users
+            UNION
+            SELECT CAST(last_activity_date AS DATE) FROM users WHERE last_activity_date IS NOT NULL
+            """;
+
+    private final JdbcTemplate jdbcTemplate;
+
+    /**
+     * Блокирует строки дней в daily_rollup_locks до конца транзакции; дни берутся по возрастанию, чтобы
+     * транзакции с пересекающимися днями не ждали друг друга взаимно. Первую вставку строки дня,
+     * опережённую параллельной транзакцией, сменяет блокировка её строки после коммита —
+     * как и в {@link ActivityEventRepository#mergeDailyActiveUsers}.
+     */
+    public void lockDays(Collection<LocalDate> days) {
+        for (LocalDate day : new TreeSet<>(days)) {
+            if (lockExistingDay(day)) {
+                continue;
+            }
+            try {
+                jdbcTemplate.update("INSERT INTO daily_rollup_locks (stat_date) VALUES (?)", Date.valueOf(day));
+            } catch (DuplicateKeyException e) {
+                lockExistingDay(day);
+            }
+        }
+    }
+
+    // Дни, у которых есть заказы, регистрации или последние заходы: их блокирует полная пересборка
+    public List<LocalDate> findDaysWithData() {
+        return jdbcTemplate.query(DAYS_WITH_DATA, (rs, rowNum) -> rs.getDate(1).toLocalDate());
+    }
+
+    private boolean lockExistingDay(LocalDate day) {
+        return !jdbcTemplate.queryForList("SELECT stat_date FROM daily_rollup_locks WHERE stat_date = ? FOR UPDATE",
+                Date.class, Date.valueOf(day)).isEmpty();
+    }
+
+    public void refresh(LocalDate from, LocalDate to) {
+        for (String table : TABLES) {
+            jdbcTemplate.update("DELETE FROM " + table + " WHERE stat_date >= ? AND stat_date < ?",
+                    Date.valueOf(from), Date.valueOf(to));
+        }
+
+        Timestamp start = Timestamp.valueOf(from.atStartOfDay());
+        Timestamp end = Timestamp.valueOf(to.atStartOfDay());
+        jdbcTemplate.update(INSERT_SALES, start, end);
+        jdbcTemplate.update(INSERT_COURSE_SALES, start, end);
+        jdbcTemplate.update(INSERT_USERS, start, end, start, end);
+        jdbcTemplate.update(INSERT_COHORT_REVENUE, start, end);
+    }
+}
@@ -0,0 +1,23 @@
+package com.linter.eduanalitycs.repository;
+
+import com.linter.eduanalitycs.model.entity.DailySales;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+// Периоды полуоткрытые: [from, to)
+@Repository
+public interface DailySalesRepository extends JpaRepository<DailySales, LocalDate> {
+    @Query("SELECT COALESCE(SUM(d.orderCount), 0) FROM DailySales d WHERE d.statDate >= :from AND d.statDate < :to")
+    long sumOrderCount(@Param("from") LocalDate from, @Param("to") LocalDate to);
+
+    @Query("SELECT COALESCE(SUM(d.revenue), 0) FROM DailySales d WHERE d.statDate >= :from AND d.statDate < :to")
+    BigDecimal sumRevenue(@Param("from") LocalDate from, @Param("to") LocalDate to);
+
+    @Query("SELECT COALESCE(SUM(d.revenue), 0) FROM DailySales d")
+    BigDecimal sumAllRevenue();
+}
@@ -0,0 +1,137 @@
+package com.linter.eduanalitycs.repository;
+
+import com.linter.eduanalitycs.config.SketchProperties;
+import lombok.RequiredArgsConstructor;
+import org.apache.datasketches.hll.HllSketch;
+import org.apache.datasketches.hll.Union;
+import org.roaringbitmap.longlong.LongIterator;
+import org.roaringbitmap.longlong.Roaring64Bitmap;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.sql.Date;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+
+/**
+ * Дневные HLL-скетчи уникальных пользователей (daily_user_sketches). Скетч дня занимает
+ * 2^lgK байт независимо от числа пользователей; неделя и месяц считаются объединением дней.
+ */
+@Repository
+@RequiredArgsConstructor
+public class DailySketchRepository {
+
+    public enum Kind {
+        ACTIVE_USERS("SELECT activity_date, user_id FROM activity_events " +
+                "WHERE activity_date >= ? AND activity_date < ? ORDER BY activity_date"),
+        PAYING_USERS("SELECT order_date, user_id FROM orders " +
+                "WHERE order_date >= ? AND order_date < ? ORDER BY order_date");
+
+        private final String sourceQuery;
+
+        Kind(String sourceQuery) {
+            this.sourceQuery = sourceQuery;
+        }
+    }
+
+    private final JdbcTemplate jdbcTemplate;
+    private final SketchProperties properties;
+
+    /**
+     * Добавляет пользователей в скетчи за дни. Строка дня блокируется до конца транзакции, а первую
+     * вставку дня, опережённую параллельной загрузкой, сменяет объединение с её строкой —
+     * как и в {@link ActivityEventRepository#mergeDailyActiveUsers}.
+     */
+    public void addUsers(Kind kind, Map<LocalDate, Roaring64Bitmap> usersByDay) {
+        usersByDay.forEach((day, users) -> {
+            HllSketch sketch = new HllSketch(properties.lgK());
+            for (LongIterator ids = users.getLongIterator(); ids.hasNext(); ) {
+                sketch.update(ids.next());
+            }
+            if (mergeIntoExistingDay(kind, day, sketch)) {
+                return;
+            }
+            try {
+                insertDay(kind, day, sketch);
+            } catch (DuplicateKeyException e) {
+                mergeIntoExistingDay(kind, day, sketch);
+            }
+        });
+    }
+
+    private boolean mergeIntoExistingDay(Kind kind, LocalDate day, HllSketch sketch) {
+        List<byte[]> existing = jdbcTemplate.query(
+                "SELECT sketch FROM daily_user_sketches WHERE kind = ? AND stat_date = ? FOR UPDATE",
+                (rs, rowNum) -> rs.getBytes(1), kind.name(), Date.valueOf(day));
+        if (existing.isEmpty()) {
+            return false;
+        }
+        Union merged = new Union(properties.lgK());
+        merged.update(HllSketch.heapify(existing.getFirst()));
+        merged.update(sketch);
+        jdbcTemplate.update("UPDATE daily_user_sketches SET sketch = ? WHERE kind = ? AND stat_date = ?",
+                merged.getResult().toCompactByteArray(), kind.name(), Date.valueOf(day));
+        return true;
+    }
+
+    /**
+     * Пересобирает скетчи за дни [from, to) из исходной таблицы; в памяти держится скетч одного дня.
+     */
+    public void rebuild(Kind kind, LocalDate from, LocalDate to) {
+        jdbcTemplate.update("DELETE FROM daily_user_sketches WHERE kind = ? AND stat_date >= ? AND stat_date < ?",
+                kind.name(), Date.valueOf(from), Date.valueOf(to));
+
+        LocalDate[] currentDay = {null};
+        HllSketch[] currentSketch = {null};
+        jdbcTemplate.query(kind.sourceQuery,
+                rs -> {
+                    LocalDate day = rs.getTimestamp(1).toLocalDateTime().toLocalDate();
+                    if (!day.equals(currentDay[0])) {
+                        if (currentDay[0] != null) {
+                            insertDay(kind, currentDay[0], currentSketch[0]);
+                        }
+                        currentDay[0] = day;
+                        currentSketch[0] = new HllSketch(properties.lgK());
+                    }
+                    currentSketch[0].update(rs.getLong(2));
+                },
+                bound(kind, from), bound(kind, to));
+        if (currentDay[0] != null) {
+            insertDay(kind, currentDay[0], currentSketch[0]);
+        }
+    }
+
+    /**
+     * Скетчи по дням за [from, to); дни без пользователей отсутствуют.
+     */
+    public NavigableMap<LocalDate, HllSketch> find(Kind kind, LocalDate from, LocalDate to) {
+        NavigableMap<LocalDate, HllSketch> sketches = new TreeMap<>();
+        jdbcTemplate.query("SELECT stat_date, sketch FROM daily_user_sketches " +
+                        "WHERE kind = ? AND stat_date >= ? AND stat_date < ?",
+                rs -> {
+                    sketches.put(rs.getDate(1).toLocalDate(), HllSketch.heapify(rs.getBytes(2)));
+                },
+                kind.name(), Date.valueOf(from), Date.valueOf(to));
+        return sketches;
+    }
+
+    public long countRows() {
+        Long count = jdbcTemplate.queryForObject("SELECT COUNT(*) FROM daily_user_sketches", Long.class);
+        return count != null ? count : 0;
+    }
+
+    private void insertDay(Kind kind, LocalDate day, HllSketch sketch) {
+        jdbcTemplate.update("INSERT INTO daily_user_sketches (kind, stat_date, sketch) VALUES (?, ?, ?)",
+                kind.name(), Date.valueOf(day), sketch.toCompactByteArray());
+    }
+
+    // orders.order_date — TIMESTAMP: границу передаём тем же типом, чтобы не терять индекс по дате
+    private static Object bound(Kind kind, LocalDate day) {
+        return kind == Kind.PAYING_USERS ? Timestamp.valueOf(day.atStartOfDay()) : Date.valueOf(day);
+    }
+}
@@ -0,0 +1,26 @@
+package com.linter.eduanalitycs.repository;
+
+import com.linter.eduanalitycs.model.entity.DailyUsers;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDate;
+import java.util.List;
+
+// Периоды полуоткрытые: [from, to)
+@Repository
+public interface DailyUsersRepository extends JpaRepository<DailyUsers, LocalDate> {
+    @Query("SELECT COALESCE(SUM(d.newUsers), 0) FROM DailyUsers d WHERE d.statDate >= :from AND d.statDate < :to")
+    long sumNewUsers(@Param("from") LocalDate from, @Param("to") LocalDate to);
+
+    @Query("SELECT COALESCE(SUM(d.activeUsers), 0) FROM DailyUsers d WHERE d.statDate >= :from AND d.statDate < :to")
+    long sumActiveUsers(@Param("from") LocalDate from, @Param("to") LocalDate to);
+
+    @Query("SELECT d FROM DailyUsers d WHERE d.statDate >= :from AND d.statDate < :to ORDER BY d.statDate")
+    List<DailyUsers> findRange(@Param("from") LocalDate from, @Param("to") LocalDate to);
+
+    @Query("SELECT COALESCE(SUM(d.newUsers), 0) FROM DailyUsers d")
+    long sumAllNewUsers();
+}
@@ -0,0 +1,75 @@
+package com.linter.eduanalitycs.repository;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.math.BigDecimal;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Пакетная запись входящих данных через JDBC, в обход Hibernate.
+ */
+@Repository
+@RequiredArgsConstructor
+public class IngestRepository {
+    private static final String INSERT_ORDER =
+            "INSERT INTO orders (id, user_id, course_id, order_date, amount) VALUES (?, ?, ?, ?, ?)";
+    // Более ранний заход не затирает более поздний
+    private static final String UPDATE_ACTIVITY =
+            "UPDATE users SET last_activity_date = ? " +
+            "WHERE id = ? AND (last_activity_date IS NULL OR last_activity_date < ?)";
+
+    private static final String DELETE_SPEND = "DELETE FROM marketing_spend WHERE spend_date = ? AND channel = ?";
+    private static final String INSERT_SPEND = "INSERT INTO marketing_spend (spend_date, channel, amount) VALUES (?, ?, ?)";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final NamedParameterJdbcTemplate namedParameterJdbcTemplate;
+
+    public void insertOrders(List<Object[]> rows) {
+        jdbcTemplate.batchUpdate(INSERT_ORDER, rows);
+    }
+
+    /**
+     * @param rows {@code spend_date (Date), channel, amount}; пара дата-канал в пачке одна.
+     *             Повторная загрузка дня и канала заменяет сумму
+     */
+    public void upsertMarketingSpend(List<Object[]> rows) {
+        jdbcTemplate.batchUpdate(DELETE_SPEND, rows.stream().map(row -> new Object[]{row[0], row[1]}).toList());
+        jdbcTemplate.batchUpdate(INSERT_SPEND, rows);
+    }
+
+    public void updateLastActivity(Map<Long, LocalDateTime> lastActivityByUser) {
+        jdbcTemplate.batchUpdate(UPDATE_ACTIVITY, lastActivityByUser.entrySet().stream()
+                .map(entry -> new Object[]{Timestamp.valueOf(entry.getValue()), entry.getKey(), Timestamp.valueOf(entry.getValue())})
+                .toList());
+    }
+
+    public Map<Long, BigDecimal> findCoursePrices() {
+        Map<Long, BigDecimal> prices = new HashMap<>();
+        jdbcTemplate.query("SELECT id, price FROM courses", rs -> {
+            prices.put(rs.getLong(1), rs.getBigDecimal(2));
+        });
+        return prices;
+    }
+
+    /**
+     * Текущая lastActivityDate пользователей; отсутствующих в базе пользователей в ответе нет.
+     */
+    public Map<Long, LocalDateTime> findLastActivity(Collection<Long> userIds) {
+        Map<Long, LocalDateTime> lastActivity = new HashMap<>();
+        namedParameterJdbcTemplate.query("SELECT id, last_activity_date FROM users WHERE id IN (:ids)",
+                new MapSqlParameterSource("ids", userIds), rs -> {
+                    Timestamp value = rs.getTimestamp(2);
+                    lastActivity.put(rs.getLong(1), value != null ? value.toLocalDateTime() : null);
+                });
+        return lastActivity;
+    }
+}
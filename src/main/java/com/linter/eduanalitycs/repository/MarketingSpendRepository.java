@@ -0,0 +1,17 @@
+package com.linter.eduanalitycs.repository;
+
+import com.linter.eduanalitycs.model.dto.DailyAmount;
+import com.linter.eduanalitycs.model.entity.MarketingSpend;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+@Repository
+public interface MarketingSpendRepository extends JpaRepository<MarketingSpend, MarketingSpend.Key> {
+    // Расходы всех каналов по дням, в порядке дат
+    @Query("SELECT new com.linter.eduanalitycs.model.dto.DailyAmount(m.spendDate, SUM(m.amount)) " +
+            "FROM MarketingSpend m GROUP BY m.spendDate ORDER BY m.spendDate")
+    List<DailyAmount> sumByDay();
+}
@@ -1,15 +1,27 @@
 package com.linter.eduanalitycs.repository;
 
+import com.linter.eduanalitycs.model.dto.OrderExportRow;
+import com.linter.eduanalitycs.model.dto.OrderRangeSummary;
+import com.linter.eduanalitycs.model.dto.ProductPerformanceDTO;
+import com.linter.eduanalitycs.model.dto.ProductSort;
+import com.linter.eduanalitycs.model.dto.RepeatPurchaseStats;
 import com.linter.eduanalitycs.model.entity.Order;
 import com.linter.eduanalitycs.model.entity.User;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.JpaSort;
 import org.springframework.data.jpa.repository.JpaRepository;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.AvailableHints;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
 import java.util.List;
+import java.util.stream.Stream;
 
 @Repository
 public interface OrderRepository extends JpaRepository<Order, Long> {
@@ -18,25 +30,64 @@ public interface OrderRepository extends JpaRepository<Order, Long> {
     @Query("SELECT SUM(o.amount) FROM Order o")
     BigDecimal getTotalRevenue();
 
-    @Query("SELECT COUNT(DISTINCT o.user.id) FROM Order o WHERE o.orderDate BETWEEN :start AND :end")
-    long countDistinctPayingUsersBetween(@Param("start") LocalDateTime start,
-                                         @Param("end") LocalDateTime end);
+    // Покупатели за [start, end) — те же границы, что у дневных агрегатов выручки
+    @Query("SELECT COUNT(DISTINCT o.user.id) FROM Order o WHERE o.orderDate >= :start AND o.orderDate < :end")
+    long countDistinctPayingUsers(@Param("start") LocalDateTime start,
+                                  @Param("end") LocalDateTime end);
 
-    @Query("SELECT c.id, c.name, COUNT(o.id), SUM(o.amount) " +
+    /**
+     * Продажи по курсам; порядок и top-N задаёт {@code pageable} — сортировка из {@link #productPerformanceSort}.
+     */
+    @Query("SELECT new com.linter.eduanalitycs.model.dto.ProductPerformanceDTO(c.id, c.name, COUNT(o.id), SUM(o.amount)) " +
             "FROM Order o JOIN o.course c " +
             "WHERE o.orderDate BETWEEN :start AND :end " +
-            "GROUP BY c.id, c.name " +
-            "ORDER BY COUNT(o.id) DESC")
-    List<Object[]> getProductPerformance(@Param("start") LocalDateTime start,
-                                         @Param("end") LocalDateTime end);
+            "GROUP BY c.id, c.name")
+    List<ProductPerformanceDTO> getProductPerformance(@Param("start") LocalDateTime start,
+                                                      @Param("end") LocalDateTime end,
+                                                      Pageable pageable);
+
+    // Агрегаты не свойства сущности, поэтому выражения сортировки передаются как есть
+    static Sort productPerformanceSort(ProductSort sort) {
+        return JpaSort.unsafe(Sort.Direction.DESC, sort == ProductSort.REVENUE ? "SUM(o.amount)" : "COUNT(o.id)")
+                .and(JpaSort.unsafe(Sort.Direction.ASC, "c.id"));
+    }
 
     long countByOrderDateBetween(LocalDateTime start, LocalDateTime end);
 
     @Query("SELECT COALESCE(SUM(o.amount), 0) FROM Order o WHERE o.orderDate BETWEEN :start AND :end")
     BigDecimal getTotalRevenueBetween(LocalDateTime start, LocalDateTime end);
 
+    // Число заказов, выручка и покупатели за один проход по заказам периода
+    @Query("SELECT new com.linter.eduanalitycs.model.dto.OrderRangeSummary(" +
+            "COUNT(o.id), COALESCE(SUM(o.amount), 0), COUNT(DISTINCT o.user.id)) " +
+            "FROM Order o WHERE o.orderDate BETWEEN :start AND :end")
+    OrderRangeSummary getRangeSummary(@Param("start") LocalDateTime start, @Param("end") LocalDateTime end);
+
     @Query("SELECT o FROM Order o WHERE o.user = :user AND o.orderDate < :before")
     List<Order> findByUserAndOrderDateBefore(@Param("user") User user, @Param("before") LocalDateTime before);
 
     List<Order> findByUser(User user);
+
+    // Покупатели и повторные покупатели одним агрегатом, без загрузки заказов по каждому пользователю
+    @Query("SELECT new com.linter.eduanalitycs.model.dto.RepeatPurchaseStats(" +
+            "COUNT(t.userId), COALESCE(SUM(CASE WHEN t.orderCount > 1 THEN 1 ELSE 0 END), 0)) " +
+            "FROM (SELECT o.user.id AS userId, COUNT(o.id) AS orderCount " +
+            "      FROM Order o WHERE o.orderDate < :end GROUP BY o.user.id) t")
+    RepeatPurchaseStats getRepeatPurchaseStats(@Param("end") LocalDateTime end);
+
+    /**
+     * Заказы за [start, end) для выгрузки. Читать в транзакции и закрывать поток: строки идут курсором
+     * по fetch size, а не списком, как {@link #findByOrderDateBetween}.
+     */
+    @QueryHints({
+            @QueryHint(name = AvailableHints.HINT_FETCH_SIZE, value = "1000"),
+            @QueryHint(name = AvailableHints.HINT_READ_ONLY, value = "true")
+    })
+    @Query("SELECT new com.linter.eduanalitycs.model.dto.OrderExportRow(" +
+            "o.id, o.user.id, c.id, c.name, o.orderDate, o.amount) " +
+            "FROM Order o JOIN o.course c " +
+            "WHERE o.orderDate >= :start AND o.orderDate < :end " +
+            "ORDER BY o.orderDate, o.id")
+    Stream<OrderExportRow> streamForExport(@Param("start") LocalDateTime start,
+                                           @Param("end") LocalDateTime end);
 }
@@ -0,0 +1,50 @@
+package com.linter.eduanalitycs.repository;
+
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+/**
+ * Выдаёт id из тех же последовательностей, что и Hibernate, для вставок в обход JPA (JDBC batch).
+ * <p>
+ * Сущности используют pooled-оптимизатор: каждое значение последовательности {@code v} закрепляет
+ * за вызывающим блок {@code [v - ALLOCATION_SIZE + 1, v]}. Аллокатор берёт блоки по тому же правилу,
+ * поэтому его id не пересекаются с id, которые раздаёт Hibernate.
+ */
+@Repository
+public class SequenceIdAllocator {
+    public static final int ALLOCATION_SIZE = 50;
+
+    public static final String USERS_SEQUENCE = "users_seq";
+    public static final String ORDERS_SEQUENCE = "orders_seq";
+    public static final String COURSES_SEQUENCE = "courses_seq";
+    public static final String ACTIVITY_EVENTS_SEQUENCE = "activity_events_seq";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final EntityManagerFactory entityManagerFactory;
+
+    public SequenceIdAllocator(JdbcTemplate jdbcTemplate, EntityManagerFactory entityManagerFactory) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.entityManagerFactory = entityManagerFactory;
+    }
+
+    public long[] allocate(String sequenceName, int count) {
+        String nextValueSql = entityManagerFactory.unwrap(SessionFactoryImplementor.class)
+                .getJdbcServices().getDialect().getSequenceSupport()
+                .getSequenceNextValString(sequenceName);
+
+        long[] ids = new long[count];
+        int filled = 0;
+        while (filled < count) {
+            Long hi = jdbcTemplate.queryForObject(nextValueSql, Long.class);
+            if (hi == null) {
+                throw new IllegalStateException("Sequence " + sequenceName + " returned no value");
+            }
+            for (long id = Math.max(1, hi - ALLOCATION_SIZE + 1); id <= hi && filled < count; id++) {
+                ids[filled++] = id;
+            }
+        }
+        return ids;
+    }
+}
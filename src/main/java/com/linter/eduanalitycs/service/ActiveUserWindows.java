@@ -0,0 +1,86 @@
+package com.linter.eduanalitycs.service;
+
+import org.roaringbitmap.longlong.Roaring64Bitmap;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+import java.util.function.UnaryOperator;
+
+/**
+ * Подсчёт уникальных пользователей по дневным битмапам id.
+ * Скользящее окно считается объединением дней окна, а не вычитанием выпавших дней:
+ * пользователь, активный и в выпавший, и в оставшийся день, остаётся в окне.
+ */
+public final class ActiveUserWindows {
+
+    private ActiveUserWindows() {
+    }
+
+    public static NavigableMap<LocalDate, Integer> cardinalities(NavigableMap<LocalDate, Roaring64Bitmap> dailyActive) {
+        NavigableMap<LocalDate, Integer> result = new TreeMap<>();
+        dailyActive.forEach((date, users) -> result.put(date, (int) users.getLongCardinality()));
+        return result;
+    }
+
+    /**
+     * Для каждой даты с активностью — число уникальных пользователей за {@code days} календарных дней,
+     * заканчивающихся этой датой.
+     * <p>
+     * Окно ведётся двумя стеками: «старая» часть хранит суффиксные объединения, «новая» — накопленное
+     * объединение добавленных дней. Каждый день участвует в O(1) объединений вместо {@code days}.
+     */
+    public static NavigableMap<LocalDate, Integer> rolling(NavigableMap<LocalDate, Roaring64Bitmap> dailyActive, int days) {
+        List<LocalDate> dates = new ArrayList<>(dailyActive.keySet());
+        List<Roaring64Bitmap> bitmaps = new ArrayList<>(dailyActive.values());
+        NavigableMap<LocalDate, Integer> result = new TreeMap<>();
+
+        Roaring64Bitmap[] suffixUnions = new Roaring64Bitmap[0];
+        int frontStart = 0;              // индекс первого дня в суффиксных объединениях
+        int frontEnd = -1;               // индекс последнего дня в суффиксных объединениях
+        Roaring64Bitmap back = new Roaring64Bitmap(); // объединение дней (frontEnd, i]
+        int oldest = 0;
+
+        for (int i = 0; i < dates.size(); i++) {
+            LocalDate date = dates.get(i);
+            back.or(bitmaps.get(i));
+            LocalDate windowStart = date.minusDays(days - 1);
+            while (dates.get(oldest).isBefore(windowStart)) {
+                oldest++;
+            }
+
+            if (oldest > frontEnd) {
+                // Старая часть опустела: перестраиваем её из дней окна, «новая» часть обнуляется
+                suffixUnions = new Roaring64Bitmap[i - oldest + 1];
+                Roaring64Bitmap accumulated = new Roaring64Bitmap();
+                for (int j = i; j >= oldest; j--) {
+                    accumulated.or(bitmaps.get(j));
+                    suffixUnions[j - oldest] = accumulated.clone();
+                }
+                frontStart = oldest;
+                frontEnd = i;
+                back = new Roaring64Bitmap();
+            }
+
+            Roaring64Bitmap front = suffixUnions[oldest - frontStart];
+            long unique = front.getLongCardinality() + back.getLongCardinality()
+                    - Roaring64Bitmap.andCardinality(front, back);
+            result.put(date, (int) unique);
+        }
+        return result;
+    }
+
+    /**
+     * Объединяет дневные битмапы в корзины по ключу (понедельник недели, 1-е число месяца).
+     */
+    public static NavigableMap<LocalDate, Roaring64Bitmap> bucket(Map<LocalDate, Roaring64Bitmap> dailyActive,
+                                                                  UnaryOperator<LocalDate> bucketKey) {
+        NavigableMap<LocalDate, Roaring64Bitmap> buckets = new TreeMap<>();
+        dailyActive.forEach((date, users) ->
+                buckets.computeIfAbsent(bucketKey.apply(date), k -> new Roaring64Bitmap()).or(users));
+        return buckets;
+    }
+}
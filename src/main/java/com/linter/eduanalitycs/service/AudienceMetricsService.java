@@ -1,100 +1,97 @@
 package com.linter.eduanalitycs.service;
 
-import com.linter.eduanalitycs.repository.UserRepository;
+import com.linter.eduanalitycs.model.dto.MetricsPrecision;
+import com.linter.eduanalitycs.repository.ActivityEventRepository;
+import com.linter.eduanalitycs.repository.DailySketchRepository;
 import lombok.RequiredArgsConstructor;
+import org.apache.datasketches.hll.HllSketch;
+import org.roaringbitmap.longlong.Roaring64Bitmap;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDate;
 import java.time.LocalDateTime;
-import java.util.*;
+import java.time.LocalTime;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.function.UnaryOperator;
 
 @Service
 @RequiredArgsConstructor
 public class AudienceMetricsService {
-    private final UserRepository userRepository;
+    private static final UnaryOperator<LocalDate> WEEK_START = date -> date.minusDays(date.getDayOfWeek().getValue() - 1); // Понедельник недели
+    private static final UnaryOperator<LocalDate> MONTH_START = date -> date.withDayOfMonth(1); // 1-е число месяца
 
-    public Map<String, Map<LocalDate, Integer>> getAudienceMetrics(LocalDateTime start, LocalDateTime end, String aggregation) {
-        List<Object[]> dailyActive = userRepository.getDailyActiveUsers(start, end);
-        Map<LocalDate, Set<Long>> dailyActiveMap = mapDailyActiveUsers(dailyActive);
-
-        // Агрегируем сырые данные, если нужно
-        Map<LocalDate, Set<Long>> aggregatedMap = aggregateDailyData(dailyActiveMap, aggregation);
+    private final ActivityEventRepository activityEventRepository;
+    private final DailySketchRepository dailySketchRepository;
 
-        return calculateAudienceMetrics(aggregatedMap);
+    @Transactional(readOnly = true)
+    public Map<String, Map<LocalDate, Integer>> getAudienceMetrics(LocalDateTime start, LocalDateTime end, String aggregation) {
+        return getAudienceMetrics(start, end, aggregation, MetricsPrecision.EXACT);
     }
 
-    // Новый метод: агрегация по 'week' или 'month' (для 'day' — ничего не меняет)
-    private Map<LocalDate, Set<Long>> aggregateDailyData(Map<LocalDate, Set<Long>> dailyMap, String aggregation) {
-        if ("day".equalsIgnoreCase(aggregation)) {
-            return dailyMap;
-        }
-
-        Map<LocalDate, Set<Long>> aggregated = new TreeMap<>();
-        for (Map.Entry<LocalDate, Set<Long>> entry : dailyMap.entrySet()) {
-            LocalDate date = entry.getKey();
-            LocalDate aggKey = switch (aggregation.toLowerCase()) {
-                case "week" -> date.minusDays(date.getDayOfWeek().getValue() - 1); // Понедельник недели
-                case "month" -> date.withDayOfMonth(1); // 1-е число месяца
-                default -> date;
+    /**
+     * Считается по журналу заходов (сводка daily_active_users), а не по lastActivityDate:
+     * пользователь попадает в DAU каждого дня, когда он заходил. Границы округляются до целых дней.
+     * В режиме {@link MetricsPrecision#APPROX} вместо битмапов id объединяются дневные HLL-скетчи.
+     */
+    @Transactional(readOnly = true)
+    public Map<String, Map<LocalDate, Integer>> getAudienceMetrics(LocalDateTime start, LocalDateTime end,
+                                                                   String aggregation, MetricsPrecision precision) {
+        LocalDate from = start.toLocalDate();
+        LocalDate to = end.toLocalTime().equals(LocalTime.MIDNIGHT) ? end.toLocalDate() : end.toLocalDate().plusDays(1);
+
+        if (precision == MetricsPrecision.APPROX) {
+            NavigableMap<LocalDate, HllSketch> dailySketches = dailySketchRepository.find(DailySketchRepository.Kind.ACTIVE_USERS, from, to);
+            NavigableMap<LocalDate, HllSketch> aggregated = switch (aggregation.toLowerCase()) {
+                case "week" -> UserSketchWindows.bucket(dailySketches, WEEK_START);
+                case "month" -> UserSketchWindows.bucket(dailySketches, MONTH_START);
+                default -> dailySketches;
+            };
+            Map<LocalDate, Integer> buckets = UserSketchWindows.estimates(aggregated);
+            return switch (aggregation.toLowerCase()) {
+                case "week" -> Map.of("DAU", buckets, "WAU", buckets, "MAU", UserSketchWindows.rolling(aggregated, 30));
+                case "month" -> Map.of("DAU", buckets, "WAU", buckets, "MAU", buckets);
+                default -> Map.of(
+                        "DAU", buckets,
+                        "WAU", UserSketchWindows.rolling(aggregated, 7),
+                        "MAU", UserSketchWindows.rolling(aggregated, 30)
+                );
             };
-
-            aggregated.computeIfAbsent(aggKey, k -> new HashSet<>()).addAll(entry.getValue());
-        }
-        return aggregated;
-    }
-
-    private Map<LocalDate, Set<Long>> mapDailyActiveUsers(List<Object[]> dailyActive) {
-        Map<LocalDate, Set<Long>> dailyActiveMap = new HashMap<>();
-        for (Object[] result : dailyActive) {
-            LocalDate date = ((java.sql.Date) result[0]).toLocalDate();
-            Long userId = ((Number) result[1]).longValue();
-            dailyActiveMap.computeIfAbsent(date, k -> new HashSet<>()).add(userId);
         }
-        return dailyActiveMap;
-    }
 
-    private Map<String, Map<LocalDate, Integer>> calculateAudienceMetrics(Map<LocalDate, Set<Long>> dailyActive) {
-        return Map.of(
-                "DAU", calculateDAU(dailyActive),
-                "WAU", calculateWAU(dailyActive),
-                "MAU", calculateMAU(dailyActive)
-        );
-    }
+        NavigableMap<LocalDate, Roaring64Bitmap> dailyActiveMap = activityEventRepository.findDailyActiveUsers(from, to);
 
-    private Map<LocalDate, Integer> calculateDAU(Map<LocalDate, Set<Long>> dailyActive) {
-        Map<LocalDate, Integer> dauMap = new TreeMap<>();
-        dailyActive.forEach((date, users) -> dauMap.put(date, users.size()));
-        return dauMap;
-    }
+        // Агрегируем сырые данные, если нужно
+        NavigableMap<LocalDate, Roaring64Bitmap> aggregatedMap = aggregateDailyData(dailyActiveMap, aggregation);
 
-    private Map<LocalDate, Integer> calculateWAU(Map<LocalDate, Set<Long>> dailyActive) {
-        return calculateRollingMetric(dailyActive, 7);
+        return calculateAudienceMetrics(aggregatedMap, aggregation);
     }
 
-    private Map<LocalDate, Integer> calculateMAU(Map<LocalDate, Set<Long>> dailyActive) {
-        return calculateRollingMetric(dailyActive, 30);
+    // Агрегация по 'week' или 'month' (для 'day' — ничего не меняет)
+    private NavigableMap<LocalDate, Roaring64Bitmap> aggregateDailyData(NavigableMap<LocalDate, Roaring64Bitmap> dailyMap, String aggregation) {
+        return switch (aggregation.toLowerCase()) {
+            case "week" -> ActiveUserWindows.bucket(dailyMap, WEEK_START);
+            case "month" -> ActiveUserWindows.bucket(dailyMap, MONTH_START);
+            default -> dailyMap;
+        };
     }
 
-    private Map<LocalDate, Integer> calculateRollingMetric(Map<LocalDate, Set<Long>> dailyActive, int days) {
-        Map<LocalDate, Integer> result = new TreeMap<>();
-        List<LocalDate> dates = new ArrayList<>(dailyActive.keySet());
-        Collections.sort(dates);
-
-        Set<Long> currentWindow = new HashSet<>();
-        Deque<LocalDate> dateWindow = new ArrayDeque<>();
-
-        for (LocalDate date : dates) {
-            // Удаляем устаревшие даты из окна
-            while (!dateWindow.isEmpty() && dateWindow.peekFirst().isBefore(date.minusDays(days - 1))) {
-                LocalDate oldDate = dateWindow.removeFirst();
-                currentWindow.removeAll(dailyActive.get(oldDate));
-            }
-
-            dateWindow.addLast(date);
-            currentWindow.addAll(dailyActive.get(date));
-
-            result.put(date, currentWindow.size());
-        }
-        return result;
+    /**
+     * Скользящие окна считаются только там, где они шире корзины: корзина недели уже и есть WAU,
+     * корзина месяца — и WAU, и MAU. Такие серии берутся из уникальных за корзину без повторного объединения.
+     */
+    private Map<String, Map<LocalDate, Integer>> calculateAudienceMetrics(NavigableMap<LocalDate, Roaring64Bitmap> active,
+                                                                         String aggregation) {
+        Map<LocalDate, Integer> buckets = ActiveUserWindows.cardinalities(active);
+        return switch (aggregation.toLowerCase()) {
+            case "week" -> Map.of("DAU", buckets, "WAU", buckets, "MAU", ActiveUserWindows.rolling(active, 30));
+            case "month" -> Map.of("DAU", buckets, "WAU", buckets, "MAU", buckets);
+            default -> Map.of(
+                    "DAU", buckets,
+                    "WAU", ActiveUserWindows.rolling(active, 7),
+                    "MAU", ActiveUserWindows.rolling(active, 30)
+            );
+        };
     }
 }
@@ -0,0 +1,164 @@
+package com.linter.eduanalitycs.service;
+
+import com.linter.eduanalitycs.config.CacheConfig;
+import com.linter.eduanalitycs.model.dto.CohortEvent;
+import com.linter.eduanalitycs.model.dto.CohortGranularity;
+import com.linter.eduanalitycs.model.dto.CohortMatrix;
+import com.linter.eduanalitycs.model.dto.CohortRow;
+import com.linter.eduanalitycs.repository.CohortRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.interceptor.SimpleKey;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Когортная матрица удержания: когорта — пользователи, зарегистрированные в одну неделю или месяц,
+ * столбец k — сколько из них заходили (или покупали) в k-й период от начала когорты.
+ * <p>
+ * Матрица считается за один проход по событиям, отсортированным по пользователю: участники когорт
+ * и счётчики лежат в примитивных массивах. Закончившиеся периоды когорты кэшируются в cohortRows
+ * (кэш сбрасывается при изменении данных вместе с остальными); когда закрывается новый период,
+ * читаются события только недостающих столбцов. Текущий период всегда считается заново.
+ */
+@Service
+@RequiredArgsConstructor
+public class CohortRetentionService {
+    private final CohortRepository cohortRepository;
+    private final CacheManager cacheManager;
+
+    /**
+     * Когорты, начавшиеся в [periodStart(from), to), со столбцами до текущего периода включительно.
+     */
+    public CohortMatrix getMatrix(LocalDate from, LocalDate to, CohortGranularity granularity, CohortEvent event) {
+        return getMatrix(from, to, granularity, event, LocalDate.now());
+    }
+
+    CohortMatrix getMatrix(LocalDate from, LocalDate to, CohortGranularity granularity, CohortEvent event, LocalDate today) {
+        LocalDate currentPeriod = granularity.periodStart(today);
+        List<LocalDate> starts = new ArrayList<>();
+        for (LocalDate start = granularity.periodStart(from); start.isBefore(to) && !start.isAfter(currentPeriod);
+             start = granularity.plusPeriods(start, 1)) {
+            starts.add(start);
+        }
+        if (starts.isEmpty()) {
+            return new CohortMatrix(granularity, event, List.of());
+        }
+
+        Cache cache = cacheManager.getCache(CacheConfig.COHORT_ROWS_CACHE);
+        int cohorts = starts.size();
+        CohortRow[] cached = new CohortRow[cohorts];
+        int[] closedPeriods = new int[cohorts];
+        int[] firstPeriod = new int[cohorts]; // первый столбец, которого нет в кэше
+        for (int c = 0; c < cohorts; c++) {
+            closedPeriods[c] = granularity.periodIndex(starts.get(c), currentPeriod);
+            cached[c] = cache != null ? cache.get(new SimpleKey(granularity, event, starts.get(c)), CohortRow.class) : null;
+            firstPeriod[c] = cached[c] != null ? Math.min(cached[c].closedPeriods(), closedPeriods[c]) : 0;
+        }
+
+        CohortCounts counts = count(starts, closedPeriods, firstPeriod, granularity, event, today);
+
+        List<CohortRow> rows = new ArrayList<>(cohorts);
+        for (int c = 0; c < cohorts; c++) {
+            int[] retained = counts.retained[c];
+            if (cached[c] != null) {
+                System.arraycopy(cached[c].retained(), 0, retained, 0, firstPeriod[c]);
+            }
+            rows.add(CohortRow.of(starts.get(c), counts.users[c], closedPeriods[c], retained));
+            if (cache != null && (cached[c] == null || firstPeriod[c] < closedPeriods[c])) {
+                cache.put(new SimpleKey(granularity, event, starts.get(c)), CohortRow.of(starts.get(c), counts.users[c],
+                        closedPeriods[c], Arrays.copyOf(retained, closedPeriods[c])));
+            }
+        }
+        return new CohortMatrix(granularity, event, rows);
+    }
+
+    private CohortCounts count(List<LocalDate> starts, int[] closedPeriods, int[] firstPeriod,
+                               CohortGranularity granularity, CohortEvent event, LocalDate today) {
+        int cohorts = starts.size();
+        CohortCounts counts = new CohortCounts(cohorts);
+        for (int c = 0; c < cohorts; c++) {
+            counts.retained[c] = new int[closedPeriods[c] + 1];
+        }
+
+        // Участники когорт по возрастанию id: номер когорты рядом с id
+        LocalDate[] cohortStarts = starts.toArray(LocalDate[]::new);
+        Members members = new Members();
+        cohortRepository.scanRegistrations(cohortStarts[0], granularity.plusPeriods(cohortStarts[cohorts - 1], 1),
+                (userId, registrationDay) -> {
+                    int cohort = granularity.periodIndex(cohortStarts[0], registrationDay);
+                    members.add(userId, cohort);
+                    counts.users[cohort]++;
+                });
+        if (members.size == 0) {
+            return counts;
+        }
+
+        // Нужны события начиная с самого раннего столбца, которого нет в кэше
+        LocalDate eventsFrom = cohortStarts[cohorts - 1];
+        for (int c = 0; c < cohorts; c++) {
+            LocalDate firstMissing = granularity.plusPeriods(cohortStarts[c], firstPeriod[c]);
+            eventsFrom = firstMissing.isBefore(eventsFrom) ? firstMissing : eventsFrom;
+        }
+
+        // События и участники отсортированы по id — идём по ним одним курсором
+        int[] cursor = {0};
+        int[] lastMember = {-1};
+        int[] lastPeriod = {-1};
+        cohortRepository.scanEvents(event, members.ids[0], members.ids[members.size - 1], eventsFrom, today.plusDays(1),
+                (userId, day) -> {
+                    int m = cursor[0];
+                    while (m < members.size && members.ids[m] < userId) {
+                        m++;
+                    }
+                    cursor[0] = m;
+                    if (m == members.size || members.ids[m] != userId) {
+                        return;
+                    }
+                    if (m != lastMember[0]) {
+                        lastMember[0] = m;
+                        lastPeriod[0] = -1;
+                    }
+                    int cohort = members.cohorts[m];
+                    int period = granularity.periodIndex(cohortStarts[cohort], day);
+                    // События пользователя идут по дате: повтор периода — тот же пользователь в том же столбце
+                    if (period == lastPeriod[0] || period < firstPeriod[cohort] || period > closedPeriods[cohort]) {
+                        return;
+                    }
+                    lastPeriod[0] = period;
+                    counts.retained[cohort][period]++;
+                });
+        return counts;
+    }
+
+    private static final class CohortCounts {
+        final int[] users;
+        final int[][] retained;
+
+        CohortCounts(int cohorts) {
+            users = new int[cohorts];
+            retained = new int[cohorts][];
+        }
+    }
+
+    private static final class Members {
+        long[] ids = new long[1024];
+        int[] cohorts = new int[1024];
+        int size;
+
+        void add(long id, int cohort) {
+            if (size == ids.length) {
+                ids = Arrays.copyOf(ids, size * 2);
+                cohorts = Arrays.copyOf(cohorts, size * 2);
+            }
+            ids[size] = id;
+            cohorts[size] = cohort;
+            size++;
+        }
+    }
+}
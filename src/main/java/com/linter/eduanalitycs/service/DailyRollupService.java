@@ -0,0 +1,101 @@
+package com.linter.eduanalitycs.service;
+
+import com.linter.eduanalitycs.event.MetricsDaysChangedEvent;
+import com.linter.eduanalitycs.repository.ActivityEventRepository;
+import com.linter.eduanalitycs.repository.DailyRollupRepository;
+import com.linter.eduanalitycs.repository.DailySalesRepository;
+import com.linter.eduanalitycs.repository.DailySketchRepository;
+import com.linter.eduanalitycs.repository.DailyUsersRepository;
+import com.linter.eduanalitycs.repository.UserRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDate;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.Set;
+import java.util.TreeSet;
+
+/**
+ * Дневные агрегаты daily_sales, daily_course_sales, daily_users и daily_cohort_revenue.
+ * Записи через JPA пересчитывают затронутые дни сами (DailyRollupMaintainer);
+ * после вставок в обход Hibernate нужно вызвать {@link #refresh} или {@link #rebuild}.
+ * Сводку заходов daily_active_users поддерживает ActivityEventRepository, здесь она только пересобирается.
+ * Скетчи покупателей пересчитываются вместе с заказными агрегатами, скетчи заходов — только при пересборке.
+ * <p>
+ * Известное ограничение: daily_cohort_revenue относит заказ к месяцу регистрации покупателя на момент пересчёта
+ * дня заказа. Смена registration_date пересчитывает только дни регистрации, но не дни заказов пользователя:
+ * его выручка остаётся в прежней когорте до следующего пересчёта этих дней или {@link #rebuild}.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class DailyRollupService {
+    private static final LocalDate FIRST_DAY = LocalDate.of(1900, 1, 1);
+    private static final LocalDate LAST_DAY = LocalDate.of(9999, 1, 1);
+
+    private final DailyRollupRepository dailyRollupRepository;
+    private final ActivityEventRepository activityEventRepository;
+    private final DailySketchRepository dailySketchRepository;
+    private final DailySalesRepository dailySalesRepository;
+    private final DailyUsersRepository dailyUsersRepository;
+    private final UserRepository userRepository;
+    private final ApplicationEventPublisher eventPublisher;
+
+    @Transactional
+    public void rebuild() {
+        long startedAt = System.nanoTime();
+        dailyRollupRepository.lockDays(dailyRollupRepository.findDaysWithData());
+        refreshRange(FIRST_DAY, LAST_DAY);
+        activityEventRepository.rebuildDailyActiveUsers(FIRST_DAY, LAST_DAY);
+        dailySketchRepository.rebuild(DailySketchRepository.Kind.ACTIVE_USERS, FIRST_DAY, LAST_DAY);
+        eventPublisher.publishEvent(MetricsDaysChangedEvent.everything());
+        log.info("Daily rollups rebuilt in {} ms", (System.nanoTime() - startedAt) / 1_000_000);
+    }
+
+    /**
+     * Пересчитывает переданные дни; соседние дни объединяются в один диапазон.
+     * Дни блокируются до конца транзакции: параллельный пересчёт тех же дней ждёт её коммита.
+     */
+    @Transactional
+    public void refresh(Collection<LocalDate> days) {
+        Iterator<LocalDate> sorted = new TreeSet<>(days).iterator();
+        if (!sorted.hasNext()) {
+            return;
+        }
+        eventPublisher.publishEvent(MetricsDaysChangedEvent.of(Set.copyOf(days)));
+        dailyRollupRepository.lockDays(days);
+        LocalDate from = sorted.next();
+        LocalDate to = from.plusDays(1);
+        while (sorted.hasNext()) {
+            LocalDate day = sorted.next();
+            if (!day.equals(to)) {
+                refreshRange(from, to);
+                from = day;
+            }
+            to = day.plusDays(1);
+        }
+        refreshRange(from, to);
+    }
+
+    private void refreshRange(LocalDate from, LocalDate to) {
+        dailyRollupRepository.refresh(from, to);
+        dailySketchRepository.rebuild(DailySketchRepository.Kind.PAYING_USERS, from, to);
+    }
+
+    // Бэкфилл: данные есть, а агрегатов ещё нет (первый запуск или генерация в обход JPA)
+    @EventListener(ApplicationReadyEvent.class)
+    @Transactional
+    public void backfillIfEmpty() {
+        if (dailySalesRepository.count() == 0 && dailyUsersRepository.count() == 0
+                && activityEventRepository.countDailyActiveUsersRows() == 0 && dailySketchRepository.countRows() == 0
+                && userRepository.count() > 0) {
+            rebuild();
+        }
+    }
+}
@@ -1,5 +1,17 @@
 package com.linter.eduanalitycs.service;
 
+import com.linter.eduanalitycs.model.dto.CohortCac;
+import com.linter.eduanalitycs.model.dto.CohortGranularity;
+import com.linter.eduanalitycs.model.dto.CohortLtv;
+import com.linter.eduanalitycs.model.dto.DayWindow;
+import com.linter.eduanalitycs.model.dto.MetricsPrecision;
+import com.linter.eduanalitycs.model.dto.OrderRangeSummary;
+import com.linter.eduanalitycs.model.entity.DailyCohortRevenue;
+import com.linter.eduanalitycs.model.entity.DailyUsers;
+import com.linter.eduanalitycs.repository.DailyCohortRevenueRepository;
+import com.linter.eduanalitycs.repository.DailySketchRepository;
+import com.linter.eduanalitycs.repository.DailySalesRepository;
+import com.linter.eduanalitycs.repository.DailyUsersRepository;
 import com.linter.eduanalitycs.repository.OrderRepository;
 import com.linter.eduanalitycs.repository.UserRepository;
 import lombok.RequiredArgsConstructor;
@@ -7,47 +19,150 @@ import org.springframework.stereotype.Service;
 
 import java.math.BigDecimal;
 import java.math.RoundingMode;
+import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.NavigableMap;
+import java.util.Optional;
+import java.util.TreeMap;
 
 @Service
 @RequiredArgsConstructor
 public class FinancialMetricsService {
     private final UserRepository userRepository;
     private final OrderRepository orderRepository;
-    private static final BigDecimal MONTHLY_MARKETING_COSTS = new BigDecimal("50000");
+    private final DailySalesRepository dailySalesRepository;
+    private final DailyUsersRepository dailyUsersRepository;
+    private final DailySketchRepository dailySketchRepository;
+    private final DailyCohortRevenueRepository dailyCohortRevenueRepository;
+    private final MarketingSpendIndex marketingSpendIndex;
 
+    // Выручка и регистрации за всё время — из дневных агрегатов, по строке на день вместо прохода по orders и users
     public BigDecimal getLTV() {
-        BigDecimal totalRevenue = orderRepository.getTotalRevenue();
-        long totalUsers = userRepository.count();
-
-        return totalUsers > 0 ?
-                totalRevenue.divide(BigDecimal.valueOf(totalUsers), 2, RoundingMode.HALF_UP) :
-                BigDecimal.ZERO;
+        return perUser(dailySalesRepository.sumAllRevenue(), dailyUsersRepository.sumAllNewUsers());
     }
 
     public BigDecimal getCAC(LocalDateTime start, LocalDateTime end) {
-        long newUsersInPeriod = userRepository.countByRegistrationDateBetween(start, end);
+        long newUsersInPeriod = DayWindow.of(start, end)
+                .map(days -> dailyUsersRepository.sumNewUsers(days.from(), days.to()))
+                .orElseGet(() -> userRepository.countByRegistrationDateBetween(start, end));
         BigDecimal periodCosts = calculatePeriodCosts(start, end);
 
-        return newUsersInPeriod > 0 ?
-                periodCosts.divide(BigDecimal.valueOf(newUsersInPeriod), 2, RoundingMode.HALF_UP) :
-                BigDecimal.ZERO;
+        return perUser(periodCosts, newUsersInPeriod);
     }
 
     public BigDecimal getARPPU(LocalDateTime start, LocalDateTime end) {
-        BigDecimal periodRevenue = orderRepository.getTotalRevenueBetween(start, end);
-        long payingUsers = orderRepository.countDistinctPayingUsersBetween(start, end);
+        return getARPPU(start, end, MetricsPrecision.EXACT);
+    }
+
+    public BigDecimal getARPPU(LocalDateTime start, LocalDateTime end, MetricsPrecision precision) {
+        Optional<DayWindow> window = DayWindow.of(start, end);
+        if (window.isEmpty()) {
+            // Та же сводка, что у статистики дашборда: в одном расчёте читается один раз
+            OrderRangeSummary orders = MetricsRequestContext.memo("OrderRepository.getRangeSummary",
+                    () -> orderRepository.getRangeSummary(start, end), start, end);
+            return perUser(orders.revenue(), orders.buyerCount());
+        }
+
+        DayWindow days = window.get();
+        BigDecimal periodRevenue = MetricsRequestContext.memo("DailySalesRepository.sumRevenue",
+                () -> dailySalesRepository.sumRevenue(days.from(), days.to()), days.from(), days.to());
+        // Уникальных покупателей за период из дневных агрегатов не сложить, а дневные скетчи — объединить можно
+        long payingUsers = precision == MetricsPrecision.APPROX ?
+                UserSketchWindows.estimateUnion(dailySketchRepository
+                        .find(DailySketchRepository.Kind.PAYING_USERS, days.from(), days.to()).values()) :
+                orderRepository.countDistinctPayingUsers(start, end);
+
+        return perUser(periodRevenue, payingUsers);
+    }
+
+    /**
+     * CAC когорт регистрации: расходы за неделю или месяц когорты на пользователей, зарегистрированных в нём.
+     * Когорты — как в {@link CohortRetentionService}: с периода, содержащего {@code from}; последняя обрезается по {@code to}.
+     */
+    public List<CohortCac> getCacByCohort(LocalDate from, LocalDate to, CohortGranularity granularity) {
+        NavigableMap<LocalDate, Long> newUsersByDay = new TreeMap<>();
+        LocalDate firstCohort = granularity.periodStart(from);
+        for (DailyUsers day : dailyUsersRepository.findRange(firstCohort, to)) {
+            newUsersByDay.put(day.getStatDate(), day.getNewUsers());
+        }
+
+        List<CohortCac> cohorts = new ArrayList<>();
+        for (LocalDate start = firstCohort; start.isBefore(to); start = granularity.plusPeriods(start, 1)) {
+            LocalDate next = granularity.plusPeriods(start, 1);
+            LocalDate end = next.isBefore(to) ? next : to;
+            long newUsers = newUsersByDay.subMap(start, end).values().stream().mapToLong(Long::longValue).sum();
+            BigDecimal spend = marketingSpendIndex.costOf(start, end);
+            cohorts.add(new CohortCac(start, newUsers, spend, perUser(spend, newUsers)));
+        }
+        return cohorts;
+    }
+
+    /**
+     * Накопительный LTV месячных когорт регистрации из daily_cohort_revenue: k-й столбец — выручка когорты
+     * с регистрации по конец k-го месяца на пользователя когорты. Когорты — начавшиеся в [месяц {@code from}, to),
+     * столбцы — до текущего месяца включительно.
+     */
+    public List<CohortLtv> getLtvByCohort(LocalDate from, LocalDate to) {
+        return getLtvByCohort(from, to, LocalDate.now());
+    }
+
+    List<CohortLtv> getLtvByCohort(LocalDate from, LocalDate to, LocalDate today) {
+        CohortGranularity months = CohortGranularity.MONTH;
+        LocalDate firstCohort = months.periodStart(from);
+        LocalDate currentMonth = months.periodStart(today);
+        List<LocalDate> starts = new ArrayList<>();
+        for (LocalDate start = firstCohort; start.isBefore(to) && !start.isAfter(currentMonth);
+             start = months.plusPeriods(start, 1)) {
+            starts.add(start);
+        }
+        if (starts.isEmpty()) {
+            return List.of();
+        }
+        LocalDate cohortsEnd = months.plusPeriods(starts.getLast(), 1);
 
-        return payingUsers > 0 ?
-                periodRevenue.divide(BigDecimal.valueOf(payingUsers), 2, RoundingMode.HALF_UP) :
-                BigDecimal.ZERO;
+        long[] users = new long[starts.size()];
+        for (DailyUsers day : dailyUsersRepository.findRange(firstCohort, cohortsEnd)) {
+            users[months.periodIndex(firstCohort, day.getStatDate())] += day.getNewUsers();
+        }
+
+        BigDecimal[][] revenue = new BigDecimal[starts.size()][];
+        for (int c = 0; c < starts.size(); c++) {
+            revenue[c] = new BigDecimal[months.periodIndex(starts.get(c), currentMonth) + 1];
+            Arrays.fill(revenue[c], BigDecimal.ZERO);
+        }
+        for (DailyCohortRevenue day : dailyCohortRevenueRepository.findCohorts(firstCohort, cohortsEnd)) {
+            BigDecimal[] cohort = revenue[months.periodIndex(firstCohort, day.getCohortMonth())];
+            // Заказ раньше регистрации относим к месяцу регистрации, будущие дни ещё не наступили
+            int month = Math.max(0, months.periodIndex(day.getCohortMonth(), day.getStatDate()));
+            if (month < cohort.length) {
+                cohort[month] = cohort[month].add(day.getRevenue());
+            }
+        }
+
+        List<CohortLtv> cohorts = new ArrayList<>(starts.size());
+        for (int c = 0; c < starts.size(); c++) {
+            BigDecimal cumulative = BigDecimal.ZERO;
+            List<BigDecimal> ltv = new ArrayList<>(revenue[c].length);
+            for (BigDecimal monthRevenue : revenue[c]) {
+                cumulative = cumulative.add(monthRevenue);
+                ltv.add(perUser(cumulative, users[c]));
+            }
+            cohorts.add(new CohortLtv(starts.get(c), users[c], cumulative, ltv));
+        }
+        return cohorts;
     }
 
     private BigDecimal calculatePeriodCosts(LocalDateTime start, LocalDateTime end) {
-        long daysInPeriod = ChronoUnit.DAYS.between(start, end);
-        return MONTHLY_MARKETING_COSTS
-                .multiply(BigDecimal.valueOf(daysInPeriod))
-                .divide(BigDecimal.valueOf(30), 2, RoundingMode.HALF_UP);
+        // Целые дни, как и раньше: неполный последний день не оплачивается
+        LocalDate from = start.toLocalDate();
+        return marketingSpendIndex.costOf(from, from.plusDays(ChronoUnit.DAYS.between(start, end)));
+    }
+
+    private static BigDecimal perUser(BigDecimal amount, long users) {
+        return users > 0 ? amount.divide(BigDecimal.valueOf(users), 2, RoundingMode.HALF_UP) : BigDecimal.ZERO;
     }
 }
\ No newline at end of file
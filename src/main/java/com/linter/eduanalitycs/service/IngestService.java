@@ -0,0 +1,375 @@
+package com.linter.eduanalitycs.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.linter.eduanalitycs.config.IngestProperties;
+import com.linter.eduanalitycs.event.MetricsDaysChangedEvent;
+import com.linter.eduanalitycs.model.dto.ActivityIngestRow;
+import com.linter.eduanalitycs.model.dto.IngestBatchAck;
+import com.linter.eduanalitycs.model.dto.IngestResult;
+import com.linter.eduanalitycs.model.dto.MarketingSpendIngestRow;
+import com.linter.eduanalitycs.model.dto.OrderIngestRow;
+import com.linter.eduanalitycs.repository.ActivityEventRepository;
+import com.linter.eduanalitycs.repository.DailySketchRepository;
+import com.linter.eduanalitycs.repository.IngestRepository;
+import com.linter.eduanalitycs.repository.SequenceIdAllocator;
+import com.opencsv.CSVReaderHeaderAware;
+import com.opencsv.exceptions.CsvValidationException;
+import lombok.extern.slf4j.Slf4j;
+import org.roaringbitmap.longlong.Roaring64Bitmap;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.DataAccessException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.UncheckedIOException;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.sql.Date;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * Потоковая загрузка заказов, заходов пользователей и маркетинговых расходов. Заходы пишутся в журнал activity_events
+ * (со сводкой daily_active_users) и сдвигают lastActivityDate пользователя.
+ * <p>
+ * Вход читается построчно и пишется пачками по {@code app.ingest.batch-size}: каждая пачка — отдельная
+ * транзакция с JDBC batch и пересчётом дневных агрегатов за затронутые дни, на каждую пачку в ответе
+ * есть подтверждение. Строки с ошибками в данных (нет обязательного поля, неизвестный пользователь
+ * или курс) отбрасываются поштучно; нечитаемая строка NDJSON/CSV останавливает загрузку,
+ * уже подтверждённые пачки остаются записанными.
+ */
+@Slf4j
+@Service
+public class IngestService {
+    private final IngestRepository ingestRepository;
+    private final ActivityEventRepository activityEventRepository;
+    private final DailySketchRepository dailySketchRepository;
+    private final SequenceIdAllocator idAllocator;
+    private final DailyRollupService dailyRollupService;
+    private final MarketingSpendIndex marketingSpendIndex;
+    private final MetricsCacheService metricsCacheService;
+    private final ObjectMapper objectMapper;
+    private final IngestProperties properties;
+    private final ApplicationEventPublisher eventPublisher;
+    private final TransactionTemplate transactionTemplate;
+
+    private static final String DEFAULT_SPEND_CHANNEL = "total";
+    private static final int MAX_CHANNEL_LENGTH = 64;
+
+    public enum Format {
+        NDJSON, CSV
+    }
+
+    public IngestService(IngestRepository ingestRepository,
+                         ActivityEventRepository activityEventRepository,
+                         DailySketchRepository dailySketchRepository,
+                         SequenceIdAllocator idAllocator,
+                         DailyRollupService dailyRollupService,
+                         MarketingSpendIndex marketingSpendIndex,
+                         MetricsCacheService metricsCacheService,
+                         ObjectMapper objectMapper,
+                         IngestProperties properties,
+                         ApplicationEventPublisher eventPublisher,
+                         PlatformTransactionManager transactionManager) {
+        this.ingestRepository = ingestRepository;
+        this.activityEventRepository = activityEventRepository;
+        this.dailySketchRepository = dailySketchRepository;
+        this.idAllocator = idAllocator;
+        this.dailyRollupService = dailyRollupService;
+        this.marketingSpendIndex = marketingSpendIndex;
+        this.metricsCacheService = metricsCacheService;
+        this.objectMapper = objectMapper;
+        this.properties = properties;
+        this.eventPublisher = eventPublisher;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    public IngestResult ingestOrders(InputStream body, Format format) {
+        Map<Long, BigDecimal> coursePrices = ingestRepository.findCoursePrices();
+        Supplier<Iterator<OrderIngestRow>> rows = () -> read(body, format, OrderIngestRow.class, csv -> new OrderIngestRow(
+                parse(csv.get("userId"), Long::valueOf),
+                parse(csv.get("courseId"), Long::valueOf),
+                parse(csv.get("orderDate"), LocalDateTime::parse),
+                parse(csv.get("amount"), BigDecimal::new)));
+        return ingest(rows, (batch, firstRow, batchRows) -> writeOrders(batch, firstRow, batchRows, coursePrices));
+    }
+
+    public IngestResult ingestActivity(InputStream body, Format format) {
+        Supplier<Iterator<ActivityIngestRow>> rows = () -> read(body, format, ActivityIngestRow.class, csv -> new ActivityIngestRow(
+                parse(csv.get("userId"), Long::valueOf),
+                parse(csv.get("activityDate"), LocalDateTime::parse)));
+        return ingest(rows, this::writeActivity);
+    }
+
+    public IngestResult ingestMarketingSpend(InputStream body, Format format) {
+        Supplier<Iterator<MarketingSpendIngestRow>> rows = () -> read(body, format, MarketingSpendIngestRow.class, csv -> new MarketingSpendIngestRow(
+                parse(csv.get("date"), LocalDate::parse),
+                parse(csv.get("channel"), value -> value),
+                parse(csv.get("amount"), BigDecimal::new)));
+        Set<LocalDate> days = new HashSet<>();
+        IngestResult result = ingest(rows, (batch, firstRow, batchRows) -> writeMarketingSpend(batch, firstRow, batchRows, days));
+
+        // Индекс расходов пересобирается один раз на загрузку, поэтому кэш сбрасывается ещё раз после него
+        if (!days.isEmpty()) {
+            marketingSpendIndex.reload();
+            metricsCacheService.invalidateAll();
+            eventPublisher.publishEvent(MetricsDaysChangedEvent.of(days));
+        }
+        return result;
+    }
+
+    private <T> IngestResult ingest(Supplier<Iterator<T>> source, BatchWriter<T> writer) {
+        int batchSize = Math.max(1, properties.batchSize());
+        List<IngestBatchAck> acks = new ArrayList<>();
+        List<T> batch = new ArrayList<>(batchSize);
+        long nextRow = 1;
+
+        Iterator<T> rows = null;
+        while (true) {
+            try {
+                // Заголовок CSV читается при открытии — его ошибки тоже относятся к входу
+                if (rows == null) {
+                    rows = source.get();
+                }
+                if (!rows.hasNext()) {
+                    break;
+                }
+                batch.add(rows.next());
+            } catch (RuntimeException e) {
+                // Нечитаемый вход: накопленную пачку не пишем, дальше не читаем
+                String error = "Malformed input at row " + (nextRow + batch.size()) + ": " + e.getMessage();
+                acks.add(new IngestBatchAck(acks.size() + 1, nextRow, batch.size(), 0, 0, IngestBatchAck.Status.FAILED, error));
+                log.warn("Ingest stopped: {}", error);
+                break;
+            }
+
+            if (batch.size() == batchSize) {
+                acks.add(writer.write(acks.size() + 1, nextRow, batch));
+                nextRow += batch.size();
+                batch.clear();
+            }
+        }
+        if (!batch.isEmpty()) {
+            acks.add(writer.write(acks.size() + 1, nextRow, batch));
+        }
+
+        long accepted = acks.stream().mapToLong(IngestBatchAck::accepted).sum();
+        long rejected = acks.stream().mapToLong(IngestBatchAck::rejected).sum();
+        log.info("Ingested {} rows in {} batches, {} rejected", accepted, acks.size(), rejected);
+        return new IngestResult(accepted, rejected, acks);
+    }
+
+    private IngestBatchAck writeOrders(int batch, long firstRow, List<OrderIngestRow> rows, Map<Long, BigDecimal> coursePrices) {
+        Set<Long> userIds = new HashSet<>();
+        for (OrderIngestRow row : rows) {
+            if (row.userId() != null) {
+                userIds.add(row.userId());
+            }
+        }
+        Set<Long> knownUsers = userIds.isEmpty() ? Set.of() : ingestRepository.findLastActivity(userIds).keySet();
+
+        List<Object[]> valid = new ArrayList<>(rows.size());
+        Set<LocalDate> days = new HashSet<>();
+        String firstError = null;
+        for (int i = 0; i < rows.size(); i++) {
+            OrderIngestRow row = rows.get(i);
+            String error = row.userId() == null || row.courseId() == null || row.orderDate() == null
+                    ? "userId, courseId and orderDate are required"
+                    : !knownUsers.contains(row.userId()) ? "unknown user " + row.userId()
+                    : !coursePrices.containsKey(row.courseId()) ? "unknown course " + row.courseId()
+                    : row.amount() != null && row.amount().signum() < 0 ? "negative amount " + row.amount()
+                    : null;
+            if (error != null) {
+                firstError = firstError != null ? firstError : "row " + (firstRow + i) + ": " + error;
+                continue;
+            }
+            BigDecimal amount = row.amount() != null ? row.amount() : coursePrices.get(row.courseId());
+            valid.add(new Object[]{null, row.userId(), row.courseId(), Timestamp.valueOf(row.orderDate()), amount});
+            days.add(row.orderDate().toLocalDate());
+        }
+
+        long[] ids = idAllocator.allocate(SequenceIdAllocator.ORDERS_SEQUENCE, valid.size());
+        for (int i = 0; i < valid.size(); i++) {
+            valid.get(i)[0] = ids[i];
+        }
+        return commit(batch, firstRow, rows.size(), valid.size(), firstError, () -> {
+            ingestRepository.insertOrders(valid);
+            dailyRollupService.refresh(days);
+        });
+    }
+
+    private IngestBatchAck writeActivity(int batch, long firstRow, List<ActivityIngestRow> rows) {
+        // Из нескольких заходов пользователя в пачке важен только последний
+        Map<Long, LocalDateTime> latest = new HashMap<>();
+        for (ActivityIngestRow row : rows) {
+            if (row.userId() != null && row.activityDate() != null) {
+                latest.merge(row.userId(), row.activityDate(), (a, b) -> a.isAfter(b) ? a : b);
+            }
+        }
+        Map<Long, LocalDateTime> current = latest.isEmpty() ? Map.of() : ingestRepository.findLastActivity(latest.keySet());
+
+        List<ActivityIngestRow> valid = new ArrayList<>(rows.size());
+        String firstError = null;
+        for (int i = 0; i < rows.size(); i++) {
+            ActivityIngestRow row = rows.get(i);
+            String error = row.userId() == null || row.activityDate() == null ? "userId and activityDate are required"
+                    : !current.containsKey(row.userId()) ? "unknown user " + row.userId()
+                    : null;
+            if (error != null) {
+                firstError = firstError != null ? firstError : "row " + (firstRow + i) + ": " + error;
+            } else {
+                valid.add(row);
+            }
+        }
+
+        // Каждый заход — в журнал, его пользователь — в сводку уникальных за день
+        long[] ids = idAllocator.allocate(SequenceIdAllocator.ACTIVITY_EVENTS_SEQUENCE, valid.size());
+        List<Object[]> events = new ArrayList<>(valid.size());
+        Map<LocalDate, Roaring64Bitmap> usersByDay = new HashMap<>();
+        for (int i = 0; i < valid.size(); i++) {
+            ActivityIngestRow row = valid.get(i);
+            LocalDate day = row.activityDate().toLocalDate();
+            events.add(new Object[]{ids[i], row.userId(), Timestamp.valueOf(row.activityDate()), Date.valueOf(day)});
+            usersByDay.computeIfAbsent(day, d -> new Roaring64Bitmap()).addLong(row.userId());
+        }
+
+        // lastActivityDate переезжает со старого дня на новый: пересчитываем оба
+        Map<Long, LocalDateTime> updates = new HashMap<>();
+        Set<LocalDate> days = new HashSet<>();
+        latest.forEach((userId, activityDate) -> {
+            if (!current.containsKey(userId)) {
+                return;
+            }
+            LocalDateTime previous = current.get(userId);
+            if (previous == null || previous.isBefore(activityDate)) {
+                updates.put(userId, activityDate);
+                days.add(activityDate.toLocalDate());
+                if (previous != null) {
+                    days.add(previous.toLocalDate());
+                }
+            }
+        });
+
+        return commit(batch, firstRow, rows.size(), valid.size(), firstError, () -> {
+            activityEventRepository.insertEvents(events);
+            activityEventRepository.mergeDailyActiveUsers(usersByDay);
+            dailySketchRepository.addUsers(DailySketchRepository.Kind.ACTIVE_USERS, usersByDay);
+            ingestRepository.updateLastActivity(updates);
+            dailyRollupService.refresh(days);
+            eventPublisher.publishEvent(MetricsDaysChangedEvent.of(usersByDay.keySet()));
+        });
+    }
+
+    private IngestBatchAck writeMarketingSpend(int batch, long firstRow, List<MarketingSpendIngestRow> rows,
+                                               Set<LocalDate> committedDays) {
+        // Дата и канал — ключ строки: из повторов в пачке остаётся последний
+        Map<List<Object>, Object[]> valid = new LinkedHashMap<>();
+        String firstError = null;
+        int accepted = 0;
+        for (int i = 0; i < rows.size(); i++) {
+            MarketingSpendIngestRow row = rows.get(i);
+            String channel = row.channel() != null ? row.channel() : DEFAULT_SPEND_CHANNEL;
+            String error = row.date() == null || row.amount() == null ? "date and amount are required"
+                    : row.amount().signum() < 0 ? "negative amount " + row.amount()
+                    : channel.length() > MAX_CHANNEL_LENGTH ? "channel longer than " + MAX_CHANNEL_LENGTH + " characters"
+                    : null;
+            if (error != null) {
+                firstError = firstError != null ? firstError : "row " + (firstRow + i) + ": " + error;
+                continue;
+            }
+            valid.put(List.of(row.date(), channel), new Object[]{Date.valueOf(row.date()), channel, row.amount()});
+            accepted++;
+        }
+
+        List<Object[]> spend = new ArrayList<>(valid.values());
+        IngestBatchAck ack = commit(batch, firstRow, rows.size(), accepted, firstError,
+                () -> ingestRepository.upsertMarketingSpend(spend));
+        if (ack.status() == IngestBatchAck.Status.COMMITTED) {
+            valid.keySet().forEach(key -> committedDays.add((LocalDate) key.getFirst()));
+        }
+        return ack;
+    }
+
+    private IngestBatchAck commit(int batch, long firstRow, int rows, int accepted, String firstError, Runnable write) {
+        try {
+            transactionTemplate.executeWithoutResult(status -> write.run());
+        } catch (DataAccessException e) {
+            log.warn("Ingest batch {} failed", batch, e);
+            return new IngestBatchAck(batch, firstRow, rows, 0, rows, IngestBatchAck.Status.FAILED,
+                    e.getMostSpecificCause().getMessage());
+        }
+        metricsCacheService.invalidateAll();
+        return new IngestBatchAck(batch, firstRow, rows, accepted, rows - accepted, IngestBatchAck.Status.COMMITTED, firstError);
+    }
+
+    private <T> Iterator<T> read(InputStream body, Format format, Class<T> type, Function<Map<String, String>, T> fromCsv) {
+        try {
+            return switch (format) {
+                case NDJSON -> objectMapper.readerFor(type).readValues(body);
+                case CSV -> csvRows(new CSVReaderHeaderAware(new InputStreamReader(body, StandardCharsets.UTF_8)), fromCsv);
+            };
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static <T> Iterator<T> csvRows(CSVReaderHeaderAware reader, Function<Map<String, String>, T> mapper) {
+        return new Iterator<>() {
+            private Map<String, String> next;
+            private boolean fetched;
+
+            @Override
+            public boolean hasNext() {
+                if (!fetched) {
+                    next = readNext();
+                    fetched = true;
+                }
+                return next != null;
+            }
+
+            @Override
+            public T next() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                fetched = false;
+                return mapper.apply(next);
+            }
+
+            private Map<String, String> readNext() {
+                try {
+                    return reader.readMap();
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                } catch (CsvValidationException e) {
+                    throw new IllegalArgumentException(e.getMessage(), e);
+                }
+            }
+        };
+    }
+
+    private static <T> T parse(String value, Function<String, T> parser) {
+        return value == null || value.isBlank() ? null : parser.apply(value.trim());
+    }
+
+    @FunctionalInterface
+    private interface BatchWriter<T> {
+        IngestBatchAck write(int batch, long firstRow, List<T> rows);
+    }
+}
@@ -0,0 +1,96 @@
+package com.linter.eduanalitycs.service;
+
+import com.linter.eduanalitycs.config.MarketingProperties;
+import com.linter.eduanalitycs.model.dto.DailyAmount;
+import com.linter.eduanalitycs.repository.MarketingSpendRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.LocalDate;
+import java.time.temporal.ChronoUnit;
+import java.util.List;
+
+/**
+ * Префиксные суммы дневных маркетинговых расходов (все каналы): расходы за любой период — разность
+ * двух элементов массива, поэтому CAC по сотням периодов не ходит в базу.
+ * <p>
+ * Дни до первого и после последнего дня с расходами считаются по {@code metrics.marketing.default-monthly-cost};
+ * пока расходы не загружены, это прежняя модель — 50000 за 30 дней. Индекс пересобирается из marketing_spend
+ * при старте и после каждой загрузки и подменяется целиком.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class MarketingSpendIndex {
+    private static final BigDecimal DAYS_PER_MONTH = BigDecimal.valueOf(30);
+
+    private final MarketingSpendRepository marketingSpendRepository;
+    private final MarketingProperties properties;
+
+    private volatile Prefix prefix = Prefix.EMPTY;
+
+    // cents[i] — расходы за дни [firstDay, firstDay + i) в копейках
+    private record Prefix(LocalDate firstDay, long[] cents) {
+        static final Prefix EMPTY = new Prefix(null, new long[]{0});
+
+        LocalDate endDay() {
+            return firstDay.plusDays(cents.length - 1);
+        }
+
+        long at(LocalDate day) {
+            return cents[(int) ChronoUnit.DAYS.between(firstDay, day)];
+        }
+    }
+
+    // Параллельные загрузки: без блокировки индекс, прочитанный раньше, мог бы записаться последним
+    @EventListener(ApplicationReadyEvent.class)
+    public synchronized void reload() {
+        List<DailyAmount> days = marketingSpendRepository.sumByDay();
+        if (days.isEmpty()) {
+            prefix = Prefix.EMPTY;
+            return;
+        }
+        LocalDate firstDay = days.getFirst().day();
+        long[] cents = new long[(int) ChronoUnit.DAYS.between(firstDay, days.getLast().day()) + 2];
+        for (DailyAmount day : days) {
+            cents[(int) ChronoUnit.DAYS.between(firstDay, day.day()) + 1] =
+                    day.amount().setScale(2, RoundingMode.HALF_UP).unscaledValue().longValueExact();
+        }
+        for (int i = 1; i < cents.length; i++) {
+            cents[i] += cents[i - 1];
+        }
+        prefix = new Prefix(firstDay, cents);
+        log.info("Marketing spend index: {} days from {}", cents.length - 1, firstDay);
+    }
+
+    /**
+     * Расходы за дни [from, to).
+     */
+    public BigDecimal costOf(LocalDate from, LocalDate to) {
+        long days = Math.max(0, ChronoUnit.DAYS.between(from, to));
+        Prefix current = prefix;
+        if (days == 0 || current.firstDay() == null) {
+            return defaultCost(days);
+        }
+
+        LocalDate coveredFrom = from.isAfter(current.firstDay()) ? from : current.firstDay();
+        LocalDate coveredTo = to.isBefore(current.endDay()) ? to : current.endDay();
+        if (!coveredFrom.isBefore(coveredTo)) {
+            return defaultCost(days);
+        }
+        long covered = ChronoUnit.DAYS.between(coveredFrom, coveredTo);
+        return BigDecimal.valueOf(current.at(coveredTo) - current.at(coveredFrom), 2)
+                .add(defaultCost(days - covered));
+    }
+
+    private BigDecimal defaultCost(long days) {
+        return properties.defaultMonthlyCost()
+                .multiply(BigDecimal.valueOf(days))
+                .divide(DAYS_PER_MONTH, 2, RoundingMode.HALF_UP);
+    }
+}
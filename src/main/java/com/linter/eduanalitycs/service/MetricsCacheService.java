@@ -0,0 +1,70 @@
+package com.linter.eduanalitycs.service;
+
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import com.linter.eduanalitycs.event.MetricsDataChangedEvent;
+import com.linter.eduanalitycs.model.dto.CacheStatsDTO;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.caffeine.CaffeineCache;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.List;
+import java.util.Objects;
+
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class MetricsCacheService {
+    private static final Object PENDING_INVALIDATION = new Object();
+
+    private final CacheManager cacheManager;
+
+    /**
+     * Сбрасываем кэш сразу (чтобы транзакция видела свои записи) и ещё раз после её завершения:
+     * запрос, успевший посчитать метрики по старым данным до коммита, не останется в кэше.
+     */
+    @EventListener
+    public void onMetricsDataChanged(MetricsDataChangedEvent event) {
+        invalidateAll();
+        if (TransactionSynchronizationManager.isSynchronizationActive()
+                && !TransactionSynchronizationManager.hasResource(PENDING_INVALIDATION)) {
+            TransactionSynchronizationManager.bindResource(PENDING_INVALIDATION, Boolean.TRUE);
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    TransactionSynchronizationManager.unbindResourceIfPossible(PENDING_INVALIDATION);
+                    invalidateAll();
+                }
+            });
+        }
+    }
+
+    public void invalidateAll() {
+        cacheManager.getCacheNames().stream()
+                .map(cacheManager::getCache)
+                .filter(Objects::nonNull)
+                .forEach(Cache::invalidate);
+        log.debug("Metrics caches invalidated");
+    }
+
+    public List<CacheStatsDTO> getStats() {
+        return cacheManager.getCacheNames().stream()
+                .map(cacheManager::getCache)
+                .filter(CaffeineCache.class::isInstance)
+                .map(CaffeineCache.class::cast)
+                .map(this::toStats)
+                .toList();
+    }
+
+    private CacheStatsDTO toStats(CaffeineCache cache) {
+        com.github.benmanes.caffeine.cache.Cache<Object, Object> nativeCache = cache.getNativeCache();
+        CacheStats stats = nativeCache.stats();
+        return new CacheStatsDTO(cache.getName(), nativeCache.estimatedSize(),
+                stats.hitCount(), stats.missCount(), stats.hitRate(), stats.evictionCount());
+    }
+}
@@ -0,0 +1,100 @@
+package com.linter.eduanalitycs.service;
+
+import com.linter.eduanalitycs.model.dto.OrderExportRow;
+import com.linter.eduanalitycs.model.dto.ProductPerformanceDTO;
+import com.linter.eduanalitycs.repository.ActivityEventRepository;
+import com.linter.eduanalitycs.repository.OrderRepository;
+import com.opencsv.CSVWriter;
+import com.opencsv.ICSVWriter;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.Iterator;
+import java.util.stream.Stream;
+
+/**
+ * Выгрузка в CSV прямо в поток ответа. Заказы читаются курсором, строка за строкой:
+ * память не зависит от числа строк, в отличие от {@link OrderRepository#findByOrderDateBetween}.
+ * Поток не закрывается — сжатие и закрытие остаются за вызывающим.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class MetricsExportService {
+    private static final String[] ORDER_HEADER = {"orderId", "userId", "courseId", "courseName", "orderDate", "amount"};
+    private static final String[] PRODUCT_HEADER = {"courseId", "courseName", "salesCount", "revenue"};
+    private static final String[] DAU_HEADER = {"date", "activeUsers"};
+
+    private final OrderRepository orderRepository;
+    private final ProductMetricsService productMetricsService;
+    private final ActivityEventRepository activityEventRepository;
+
+    /**
+     * Заказы за дни [from, to).
+     */
+    @Transactional(readOnly = true)
+    public long exportOrders(LocalDate from, LocalDate to, OutputStream out) throws IOException {
+        ICSVWriter csv = writer(out);
+        csv.writeNext(ORDER_HEADER, false);
+        long rows = 0;
+        try (Stream<OrderExportRow> orders = orderRepository.streamForExport(from.atStartOfDay(), to.atStartOfDay())) {
+            for (Iterator<OrderExportRow> it = orders.iterator(); it.hasNext(); ) {
+                OrderExportRow order = it.next();
+                csv.writeNext(new String[]{
+                        String.valueOf(order.orderId()),
+                        String.valueOf(order.userId()),
+                        String.valueOf(order.courseId()),
+                        order.courseName(),
+                        order.orderDate().toString(),
+                        order.amount().toPlainString()
+                }, false);
+                rows++;
+            }
+        }
+        csv.flush();
+        log.info("Exported {} orders for [{}, {})", rows, from, to);
+        return rows;
+    }
+
+    /**
+     * Продажи по всем курсам за дни [from, to) — та же агрегация, что в блоке «Популярные курсы», без ограничения top-5.
+     */
+    @Transactional(readOnly = true)
+    public void exportProductPerformance(LocalDate from, LocalDate to, OutputStream out) throws IOException {
+        ICSVWriter csv = writer(out);
+        csv.writeNext(PRODUCT_HEADER, false);
+        for (ProductPerformanceDTO product : productMetricsService.getAllProductPerformance(from.atStartOfDay(), to.atStartOfDay())) {
+            csv.writeNext(new String[]{
+                    String.valueOf(product.getCourseId()),
+                    product.getCourseName(),
+                    String.valueOf(product.getSalesCount()),
+                    product.getRevenue().toPlainString()
+            }, false);
+        }
+        csv.flush();
+    }
+
+    /**
+     * DAU по дням за [from, to); дни без заходов пропускаются.
+     */
+    @Transactional(readOnly = true)
+    public void exportDailyActiveUsers(LocalDate from, LocalDate to, OutputStream out) throws IOException {
+        ICSVWriter csv = writer(out);
+        csv.writeNext(DAU_HEADER, false);
+        activityEventRepository.scanDailyActiveUserCounts(from, to,
+                (day, users) -> csv.writeNext(new String[]{day.toString(), String.valueOf(users)}, false));
+        csv.flush();
+    }
+
+    private static ICSVWriter writer(OutputStream out) {
+        return new CSVWriter(new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8)));
+    }
+}
@@ -1,16 +1,35 @@
 package com.linter.eduanalitycs.service;
 
+import com.linter.eduanalitycs.config.CacheConfig;
 import com.linter.eduanalitycs.model.dto.CompleteMetricsResponse;
 import com.linter.eduanalitycs.model.dto.DashboardStats;
+import com.linter.eduanalitycs.model.dto.DayWindow;
+import com.linter.eduanalitycs.model.dto.MetricsPeriod;
+import com.linter.eduanalitycs.model.dto.MetricsPrecision;
+import com.linter.eduanalitycs.model.dto.MetricsSection;
+import com.linter.eduanalitycs.model.dto.PeriodInfo;
+import com.linter.eduanalitycs.model.dto.OrderRangeSummary;
+import com.linter.eduanalitycs.model.dto.ProductPerformanceDTO;
 import com.linter.eduanalitycs.repository.CourseRepository;
+import com.linter.eduanalitycs.repository.DailySalesRepository;
+import com.linter.eduanalitycs.repository.DailyUsersRepository;
 import com.linter.eduanalitycs.repository.OrderRepository;
 import com.linter.eduanalitycs.repository.UserRepository;
+import io.micrometer.core.instrument.Tags;
 import lombok.RequiredArgsConstructor;
+import org.springframework.cache.annotation.Cacheable;
 import org.springframework.stereotype.Service;
 
 import java.math.BigDecimal;
+import java.time.LocalDate;
 import java.time.LocalDateTime;
-import java.time.temporal.ChronoUnit;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Supplier;
 
 @Service
 @RequiredArgsConstructor
@@ -22,28 +41,143 @@ public class MetricsFacadeService {
     private final UserRepository userRepository;
     private final OrderRepository orderRepository;
     private final CourseRepository courseRepository;
+    private final DailySalesRepository dailySalesRepository;
+    private final DailyUsersRepository dailyUsersRepository;
+    private final MetricsSectionExecutor sectionExecutor;
+    private final MetricsRequestContexts requestContexts;
 
     public DashboardStats getDashboardStats(LocalDateTime start, LocalDateTime end) {
+        // Период из целых дней — суммируем дневные агрегаты вместо сканирования orders и users
+        Optional<DayWindow> window = DayWindow.of(start, end);
+        if (window.isPresent()) {
+            LocalDate from = window.get().from();
+            LocalDate to = window.get().to();
+            return new DashboardStats(
+                    dailyUsersRepository.sumActiveUsers(from, to),
+                    courseRepository.count(),
+                    dailySalesRepository.sumOrderCount(from, to),
+                    MetricsRequestContext.memo("DailySalesRepository.sumRevenue",
+                            () -> dailySalesRepository.sumRevenue(from, to), from, to));
+        }
+
         long userCount = userRepository.countByLastActivityDateBetween(start, end);
         long courseCount = courseRepository.count();
-        long orderCount = orderRepository.countByOrderDateBetween(start, end);
-        BigDecimal totalRevenue = orderRepository.getTotalRevenueBetween(start, end);
+        // Число заказов, выручка и покупатели одним проходом; ARPPU в том же расчёте возьмёт сводку из контекста
+        OrderRangeSummary orders = MetricsRequestContext.memo("OrderRepository.getRangeSummary",
+                () -> orderRepository.getRangeSummary(start, end), start, end);
 
-        return new DashboardStats(userCount, courseCount, orderCount, totalRevenue);
+        return new DashboardStats(userCount, courseCount, orders.orderCount(), orders.revenue());
     }
 
+    @Cacheable(cacheNames = CacheConfig.COMPLETE_METRICS_CACHE, keyGenerator = "periodKeyGenerator", sync = true)
     public CompleteMetricsResponse getCompleteMetrics(LocalDateTime start, LocalDateTime end) {
-        long days = ChronoUnit.DAYS.between(start.toLocalDate(), end.toLocalDate());
-        String agg = days > 180 ? "month" : (days >= 30 ? "week" : "day");
+        return calculateCompleteMetrics(start, end, MetricsPrecision.EXACT);
+    }
+
+    /**
+     * {@link MetricsPrecision#APPROX} оценивает DAU/WAU/MAU и покупателей в ARPPU по HLL-скетчам;
+     * остальные секции считаются одинаково в обоих режимах.
+     */
+    @Cacheable(cacheNames = CacheConfig.COMPLETE_METRICS_CACHE, keyGenerator = "periodKeyGenerator", sync = true)
+    public CompleteMetricsResponse getCompleteMetrics(LocalDateTime start, LocalDateTime end, MetricsPrecision precision) {
+        return calculateCompleteMetrics(start, end, precision);
+    }
+
+    /**
+     * Шаг графиков (day, week, month) задан явно, а не выбран по длине периода.
+     */
+    @Cacheable(cacheNames = CacheConfig.COMPLETE_METRICS_CACHE, keyGenerator = "periodKeyGenerator", sync = true)
+    public CompleteMetricsResponse getCompleteMetrics(LocalDateTime start, LocalDateTime end, MetricsPrecision precision,
+                                                      String aggregation) {
+        return calculateCompleteMetrics(start, end, precision, aggregation);
+    }
+
+    /**
+     * Только секции {@code sections}: остальные не считаются и в ответе остаются пустыми (null).
+     */
+    @Cacheable(cacheNames = CacheConfig.COMPLETE_METRICS_CACHE, keyGenerator = "periodKeyGenerator", sync = true)
+    public CompleteMetricsResponse getCompleteMetrics(LocalDateTime start, LocalDateTime end, MetricsPrecision precision,
+                                                      String aggregation, Set<MetricsSection> sections) {
+        return calculateCompleteMetrics(start, end, precision, aggregation, sections);
+    }
+
+    /**
+     * Расчёт без кэша; его же вызывает планировщик снимков.
+     */
+    public CompleteMetricsResponse calculateCompleteMetrics(LocalDateTime start, LocalDateTime end, MetricsPrecision precision) {
+        return calculateCompleteMetrics(start, end, precision, MetricsPeriod.aggregationOf(start, end));
+    }
+
+    public CompleteMetricsResponse calculateCompleteMetrics(LocalDateTime start, LocalDateTime end, MetricsPrecision precision,
+                                                            String aggregation) {
+        return calculateCompleteMetrics(start, end, precision, aggregation, EnumSet.allOf(MetricsSection.class));
+    }
+
+    public CompleteMetricsResponse calculateCompleteMetrics(LocalDateTime start, LocalDateTime end, MetricsPrecision precision,
+                                                            String aggregation, Set<MetricsSection> sections) {
+        Tags tags = Tags.of("period", MetricsPeriod.tagOf(start, end), "aggregation", aggregation);
+        return requestContexts.withContext(tags, () -> calculateSections(start, end, precision, aggregation, sections));
+    }
+
+    /**
+     * Ответ только с секциями {@code sections} — например, из снимка, посчитанного целиком.
+     */
+    public static CompleteMetricsResponse onlySections(CompleteMetricsResponse metrics, Set<MetricsSection> sections) {
+        if (sections.containsAll(EnumSet.allOf(MetricsSection.class))) {
+            return metrics;
+        }
+        CompleteMetricsResponse.CompleteMetricsResponseBuilder builder = metrics.toBuilder();
+        if (!sections.contains(MetricsSection.STATS)) {
+            builder.dashboardStats(null);
+        }
+        if (!sections.contains(MetricsSection.AUDIENCE)) {
+            builder.audienceMetrics(null);
+        }
+        if (!sections.contains(MetricsSection.RETENTION)) {
+            builder.retentionRate(null).retentionTrend(null);
+        }
+        if (!sections.contains(MetricsSection.FINANCIAL)) {
+            builder.ltv(null).cac(null).arppu(null);
+        }
+        if (!sections.contains(MetricsSection.PRODUCTS)) {
+            builder.productPerformance(null);
+        }
+        return builder.build();
+    }
+
+    private CompleteMetricsResponse calculateSections(LocalDateTime start, LocalDateTime end, MetricsPrecision precision, String agg,
+                                                      Set<MetricsSection> sections) {
+
+        // Секции независимы: в параллельном режиме время ответа ~ самой медленной из них.
+        // Общие запросы секций (выручка периода) выполняются один раз на расчёт — см. MetricsRequestContext
+        CompletableFuture<DashboardStats> stats = submit(sections, MetricsSection.STATS, "dashboardStats", () -> getDashboardStats(start, end));
+        CompletableFuture<Map<String, Map<LocalDate, Integer>>> audience = submit(sections, MetricsSection.AUDIENCE, "audience", () -> audienceMetricsService.getAudienceMetrics(start, end, agg, precision));
+        CompletableFuture<Double> retentionRate = submit(sections, MetricsSection.RETENTION, "retentionRate", () -> retentionMetricsService.getRetentionRate(start, end));
+        CompletableFuture<BigDecimal> ltv = submit(sections, MetricsSection.FINANCIAL, "ltv", financialMetricsService::getLTV);
+        CompletableFuture<BigDecimal> cac = submit(sections, MetricsSection.FINANCIAL, "cac", () -> financialMetricsService.getCAC(start, end));
+        CompletableFuture<BigDecimal> arppu = submit(sections, MetricsSection.FINANCIAL, "arppu", () -> financialMetricsService.getARPPU(start, end, precision));
+        CompletableFuture<List<ProductPerformanceDTO>> products = submit(sections, MetricsSection.PRODUCTS, "productPerformance", () -> productMetricsService.getProductPerformance(start, end));
+        CompletableFuture<Map<LocalDate, Double>> retentionTrend = submit(sections, MetricsSection.RETENTION, "retentionTrend", () -> retentionMetricsService.getRetentionTrend(start, end, agg));
+
         return CompleteMetricsResponse.builder()
-                .dashboardStats(getDashboardStats(start, end))
-                .audienceMetrics(audienceMetricsService.getAudienceMetrics(start, end, agg))
-                .retentionRate(retentionMetricsService.getRetentionRate(start, end))
-                .ltv(financialMetricsService.getLTV())
-                .cac(financialMetricsService.getCAC(start, end))
-                .arppu(financialMetricsService.getARPPU(start, end))
-                .productPerformance(productMetricsService.getProductPerformance(start, end))
-                .retentionTrend(retentionMetricsService.getRetentionTrend(start, end, agg))
+                .precision(precision)
+                .period(new PeriodInfo(start, end))
+                .aggregation(agg)
+                .generatedAt(LocalDateTime.now())
+                .dashboardStats(sectionExecutor.await("dashboardStats", stats))
+                .audienceMetrics(sectionExecutor.await("audience", audience))
+                .retentionRate(sectionExecutor.await("retentionRate", retentionRate))
+                .ltv(sectionExecutor.await("ltv", ltv))
+                .cac(sectionExecutor.await("cac", cac))
+                .arppu(sectionExecutor.await("arppu", arppu))
+                .productPerformance(sectionExecutor.await("productPerformance", products))
+                .retentionTrend(sectionExecutor.await("retentionTrend", retentionTrend))
                 .build();
     }
-}
\ No newline at end of file
+
+    // Незапрошенная секция не запускается: её future сразу готов с null
+    private <T> CompletableFuture<T> submit(Set<MetricsSection> sections, MetricsSection section, String name,
+                                            Supplier<T> computation) {
+        return sections.contains(section) ? sectionExecutor.submit(name, computation) : CompletableFuture.completedFuture(null);
+    }
+}
@@ -0,0 +1,121 @@
+package com.linter.eduanalitycs.service;
+
+import io.micrometer.core.instrument.Tags;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/**
+ * Результаты запросов в пределах одного расчёта дашборда. Секции, которым нужен один и тот же агрегат
+ * (выручка периода для статистики и ARPPU), получают его одним запросом и ничего не знают друг о друге.
+ * <p>
+ * Контекст привязан к потоку; {@link MetricsSectionExecutor} переносит его в потоки секций.
+ * Вне контекста {@link #memo} просто выполняет запрос. Одновременный второй вызов ждёт первый,
+ * а не запускает запрос повторно; ошибка не запоминается.
+ * <p>
+ * Заодно контекст несёт метки расчёта (период, шаг агрегации) для таймеров секций и запросов.
+ */
+public final class MetricsRequestContext {
+    private static final ThreadLocal<MetricsRequestContext> CURRENT = new ThreadLocal<>();
+    private static final Tags NO_REQUEST_TAGS = Tags.of("period", "none", "aggregation", "none");
+
+    private final Tags tags;
+    private final ConcurrentMap<List<Object>, CompletableFuture<Object>> results = new ConcurrentHashMap<>();
+    private final AtomicInteger queries = new AtomicInteger();
+    private final AtomicInteger savedQueries = new AtomicInteger();
+
+    MetricsRequestContext(Tags tags) {
+        this.tags = tags;
+    }
+
+    /**
+     * Контекст расчёта, в котором выполняется поток; счётчики контекста — только его запросы.
+     */
+    public static Optional<MetricsRequestContext> current() {
+        return Optional.ofNullable(CURRENT.get());
+    }
+
+    /**
+     * Метки текущего расчёта; вне расчёта дашборда — none.
+     */
+    public static Tags currentTags() {
+        MetricsRequestContext context = CURRENT.get();
+        return context != null ? context.tags : NO_REQUEST_TAGS;
+    }
+
+    /**
+     * Результат запроса {@code query} с границами {@code bounds}: из контекста, если его уже посчитали.
+     */
+    @SuppressWarnings("unchecked")
+    public static <T> T memo(String query, Supplier<T> loader, Object... bounds) {
+        MetricsRequestContext context = CURRENT.get();
+        if (context == null) {
+            return loader.get();
+        }
+
+        List<Object> key = new ArrayList<>(bounds.length + 1);
+        key.add(query);
+        key.addAll(Arrays.asList(bounds));
+        CompletableFuture<Object> own = new CompletableFuture<>();
+        CompletableFuture<Object> existing = context.results.putIfAbsent(key, own);
+        if (existing != null) {
+            context.savedQueries.incrementAndGet();
+            try {
+                return (T) existing.join();
+            } catch (CompletionException e) {
+                throw e.getCause() instanceof RuntimeException cause ? cause : e;
+            }
+        }
+
+        context.queries.incrementAndGet();
+        try {
+            T result = loader.get();
+            own.complete(result);
+            return result;
+        } catch (RuntimeException e) {
+            context.results.remove(key, own);
+            own.completeExceptionally(e);
+            throw e;
+        }
+    }
+
+    /**
+     * Оборачивает задачу так, чтобы она выполнялась в контексте текущего потока (если он есть).
+     */
+    public static <T> Supplier<T> propagate(Supplier<T> task) {
+        MetricsRequestContext context = CURRENT.get();
+        return context == null ? task : () -> context.call(task);
+    }
+
+    <T> T call(Supplier<T> task) {
+        MetricsRequestContext previous = CURRENT.get();
+        CURRENT.set(this);
+        try {
+            return task.get();
+        } finally {
+            if (previous == null) {
+                CURRENT.remove();
+            } else {
+                CURRENT.set(previous);
+            }
+        }
+    }
+
+    // Запросы, ушедшие в базу
+    public int queries() {
+        return queries.get();
+    }
+
+    // Запросы, ответ на которые взят из контекста
+    public int savedQueries() {
+        return savedQueries.get();
+    }
+}
@@ -0,0 +1,60 @@
+package com.linter.eduanalitycs.service;
+
+import com.linter.eduanalitycs.model.dto.QueryMemoStatsDTO;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * Открывает {@link MetricsRequestContext} на расчёт и копит счётчики сэкономленных запросов
+ * для /api/metrics/diagnostics/query-memo и /actuator/prometheus.
+ */
+@Slf4j
+@Component
+public class MetricsRequestContexts implements MeterBinder {
+    private final LongAdder requests = new LongAdder();
+    private final LongAdder queries = new LongAdder();
+    private final LongAdder savedQueries = new LongAdder();
+
+    public <T> T withContext(Supplier<T> computation) {
+        return withContext(Tags.of("period", "custom", "aggregation", "none"), computation);
+    }
+
+    public <T> T withContext(Tags tags, Supplier<T> computation) {
+        MetricsRequestContext context = new MetricsRequestContext(tags);
+        try {
+            return context.call(computation);
+        } finally {
+            requests.increment();
+            queries.add(context.queries());
+            savedQueries.add(context.savedQueries());
+            log.debug("Metrics request: {} memoized queries, {} served from the request context",
+                    context.queries(), context.savedQueries());
+        }
+    }
+
+    public QueryMemoStatsDTO getStats() {
+        long executed = queries.sum();
+        long saved = savedQueries.sum();
+        long total = executed + saved;
+        return new QueryMemoStatsDTO(requests.sum(), executed, saved, total > 0 ? (double) saved / total : 0.0);
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        FunctionCounter.builder("metrics.query.memo", queries, LongAdder::sum)
+                .tag("result", "executed")
+                .description("Запросы секций дашборда, ушедшие в базу")
+                .register(registry);
+        FunctionCounter.builder("metrics.query.memo", savedQueries, LongAdder::sum)
+                .tag("result", "saved")
+                .description("Запросы секций дашборда, взятые из контекста расчёта")
+                .register(registry);
+    }
+}
@@ -0,0 +1,124 @@
+package com.linter.eduanalitycs.service;
+
+import com.linter.eduanalitycs.config.MetricsExecutionProperties;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Supplier;
+
+/**
+ * Запускает секции дашборда: каждая в своей read-only транзакции,
+ * последовательно или параллельно на виртуальных потоках.
+ * Число одновременно работающих секций ограничено, чтобы не выбрать весь пул соединений.
+ * Время каждой секции пишется в таймер metrics.section с метками секции и расчёта
+ * (период, шаг агрегации — из {@link MetricsRequestContext}); ожидание очереди не входит ни в него,
+ * ни в тайм-аут секции.
+ */
+@Slf4j
+@Component
+public class MetricsSectionExecutor implements DisposableBean {
+    private final MetricsExecutionProperties properties;
+    private final TransactionTemplate readOnlyTransaction;
+    private final ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+    private final Semaphore permits;
+    private final MeterRegistry meterRegistry;
+
+    public MetricsSectionExecutor(MetricsExecutionProperties properties, PlatformTransactionManager transactionManager,
+                                  MeterRegistry meterRegistry) {
+        this.properties = properties;
+        this.meterRegistry = meterRegistry;
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
+        // orTimeout только завершает future; тайм-аут транзакции отменяет сам запрос и освобождает соединение
+        this.readOnlyTransaction.setTimeout((int) Math.max(1, (properties.sectionTimeout().toMillis() + 999) / 1000));
+        this.permits = new Semaphore(Math.max(1, properties.maxConcurrency()), true);
+    }
+
+    public <T> CompletableFuture<T> submit(String section, Supplier<T> computation) {
+        if (!properties.parallel()) {
+            return CompletableFuture.completedFuture(timed(section, computation));
+        }
+        CompletableFuture<T> result = new CompletableFuture<>();
+        // Секции одного расчёта делят результаты запросов и на виртуальных потоках
+        Supplier<T> task = MetricsRequestContext.propagate(() -> runWithPermit(section, computation, result));
+        executor.execute(() -> {
+            try {
+                result.complete(task.get());
+            } catch (Throwable e) {
+                result.completeExceptionally(e);
+            }
+        });
+        return result;
+    }
+
+    public <T> T await(String section, CompletableFuture<T> future) {
+        try {
+            return future.join();
+        } catch (CompletionException | CancellationException e) {
+            Throwable cause = e.getCause() != null ? e.getCause() : e;
+            if (cause instanceof TimeoutException) {
+                throw new IllegalStateException("Metric section '" + section + "' timed out after " + properties.sectionTimeout(), cause);
+            }
+            if (cause instanceof RuntimeException runtimeException) {
+                throw runtimeException;
+            }
+            throw new IllegalStateException("Metric section '" + section + "' failed", cause);
+        }
+    }
+
+    private <T> T runWithPermit(String section, Supplier<T> computation, CompletableFuture<T> result) {
+        try {
+            permits.acquire();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new CancellationException("Interrupted while waiting for section " + section);
+        }
+        try {
+            // Вызывающий уже не ждёт секцию (отменил её, пока она стояла в очереди): запросы не выполняем
+            if (result.isDone()) {
+                return null;
+            }
+            // Тайм-аут отсчитывается с получения разрешения: ожидание очереди в него не входит
+            result.orTimeout(properties.sectionTimeout().toMillis(), TimeUnit.MILLISECONDS);
+            return timed(section, computation);
+        } finally {
+            permits.release();
+        }
+    }
+
+    private <T> T timed(String section, Supplier<T> computation) {
+        Timer.Sample sample = Timer.start(meterRegistry);
+        String outcome = "error";
+        try {
+            T result = readOnlyTransaction.execute(status -> computation.get());
+            outcome = "success";
+            return result;
+        } finally {
+            long nanos = sample.stop(Timer.builder("metrics.section")
+                    .description("Время секции дашборда в её транзакции")
+                    .tags(MetricsRequestContext.currentTags())
+                    .tag("section", section)
+                    .tag("outcome", outcome)
+                    .register(meterRegistry));
+            log.debug("Section {} computed in {} ms", section, TimeUnit.NANOSECONDS.toMillis(nanos));
+        }
+    }
+
+    @Override
+    public void destroy() {
+        executor.shutdownNow();
+    }
+}
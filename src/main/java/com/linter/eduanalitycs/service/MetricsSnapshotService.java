@@ -0,0 +1,150 @@
+package com.linter.eduanalitycs.service;
+
+import com.linter.eduanalitycs.event.MetricsDaysChangedEvent;
+import com.linter.eduanalitycs.model.dto.CohortGranularity;
+import com.linter.eduanalitycs.model.dto.CompleteMetricsResponse;
+import com.linter.eduanalitycs.model.dto.MetricsPeriod;
+import com.linter.eduanalitycs.model.dto.MetricsPrecision;
+import com.linter.eduanalitycs.model.dto.PeriodInfo;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.EnumMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Снимки {@link CompleteMetricsResponse} для стандартных периодов, которые отдаёт дашборд.
+ * <p>
+ * Планировщик пересчитывает только те снимки, которые затронули изменения с прошлого прохода:
+ * день внутри периода — весь снимок; день раньше начала периода — только LTV и retention rate,
+ * они считаются по всей истории заказов. Первая когорта тренда удержания начинается с недели или месяца,
+ * содержащих начало периода, поэтому дни этой недели (месяца) до начала периода тоже пересчитывают весь снимок. Снимок, период которого сдвинулся (наступили новые сутки),
+ * пересчитывается целиком. Новый набор снимков подменяет старый одной записью в ссылку.
+ * <p>
+ * Пока изменённый день ждёт прохода или пересчитывается, снимки периодов, на которые он влияет
+ * (любой день до конца периода), не отдаются — дашборд считает метрики по запросу.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class MetricsSnapshotService {
+    private final MetricsFacadeService metricsFacadeService;
+    private final FinancialMetricsService financialMetricsService;
+    private final RetentionMetricsService retentionMetricsService;
+
+    private final AtomicReference<Map<MetricsPeriod, Snapshot>> snapshots = new AtomicReference<>(Map.of());
+    private final Set<LocalDate> changedDays = new HashSet<>();
+    private boolean allDaysChanged;
+    // Дни, взятые текущим проходом: до подмены снимков они тоже делают снимки устаревшими
+    private Set<LocalDate> refreshingDays = Set.of();
+    private boolean refreshingAllDays;
+
+    private record Snapshot(PeriodInfo period, CompleteMetricsResponse metrics) {}
+
+    /**
+     * Последний снимок периода, если он посчитан для сегодняшних границ периода и с тех пор
+     * не было изменений, которые в него ещё не вошли.
+     */
+    public Optional<CompleteMetricsResponse> getSnapshot(MetricsPeriod period) {
+        Snapshot snapshot = snapshots.get().get(period);
+        if (snapshot == null || !snapshot.period().equals(period.toPeriod(LocalDate.now()))
+                || isStale(snapshot.period().end().toLocalDate())) {
+            return Optional.empty();
+        }
+        return Optional.of(snapshot.metrics());
+    }
+
+    // LTV и retention rate считаются по всей истории: снимок устаревает от любого дня до конца периода
+    private synchronized boolean isStale(LocalDate periodEnd) {
+        return allDaysChanged || refreshingAllDays
+                || changedDays.stream().anyMatch(day -> day.isBefore(periodEnd))
+                || refreshingDays.stream().anyMatch(day -> day.isBefore(periodEnd));
+    }
+
+    // После коммита: проход планировщика, начавшийся раньше, не должен «съесть» дни с ещё невидимыми данными
+    @TransactionalEventListener(fallbackExecution = true)
+    public synchronized void onDaysChanged(MetricsDaysChangedEvent event) {
+        changedDays.addAll(event.days());
+        allDaysChanged |= event.allDays();
+    }
+
+    @Scheduled(fixedDelayString = "${metrics.snapshot.refresh-interval:1m}",
+            initialDelayString = "${metrics.snapshot.initial-delay:10s}")
+    public void refresh() {
+        Set<LocalDate> days;
+        boolean allDays;
+        synchronized (this) {
+            days = Set.copyOf(changedDays);
+            allDays = allDaysChanged;
+            refreshingDays = days;
+            refreshingAllDays = allDays;
+            changedDays.clear();
+            allDaysChanged = false;
+        }
+
+        try {
+            refresh(days, allDays, LocalDate.now());
+        } catch (RuntimeException e) {
+            // Дни вернутся в следующий проход
+            onDaysChanged(new MetricsDaysChangedEvent(days, allDays));
+            log.warn("Metrics snapshot refresh failed", e);
+        } finally {
+            synchronized (this) {
+                refreshingDays = Set.of();
+                refreshingAllDays = false;
+            }
+        }
+    }
+
+    void refresh(Set<LocalDate> days, boolean allDays, LocalDate today) {
+        long startedAt = System.nanoTime();
+        Map<MetricsPeriod, Snapshot> current = snapshots.get();
+        Map<MetricsPeriod, Snapshot> next = new EnumMap<>(MetricsPeriod.class);
+        int recomputed = 0;
+
+        for (MetricsPeriod period : MetricsPeriod.values()) {
+            PeriodInfo window = period.toPeriod(today);
+            Snapshot previous = current.get(period);
+            // Тренд удержания берёт когорты с начала недели (месяца), в которую попадает начало периода
+            LocalDate from = CohortGranularity.parse(period.aggregation()).periodStart(window.start().toLocalDate());
+            LocalDate to = window.end().toLocalDate();
+
+            if (previous == null || allDays || !previous.period().equals(window)
+                    || days.stream().anyMatch(day -> !day.isBefore(from) && day.isBefore(to))) {
+                next.put(period, new Snapshot(window, snapshotOf(
+                        metricsFacadeService.calculateCompleteMetrics(window.start(), window.end(), MetricsPrecision.EXACT))));
+                recomputed++;
+            } else if (days.stream().anyMatch(day -> day.isBefore(from))) {
+                next.put(period, new Snapshot(window, snapshotOf(previous.metrics().toBuilder()
+                        .ltv(financialMetricsService.getLTV())
+                        .retentionRate(retentionMetricsService.getRetentionRate(window.start(), window.end()))
+                        .build())));
+                recomputed++;
+            } else {
+                next.put(period, previous);
+            }
+        }
+
+        snapshots.set(Map.copyOf(next));
+        if (recomputed > 0) {
+            log.info("Metrics snapshots refreshed: {} of {} in {} ms", recomputed, next.size(),
+                    (System.nanoTime() - startedAt) / 1_000_000);
+        }
+    }
+
+    private static CompleteMetricsResponse snapshotOf(CompleteMetricsResponse metrics) {
+        return metrics.toBuilder()
+                .snapshot(true)
+                .generatedAt(LocalDateTime.now())
+                .build();
+    }
+}
@@ -1,39 +1,58 @@
 package com.linter.eduanalitycs.service;
 
+import com.linter.eduanalitycs.model.dto.DayWindow;
 import com.linter.eduanalitycs.model.dto.ProductPerformanceDTO;
+import com.linter.eduanalitycs.model.dto.ProductSort;
+import com.linter.eduanalitycs.repository.DailyCourseSalesRepository;
 import com.linter.eduanalitycs.repository.OrderRepository;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
 import org.springframework.stereotype.Service;
 
-import java.math.BigDecimal;
 import java.time.LocalDateTime;
 import java.util.List;
-import java.util.stream.Collectors;
 
 @Slf4j
 @Service
 @RequiredArgsConstructor
 public class ProductMetricsService {
+    public static final int DEFAULT_TOP = 5;
+
     private final OrderRepository orderRepository;
+    private final DailyCourseSalesRepository dailyCourseSalesRepository;
 
+    // Блок «Популярные курсы» дашборда
     public List<ProductPerformanceDTO> getProductPerformance(LocalDateTime start, LocalDateTime end) {
-        log.info("Getting product performance data");
-        List<Object[]> performanceData = orderRepository.getProductPerformance(start, end);
-
-        log.info("Get product performance from repo: {}", performanceData.stream().map(Object[]::toString).collect(Collectors.joining(",")));
-        return performanceData.stream()
-                .limit(5)
-                .map(this::mapToProductPerformanceDTO)
-                .collect(Collectors.toList());
+        return getProductPerformance(start, end, ProductSort.SALES, DEFAULT_TOP);
+    }
+
+    /**
+     * Первые {@code top} курсов; сортировку и LIMIT выполняет база, а не stream().limit().
+     */
+    public List<ProductPerformanceDTO> getProductPerformance(LocalDateTime start, LocalDateTime end, ProductSort sort, int top) {
+        List<ProductPerformanceDTO> products = loadProductPerformance(start, end, sort, top);
+        log.debug("Product performance by {}: {} of top {}", sort, products.size(), top);
+        return products;
     }
 
-    private ProductPerformanceDTO mapToProductPerformanceDTO(Object[] data) {
-        Long courseId = (Long) data[0];
-        String courseName = (String) data[1];
-        Long salesCount = (Long) data[2];
-        BigDecimal revenue = (BigDecimal) data[3];
+    // Все курсы с продажами за период, для выгрузки; строк столько, сколько курсов
+    public List<ProductPerformanceDTO> getAllProductPerformance(LocalDateTime start, LocalDateTime end) {
+        return loadProductPerformance(start, end, ProductSort.SALES, 0);
+    }
+
+    // DTO собирается конструктором прямо в запросе, без разбора Object[]; top = 0 — без ограничения
+    private List<ProductPerformanceDTO> loadProductPerformance(LocalDateTime start, LocalDateTime end, ProductSort sort, int top) {
+        return DayWindow.of(start, end)
+                .map(days -> dailyCourseSalesRepository.getProductPerformance(days.from(), days.to(),
+                        page(DailyCourseSalesRepository.productPerformanceSort(sort), top)))
+                .orElseGet(() -> orderRepository.getProductPerformance(start, end,
+                        page(OrderRepository.productPerformanceSort(sort), top)));
+    }
 
-        return new ProductPerformanceDTO(courseId, courseName, salesCount, revenue);
+    private static Pageable page(Sort sort, int top) {
+        return top > 0 ? PageRequest.of(0, top, sort) : Pageable.unpaged(sort);
     }
-}
\ No newline at end of file
+}
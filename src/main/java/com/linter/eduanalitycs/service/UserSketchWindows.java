@@ -0,0 +1,99 @@
+package com.linter.eduanalitycs.service;
+
+import org.apache.datasketches.hll.HllSketch;
+import org.apache.datasketches.hll.Union;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+import java.util.function.UnaryOperator;
+
+/**
+ * Оценка уникальных пользователей по дневным HLL-скетчам — приближённый аналог {@link ActiveUserWindows}.
+ * Память не зависит от числа пользователей: объединение скетчей не больше самого крупного из них.
+ */
+public final class UserSketchWindows {
+
+    private UserSketchWindows() {
+    }
+
+    public static NavigableMap<LocalDate, Integer> estimates(NavigableMap<LocalDate, HllSketch> daily) {
+        NavigableMap<LocalDate, Integer> result = new TreeMap<>();
+        daily.forEach((date, sketch) -> result.put(date, (int) Math.round(sketch.getEstimate())));
+        return result;
+    }
+
+    public static long estimateUnion(Collection<HllSketch> sketches) {
+        Union union = new Union(maxLgK(sketches));
+        sketches.forEach(union::update);
+        return Math.round(union.getEstimate());
+    }
+
+    /**
+     * Для каждой даты — оценка уникальных пользователей за {@code days} календарных дней, заканчивающихся ею.
+     * Окно ведётся двумя стеками, как в {@link ActiveUserWindows#rolling}; вместо пересечения
+     * стеки объединяются, это O(2^lgK) на дату.
+     */
+    public static NavigableMap<LocalDate, Integer> rolling(NavigableMap<LocalDate, HllSketch> daily, int days) {
+        List<LocalDate> dates = new ArrayList<>(daily.keySet());
+        List<HllSketch> sketches = new ArrayList<>(daily.values());
+        int lgK = maxLgK(sketches);
+        NavigableMap<LocalDate, Integer> result = new TreeMap<>();
+
+        HllSketch[] suffixUnions = new HllSketch[0];
+        int frontStart = 0;
+        int frontEnd = -1;
+        Union back = new Union(lgK);
+        int oldest = 0;
+
+        for (int i = 0; i < dates.size(); i++) {
+            LocalDate date = dates.get(i);
+            back.update(sketches.get(i));
+            LocalDate windowStart = date.minusDays(days - 1);
+            while (dates.get(oldest).isBefore(windowStart)) {
+                oldest++;
+            }
+
+            if (oldest > frontEnd) {
+                suffixUnions = new HllSketch[i - oldest + 1];
+                Union accumulated = new Union(lgK);
+                for (int j = i; j >= oldest; j--) {
+                    accumulated.update(sketches.get(j));
+                    suffixUnions[j - oldest] = accumulated.getResult();
+                }
+                frontStart = oldest;
+                frontEnd = i;
+                back = new Union(lgK);
+            }
+
+            Union window = new Union(lgK);
+            window.update(suffixUnions[oldest - frontStart]);
+            window.update(back.getResult());
+            result.put(date, (int) Math.round(window.getEstimate()));
+        }
+        return result;
+    }
+
+    /**
+     * Объединяет дневные скетчи в корзины по ключу (понедельник недели, 1-е число месяца).
+     */
+    public static NavigableMap<LocalDate, HllSketch> bucket(Map<LocalDate, HllSketch> daily,
+                                                            UnaryOperator<LocalDate> bucketKey) {
+        int lgK = maxLgK(daily.values());
+        NavigableMap<LocalDate, Union> unions = new TreeMap<>();
+        daily.forEach((date, sketch) ->
+                unions.computeIfAbsent(bucketKey.apply(date), k -> new Union(lgK)).update(sketch));
+        NavigableMap<LocalDate, HllSketch> buckets = new TreeMap<>();
+        unions.forEach((date, union) -> buckets.put(date, union.getResult()));
+        return buckets;
+    }
+
+    // Скетчи разного размера (после смены relative-error) объединяются в размер самого крупного
+    private static int maxLgK(Collection<HllSketch> sketches) {
+        return sketches.stream().mapToInt(HllSketch::getLgConfigK).max().orElse(4);
+    }
+}
@@ -0,0 +1,55 @@
+-- Схема, которую раньше создавал ddl-auto: update
+
+CREATE SEQUENCE users_seq START WITH 1 INCREMENT BY 50;
+CREATE SEQUENCE orders_seq START WITH 1 INCREMENT BY 50;
+CREATE SEQUENCE courses_seq START WITH 1 INCREMENT BY 50;
+
+CREATE TABLE courses (
+    id    BIGINT         NOT NULL,
+    name  VARCHAR(255)   NOT NULL,
+    price NUMERIC(38, 2) NOT NULL,
+    CONSTRAINT pk_courses PRIMARY KEY (id)
+);
+
+CREATE TABLE users (
+    id                 BIGINT       NOT NULL,
+    name               VARCHAR(255) NOT NULL,
+    registration_date  TIMESTAMP(6) NOT NULL,
+    last_activity_date TIMESTAMP(6),
+    CONSTRAINT pk_users PRIMARY KEY (id)
+);
+
+CREATE TABLE orders (
+    id         BIGINT         NOT NULL,
+    user_id    BIGINT         NOT NULL,
+    course_id  BIGINT         NOT NULL,
+    order_date TIMESTAMP(6)   NOT NULL,
+    amount     NUMERIC(38, 2) NOT NULL,
+    CONSTRAINT pk_orders PRIMARY KEY (id),
+    CONSTRAINT fk_orders_user FOREIGN KEY (user_id) REFERENCES users (id),
+    CONSTRAINT fk_orders_course FOREIGN KEY (course_id) REFERENCES courses (id)
+);
+
+CREATE TABLE daily_sales (
+    stat_date   DATE           NOT NULL,
+    order_count BIGINT         NOT NULL,
+    revenue     NUMERIC(38, 2) NOT NULL,
+    buyer_count BIGINT         NOT NULL,
+    CONSTRAINT pk_daily_sales PRIMARY KEY (stat_date)
+);
+
+CREATE TABLE daily_course_sales (
+    stat_date   DATE           NOT NULL,
+    course_id   BIGINT         NOT NULL,
+    order_count BIGINT         NOT NULL,
+    revenue     NUMERIC(38, 2) NOT NULL,
+    buyer_count BIGINT         NOT NULL,
+    CONSTRAINT pk_daily_course_sales PRIMARY KEY (stat_date, course_id)
+);
+
+CREATE TABLE daily_users (
+    stat_date    DATE   NOT NULL,
+    new_users    BIGINT NOT NULL,
+    active_users BIGINT NOT NULL,
+    CONSTRAINT pk_daily_users PRIMARY KEY (stat_date)
+);
@@ -0,0 +1,20 @@
+-- Индексы под фильтры по периоду в OrderRepository и UserRepository.
+-- Названия совпадают с @Table(indexes) в сущностях.
+
+-- Выручка, число заказов и продажи по курсам за период: читаются из индекса без обращения к таблице
+CREATE INDEX idx_orders_date_course_amount ON orders (order_date, course_id, amount);
+
+-- Уникальные покупатели за период и покупатели до даты (удержание)
+CREATE INDEX idx_orders_date_user ON orders (order_date, user_id);
+
+-- Заказы пользователя, в т.ч. до даты; заодно индекс под внешний ключ
+CREATE INDEX idx_orders_user_date ON orders (user_id, order_date);
+
+-- Под внешний ключ на courses
+CREATE INDEX idx_orders_course ON orders (course_id);
+
+-- Активные пользователи за период (DAU/WAU/MAU, dashboard)
+CREATE INDEX idx_users_last_activity ON users (last_activity_date, id);
+
+-- Новые пользователи за период (CAC)
+CREATE INDEX idx_users_registration ON users (registration_date);
@@ -0,0 +1,24 @@
+-- Журнал заходов пользователей (только вставки) и сводка уникальных пользователей по дням
+
+CREATE SEQUENCE activity_events_seq START WITH 1 INCREMENT BY 50;
+
+CREATE TABLE activity_events (
+    id            BIGINT       NOT NULL,
+    user_id       BIGINT       NOT NULL,
+    occurred_at   TIMESTAMP(6) NOT NULL,
+    -- День события отдельной колонкой: ключ индекса, а на PostgreSQL — ключ партиционирования
+    activity_date DATE         NOT NULL,
+    CONSTRAINT pk_activity_events PRIMARY KEY (id),
+    CONSTRAINT fk_activity_events_user FOREIGN KEY (user_id) REFERENCES users (id)
+);
+
+-- Пользователи за день читаются из индекса без обращения к таблице
+CREATE INDEX idx_activity_events_date_user ON activity_events (activity_date, user_id);
+
+-- Уникальные пользователи за день: сериализованный Roaring64Bitmap
+CREATE TABLE daily_active_users (
+    stat_date  DATE   NOT NULL,
+    user_count BIGINT NOT NULL,
+    user_ids   BYTEA  NOT NULL,
+    CONSTRAINT pk_daily_active_users PRIMARY KEY (stat_date)
+);
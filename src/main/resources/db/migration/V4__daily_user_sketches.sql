@@ -0,0 +1,9 @@
+-- HLL-скетчи уникальных пользователей по дням для precision=approx:
+-- ACTIVE_USERS строится из activity_events, PAYING_USERS — из orders
+
+CREATE TABLE daily_user_sketches (
+    kind      VARCHAR(16) NOT NULL,
+    stat_date DATE        NOT NULL,
+    sketch    BYTEA       NOT NULL,
+    CONSTRAINT pk_daily_user_sketches PRIMARY KEY (kind, stat_date)
+);
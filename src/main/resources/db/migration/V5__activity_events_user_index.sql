@@ -0,0 +1,2 @@
+-- Когортная матрица читает заходы в порядке (пользователь, день)
+CREATE INDEX idx_activity_events_user_date ON activity_events (user_id, activity_date);
@@ -0,0 +1,8 @@
+-- Маркетинговые расходы по дням и каналам: CAC считается по ним, а не по константе 50000 в месяц
+
+CREATE TABLE marketing_spend (
+    spend_date DATE           NOT NULL,
+    channel    VARCHAR(64)    NOT NULL,
+    amount     NUMERIC(38, 2) NOT NULL,
+    CONSTRAINT pk_marketing_spend PRIMARY KEY (spend_date, channel)
+);
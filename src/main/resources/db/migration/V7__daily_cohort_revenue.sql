@@ -0,0 +1,12 @@
+-- Выручка за день по месяцам регистрации покупателей: накопительный LTV когорт считается без чтения orders
+
+CREATE TABLE daily_cohort_revenue (
+    stat_date    DATE           NOT NULL,
+    cohort_month DATE           NOT NULL,
+    order_count  BIGINT         NOT NULL,
+    revenue      NUMERIC(38, 2) NOT NULL,
+    CONSTRAINT pk_daily_cohort_revenue PRIMARY KEY (stat_date, cohort_month)
+);
+
+-- Выручка выбранных когорт за всю историю
+CREATE INDEX idx_daily_cohort_revenue_cohort ON daily_cohort_revenue (cohort_month, stat_date);
@@ -0,0 +1,7 @@
+-- Строка на день дневных агрегатов: пересчёт дня блокирует её (SELECT ... FOR UPDATE),
+-- чтобы параллельные транзакции не удаляли и не вставляли строки одного дня одновременно
+
+CREATE TABLE daily_rollup_locks (
+    stat_date DATE NOT NULL,
+    CONSTRAINT pk_daily_rollup_locks PRIMARY KEY (stat_date)
+);
@@ -1,6 +1,7 @@
 // Основная логика дашборда
 const dashboard = {
     currentData: null,
+    requestId: 0,
 
     init: function(data) {
         this.currentData = data;
@@ -23,6 +24,8 @@ const dashboard = {
     handlePeriodChange: async function(period) {
         const loadingSpinner = document.getElementById('loadingSpinner');
         if (loadingSpinner) loadingSpinner.style.display = 'block';
+        // Ответы на предыдущий выбор периода, пришедшие позже, не рисуем
+        const requestId = ++this.requestId;
 
         try {
             // Обновляем URL без релоада
@@ -30,31 +33,55 @@ const dashboard = {
             newUrl.searchParams.set('period', period);
             window.history.replaceState({}, '', newUrl);
 
-            // Загружаем новые данные через AJAX
-            const newData = await this.loadDataForPeriod(period);
-
-            // Обновляем интерфейс
-            this.updateDashboard(newData);
+            // Сначала дешёвые секции: карточки и продукты рисуются сразу
+            const summary = await this.loadSections(period, 'stats,financial,products');
+            if (requestId !== this.requestId) return;
+            this.currentData = summary;
+            this.renderCards(summary);
+            this.renderProducts(summary.productPerformance);
+            this.renderGeneratedAt(summary.generatedAt);
+            charts.destroy();
+
+            // Тяжёлые графики догружаются отдельно, каждый по готовности
+            await Promise.all([
+                this.loadSection(period, 'audience').then(data => {
+                    if (requestId !== this.requestId) return;
+                    this.currentData.audienceMetrics = data.audienceMetrics;
+                    charts.renderAudienceChart(data.audienceMetrics);
+                }),
+                this.loadSection(period, 'retention').then(data => {
+                    if (requestId !== this.requestId) return;
+                    this.currentData.retentionRate = data.retentionRate;
+                    this.currentData.retentionTrend = data.retentionTrend;
+                    this.renderRetentionRate(data.retentionRate);
+                    charts.renderRetentionChart(data.retentionTrend);
+                })
+            ]);
 
         } catch (error) {
             console.error('Ошибка при загрузке данных:', error);
             alert('Ошибка при загрузке данных. Проверь консоль.');
         } finally {
-            if (loadingSpinner) loadingSpinner.style.display = 'none';
+            if (loadingSpinner && requestId === this.requestId) loadingSpinner.style.display = 'none';
         }
     },
 
-    // Загрузка данных для периода (теперь AJAX)
-    loadDataForPeriod: async function(period) {
-        const response = await fetch(`/api/metrics?period=${period}`);
-        if (!response.ok) {
-            throw new Error(`HTTP error! status: ${response.status}`);
-        }
-        return await response.json();
+    // Секции /api/metrics через запятую: stats, audience, retention, financial, products
+    loadSections: async function(period, fields) {
+        return utils.api.get('/api/metrics', { period, fields });
+    },
+
+    // Одна тяжёлая секция: audience, retention или financial
+    loadSection: async function(period, section) {
+        return utils.api.get(`/api/metrics/${section}`, { period });
     },
 
-    loadDataForPeriod: async function(period) {
-        return utils.api.get('/api/metrics', { period });
+    // Время расчёта метрик; без него подпись «Обновлено» скрывается
+    renderGeneratedAt: function(generatedAt) {
+        const label = document.getElementById('generatedAtLabel');
+        if (!label) return;
+        label.classList.toggle('d-none', !generatedAt);
+        document.getElementById('generatedAt').textContent = generatedAt ? utils.formatDateTime(generatedAt) : '';
     },
 
     // Рендер списка продуктов
@@ -83,24 +110,31 @@ const dashboard = {
     updateDashboard: function(newData) {
         this.currentData = newData;
 
-        const stats = newData.dashboardStats || {};
-        const retentionRate = newData.retentionRate || 0;
-        const ltv = newData.ltv || 0;
-        const cac = newData.cac || 0;
-        const arppu = newData.arppu || 0;
+        this.renderCards(newData);
+        this.renderRetentionRate(newData.retentionRate);
+        this.renderProducts(newData.productPerformance);
+        charts.destroy();
+        charts.init(newData);
+    },
+
+    // Карточки общей статистики и финансовых метрик
+    renderCards: function(data) {
+        const stats = data.dashboardStats || {};
+        const ltv = data.ltv || 0;
+        const cac = data.cac || 0;
+        const arppu = data.arppu || 0;
 
         document.getElementById('userCount').textContent = utils.formatNumber(stats.userCount) || 0;
         document.getElementById('courseCount').textContent = utils.formatNumber(stats.courseCount) || 0;
         document.getElementById('orderCount').textContent = utils.formatNumber(stats.orderCount) || 0;
         document.getElementById('totalRevenue').textContent = utils.formatCurrency(stats.totalRevenue) || 0;
-        document.getElementById('retentionRate').textContent = utils.formatPercent(retentionRate) || 0;
         document.getElementById('ltv').textContent = utils.formatCurrency(ltv) || 0;
         document.getElementById('cac').textContent = utils.formatCurrency(cac) || 0;
         document.getElementById('arppu').textContent = utils.formatCurrency(arppu) || 0;
+    },
 
-        this.renderProducts(newData.productPerformance);
-        charts.destroy();
-        charts.init(newData);
+    renderRetentionRate: function(retentionRate) {
+        document.getElementById('retentionRate').textContent = utils.formatPercent(retentionRate || 0) || 0;
     },
 
     // Экспорт данных
@@ -18,6 +18,13 @@ const utils = {
         return new Date(dateString).toLocaleDateString('ru-RU');
     },
 
+    // Как на странице дашборда: dd.MM.yyyy HH:mm
+    formatDateTime: (dateString) => {
+        return new Date(dateString).toLocaleString('ru-RU', {
+            day: '2-digit', month: '2-digit', year: 'numeric', hour: '2-digit', minute: '2-digit'
+        }).replace(',', '');
+    },
+
     debounce: (func, delay) => {
         let timeout;
         return (...args) => {
@@ -3,7 +3,8 @@ package com.linter.eduanalitycs;
 import org.junit.jupiter.api.Test;
 import org.springframework.boot.test.context.SpringBootTest;
 
-@SpringBootTest
+// Планировщик снимков остался бы работать в закэшированном контексте во время других тестов
+@SpringBootTest(properties = "metrics.snapshot.enabled=false")
 class EduAnalitycsApplicationTests {
 
     @Test
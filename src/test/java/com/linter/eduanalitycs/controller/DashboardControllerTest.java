@@ -1,9 +1,23 @@
 package com.linter.eduanalitycs.controller;
 
+import com.linter.eduanalitycs.model.dto.CohortEvent;
+import com.linter.eduanalitycs.model.dto.CohortGranularity;
+import com.linter.eduanalitycs.model.dto.CohortMatrix;
+import com.linter.eduanalitycs.model.dto.CohortRow;
 import com.linter.eduanalitycs.model.dto.CompleteMetricsResponse;
 import com.linter.eduanalitycs.model.dto.DashboardStats;
+import com.linter.eduanalitycs.model.dto.MetricsPeriod;
+import com.linter.eduanalitycs.model.dto.MetricsPrecision;
+import com.linter.eduanalitycs.model.dto.MetricsRange;
+import com.linter.eduanalitycs.model.dto.MetricsSection;
+import com.linter.eduanalitycs.model.dto.PeriodInfo;
 import com.linter.eduanalitycs.model.dto.ProductPerformanceDTO;
+import com.linter.eduanalitycs.model.dto.ProductSort;
+import com.linter.eduanalitycs.service.CohortRetentionService;
+import com.linter.eduanalitycs.service.FinancialMetricsService;
 import com.linter.eduanalitycs.service.MetricsFacadeService;
+import com.linter.eduanalitycs.service.MetricsSnapshotService;
+import com.linter.eduanalitycs.service.ProductMetricsService;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
@@ -17,10 +31,17 @@ import java.math.BigDecimal;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.util.Arrays;
+import java.util.EnumSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Optional;
 
+import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
@@ -35,6 +56,18 @@ class DashboardControllerTest {
     @MockBean
     private MetricsFacadeService metricsFacadeService;
 
+    @MockBean
+    private CohortRetentionService cohortRetentionService;
+
+    @MockBean
+    private MetricsSnapshotService metricsSnapshotService;
+
+    @MockBean
+    private ProductMetricsService productMetricsService;
+
+    @MockBean
+    private FinancialMetricsService financialMetricsService;
+
     private CompleteMetricsResponse mockResponse;
 
     @BeforeEach
@@ -128,7 +161,7 @@ class DashboardControllerTest {
     @DisplayName("Should return metrics API response")
     void shouldReturnMetricsApiResponse() throws Exception {
         // Given
-        when(metricsFacadeService.getCompleteMetrics(any(LocalDateTime.class), any(LocalDateTime.class)))
+        when(metricsFacadeService.getCompleteMetrics(any(LocalDateTime.class), any(LocalDateTime.class), any(MetricsPrecision.class)))
                 .thenReturn(mockResponse);
 
         // When & Then
@@ -151,7 +184,7 @@ class DashboardControllerTest {
     @DisplayName("Should return metrics API with period parameter")
     void shouldReturnMetricsApiWithPeriodParameter() throws Exception {
         // Given
-        when(metricsFacadeService.getCompleteMetrics(any(LocalDateTime.class), any(LocalDateTime.class)))
+        when(metricsFacadeService.getCompleteMetrics(any(LocalDateTime.class), any(LocalDateTime.class), any(MetricsPrecision.class)))
                 .thenReturn(mockResponse);
 
         // When & Then
@@ -159,6 +192,235 @@ class DashboardControllerTest {
                 .andExpect(status().isOk())
                 .andExpect(content().contentType(MediaType.APPLICATION_JSON));
     }
-}
 
+    @Test
+    @DisplayName("Should pass approximate precision to metrics API")
+    void shouldPassApproximatePrecisionToMetricsApi() throws Exception {
+        // Given
+        when(metricsFacadeService.getCompleteMetrics(any(LocalDateTime.class), any(LocalDateTime.class), any(MetricsPrecision.class)))
+                .thenReturn(mockResponse);
+
+        // When & Then
+        mockMvc.perform(get("/api/metrics").param("precision", "approx"))
+                .andExpect(status().isOk());
+        verify(metricsFacadeService).getCompleteMetrics(any(LocalDateTime.class), any(LocalDateTime.class), eq(MetricsPrecision.APPROX));
+    }
+
+    @Test
+    @DisplayName("Should serve metrics API from the snapshot")
+    void shouldServeMetricsApiFromSnapshot() throws Exception {
+        // Given
+        when(metricsSnapshotService.getSnapshot(MetricsPeriod.LAST_7_DAYS))
+                .thenReturn(Optional.of(mockResponse.toBuilder().snapshot(true).build()));
+
+        // When & Then
+        mockMvc.perform(get("/api/metrics").param("period", "last7days"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.snapshot").value(true));
+        verify(metricsFacadeService, never()).getCompleteMetrics(any(LocalDateTime.class), any(LocalDateTime.class), any(MetricsPrecision.class));
+    }
+
+    @Test
+    @DisplayName("Should calculate only the sections listed in fields")
+    void shouldCalculateRequestedFields() throws Exception {
+        // Given
+        when(metricsFacadeService.getCompleteMetrics(any(LocalDateTime.class), any(LocalDateTime.class), any(MetricsPrecision.class),
+                any(String.class), any()))
+                .thenReturn(mockResponse.toBuilder().audienceMetrics(null).retentionRate(null).build());
+
+        // When & Then
+        mockMvc.perform(get("/api/metrics").param("fields", "products, stats"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.audienceMetrics").doesNotExist())
+                .andExpect(jsonPath("$.retentionRate").doesNotExist());
+        verify(metricsFacadeService).getCompleteMetrics(any(LocalDateTime.class), any(LocalDateTime.class), eq(MetricsPrecision.EXACT),
+                eq("week"), eq(EnumSet.of(MetricsSection.STATS, MetricsSection.PRODUCTS)));
+    }
+
+    @Test
+    @DisplayName("Should serve a single section from the snapshot")
+    void shouldServeSectionFromSnapshot() throws Exception {
+        // Given
+        when(metricsSnapshotService.getSnapshot(MetricsPeriod.LAST_30_DAYS))
+                .thenReturn(Optional.of(mockResponse.toBuilder().snapshot(true).build()));
+
+        // When & Then
+        mockMvc.perform(get("/api/metrics/retention"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.retentionRate").value(75.5))
+                .andExpect(jsonPath("$.dashboardStats").doesNotExist())
+                .andExpect(jsonPath("$.productPerformance").doesNotExist())
+                .andExpect(jsonPath("$.ltv").doesNotExist());
+    }
 
+    @Test
+    @DisplayName("Should reject an unknown section in fields")
+    void shouldRejectUnknownField() throws Exception {
+        // When & Then
+        mockMvc.perform(get("/api/metrics").param("fields", "stats,cohorts"))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    @DisplayName("Should bypass the snapshot when live metrics are requested")
+    void shouldBypassSnapshotForLiveMetrics() throws Exception {
+        // Given
+        when(metricsSnapshotService.getSnapshot(MetricsPeriod.LAST_30_DAYS))
+                .thenReturn(Optional.of(mockResponse.toBuilder().snapshot(true).build()));
+        when(metricsFacadeService.getCompleteMetrics(any(LocalDateTime.class), any(LocalDateTime.class), any(MetricsPrecision.class)))
+                .thenReturn(mockResponse);
+
+        // When & Then
+        mockMvc.perform(get("/api/metrics").param("live", "true"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.snapshot").value(false));
+        verify(metricsFacadeService).getCompleteMetrics(any(LocalDateTime.class), any(LocalDateTime.class), eq(MetricsPrecision.EXACT));
+    }
+
+    @Test
+    @DisplayName("Should calculate an explicit date range with the requested granularity")
+    void shouldCalculateExplicitRangeWithGranularity() throws Exception {
+        // Given
+        LocalDate from = LocalDate.now().minusDays(60);
+        LocalDate to = LocalDate.now().minusDays(1);
+        when(metricsFacadeService.getCompleteMetrics(any(LocalDateTime.class), any(LocalDateTime.class), any(MetricsPrecision.class), any(String.class)))
+                .thenReturn(mockResponse);
+
+        // When & Then
+        mockMvc.perform(get("/api/metrics")
+                        .param("from", from.toString())
+                        .param("to", to.toString())
+                        .param("granularity", "Month"))
+                .andExpect(status().isOk());
+        verify(metricsFacadeService).getCompleteMetrics(from.atStartOfDay(), to.plusDays(1).atStartOfDay(), MetricsPrecision.EXACT, "month");
+        verify(metricsSnapshotService, never()).getSnapshot(any(MetricsPeriod.class));
+    }
+
+    @Test
+    @DisplayName("Should drop future days and cap the length of an explicit range")
+    void shouldClampExplicitRange() {
+        // Given
+        LocalDate today = LocalDate.of(2024, 6, 30);
+
+        // When
+        PeriodInfo range = MetricsRange.customRange(LocalDate.of(2020, 1, 1), LocalDate.of(2024, 12, 31), today);
+
+        // Then - 731 days ending today
+        assertEquals(LocalDate.of(2022, 7, 1).atStartOfDay(), range.start());
+        assertEquals(LocalDate.of(2024, 7, 1).atStartOfDay(), range.end());
+    }
+
+    @Test
+    @DisplayName("Should reject an invalid explicit range, granularity or precision")
+    void shouldRejectInvalidRangeOrGranularity() throws Exception {
+        // When & Then
+        mockMvc.perform(get("/api/metrics").param("from", "2024-02-01").param("to", "2024-01-01"))
+                .andExpect(status().isBadRequest());
+        mockMvc.perform(get("/api/metrics").param("from", "2024-02-01"))
+                .andExpect(status().isBadRequest());
+        mockMvc.perform(get("/api/metrics").param("granularity", "quarter"))
+                .andExpect(status().isBadRequest());
+        mockMvc.perform(get("/api/metrics").param("precision", "aprox"))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    @DisplayName("Should bypass the snapshot when a preset is requested with a non-default granularity")
+    void shouldBypassSnapshotForNonDefaultGranularity() throws Exception {
+        // Given - last365days defaults to months
+        when(metricsSnapshotService.getSnapshot(MetricsPeriod.LAST_365_DAYS))
+                .thenReturn(Optional.of(mockResponse.toBuilder().snapshot(true).build()));
+        when(metricsFacadeService.getCompleteMetrics(any(LocalDateTime.class), any(LocalDateTime.class), any(MetricsPrecision.class), any(String.class)))
+                .thenReturn(mockResponse);
+
+        // When & Then
+        mockMvc.perform(get("/api/metrics").param("period", "last365days").param("granularity", "week"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.snapshot").value(false));
+        verify(metricsFacadeService).getCompleteMetrics(any(LocalDateTime.class), any(LocalDateTime.class), eq(MetricsPrecision.EXACT), eq("week"));
+    }
+
+    @Test
+    @DisplayName("Should return top products by revenue")
+    void shouldReturnTopProductsByRevenue() throws Exception {
+        // Given
+        when(productMetricsService.getProductPerformance(any(LocalDateTime.class), any(LocalDateTime.class), eq(ProductSort.REVENUE), eq(10)))
+                .thenReturn(List.of(new ProductPerformanceDTO(3L, "Course 3", 7L, new BigDecimal("70000"))));
+
+        // When & Then
+        mockMvc.perform(get("/api/metrics/products").param("top", "10").param("sort", "revenue"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].courseId").value(3))
+                .andExpect(jsonPath("$[0].revenue").value(70000));
+    }
+
+    @Test
+    @DisplayName("Should serve the default product rating from the snapshot")
+    void shouldServeDefaultProductsFromSnapshot() throws Exception {
+        // Given
+        when(metricsSnapshotService.getSnapshot(MetricsPeriod.LAST_7_DAYS))
+                .thenReturn(Optional.of(mockResponse.toBuilder().snapshot(true).build()));
+
+        // When & Then
+        mockMvc.perform(get("/api/metrics/products").param("period", "last7days"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].courseId").value(1))
+                .andExpect(jsonPath("$[0].salesCount").value(100));
+        verify(productMetricsService, never()).getProductPerformance(any(LocalDateTime.class), any(LocalDateTime.class),
+                any(ProductSort.class), anyInt());
+    }
+
+    @Test
+    @DisplayName("Should rate products over an explicit date range")
+    void shouldRateProductsOverExplicitRange() throws Exception {
+        // Given
+        LocalDate from = LocalDate.now().minusDays(60);
+        LocalDate to = LocalDate.now().minusDays(1);
+        when(productMetricsService.getProductPerformance(any(LocalDateTime.class), any(LocalDateTime.class), eq(ProductSort.REVENUE), eq(3)))
+                .thenReturn(List.of(new ProductPerformanceDTO(3L, "Course 3", 7L, new BigDecimal("70000"))));
+
+        // When & Then
+        mockMvc.perform(get("/api/metrics/products")
+                        .param("from", from.toString())
+                        .param("to", to.toString())
+                        .param("granularity", "week")
+                        .param("top", "3")
+                        .param("sort", "revenue"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].courseId").value(3));
+        verify(productMetricsService).getProductPerformance(from.atStartOfDay(), to.plusDays(1).atStartOfDay(), ProductSort.REVENUE, 3);
+        verify(metricsSnapshotService, never()).getSnapshot(any(MetricsPeriod.class));
+    }
+
+    @Test
+    @DisplayName("Should reject an invalid top, sort or range for products")
+    void shouldRejectInvalidTopOrSort() throws Exception {
+        mockMvc.perform(get("/api/metrics/products").param("top", "0"))
+                .andExpect(status().isBadRequest());
+        mockMvc.perform(get("/api/metrics/products").param("sort", "price"))
+                .andExpect(status().isBadRequest());
+        mockMvc.perform(get("/api/metrics/products").param("sort", "revenue").param("granularity", "hour"))
+                .andExpect(status().isBadRequest());
+        mockMvc.perform(get("/api/metrics/products").param("from", LocalDate.now().minusDays(7).toString()))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    @DisplayName("Should return monthly purchase cohorts")
+    void shouldReturnMonthlyPurchaseCohorts() throws Exception {
+        // Given
+        LocalDate january = LocalDate.of(2024, 1, 1);
+        CohortMatrix matrix = new CohortMatrix(CohortGranularity.MONTH, CohortEvent.PURCHASE,
+                List.of(CohortRow.of(january, 4, 1, new int[]{4, 1})));
+        when(cohortRetentionService.getMatrix(any(LocalDate.class), any(LocalDate.class), eq(CohortGranularity.MONTH), eq(CohortEvent.PURCHASE)))
+                .thenReturn(matrix);
+
+        // When & Then
+        mockMvc.perform(get("/api/metrics/cohorts").param("granularity", "month").param("event", "purchase"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.granularity").value("MONTH"))
+                .andExpect(jsonPath("$.cohorts[0].users").value(4))
+                .andExpect(jsonPath("$.cohorts[0].retained[1]").value(1))
+                .andExpect(jsonPath("$.cohorts[0].retentionRates[1]").value(25.0));
+    }
+}
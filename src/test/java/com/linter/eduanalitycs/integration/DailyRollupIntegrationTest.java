@@ -0,0 +1,161 @@
+package com.linter.eduanalitycs.integration;
+
+import com.linter.eduanalitycs.model.dto.MetricsPrecision;
+import com.linter.eduanalitycs.model.entity.Course;
+import com.linter.eduanalitycs.model.entity.Order;
+import com.linter.eduanalitycs.model.entity.User;
+import com.linter.eduanalitycs.model.entity.DailyCohortRevenue;
+import com.linter.eduanalitycs.repository.CourseRepository;
+import com.linter.eduanalitycs.repository.DailyCohortRevenueRepository;
+import com.linter.eduanalitycs.repository.DailySalesRepository;
+import com.linter.eduanalitycs.repository.DailyUsersRepository;
+import com.linter.eduanalitycs.repository.OrderRepository;
+import com.linter.eduanalitycs.repository.UserRepository;
+import com.linter.eduanalitycs.service.AudienceMetricsService;
+import com.linter.eduanalitycs.service.DailyRollupService;
+import com.linter.eduanalitycs.service.FinancialMetricsService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.TestPropertySource;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest
+@TestPropertySource(properties = {
+        "spring.datasource.url=jdbc:h2:mem:rolluptestdb",
+        "app.data.users=300",
+        "app.data.seed=11",
+        "metrics.snapshot.enabled=false"
+})
+@DisplayName("Daily Rollup Integration Tests")
+class DailyRollupIntegrationTest {
+
+    @Autowired
+    private DailyRollupService dailyRollupService;
+
+    @Autowired
+    private DailySalesRepository dailySalesRepository;
+
+    @Autowired
+    private DailyUsersRepository dailyUsersRepository;
+
+    @Autowired
+    private DailyCohortRevenueRepository dailyCohortRevenueRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private CourseRepository courseRepository;
+
+    @Autowired
+    private OrderRepository orderRepository;
+
+    @Autowired
+    private AudienceMetricsService audienceMetricsService;
+
+    @Autowired
+    private FinancialMetricsService financialMetricsService;
+
+    private LocalDate from;
+    private LocalDate to;
+
+    @BeforeEach
+    void setUp() {
+        dailyRollupService.rebuild();
+        to = LocalDate.now().plusDays(1);
+        from = to.minusDays(400);
+    }
+
+    @Test
+    @DisplayName("Should match raw tables after a rebuild")
+    void shouldMatchRawTablesAfterRebuild() {
+        // Then
+        assertRollupsMatchRawTables();
+    }
+
+    @Test
+    @DisplayName("Should follow inserts, date changes and deletes made through JPA")
+    void shouldFollowJpaWrites() {
+        // Given
+        Course course = courseRepository.findAll().getFirst();
+        LocalDateTime tenDaysAgo = LocalDate.now().minusDays(10).atTime(12, 0);
+        User user = userRepository.save(new User(null, "Rollup User", tenDaysAgo, tenDaysAgo, null));
+        Order order = orderRepository.save(new Order(null, user, course, tenDaysAgo, course.getPrice()));
+        assertRollupsMatchRawTables();
+
+        // When - the order moves to another day
+        order.setOrderDate(tenDaysAgo.minusDays(3));
+        orderRepository.save(order);
+
+        // Then
+        assertRollupsMatchRawTables();
+
+        // When
+        orderRepository.delete(order);
+
+        // Then
+        assertRollupsMatchRawTables();
+    }
+
+    @Test
+    @DisplayName("Should compute all-time LTV from rollups as revenue per registered user")
+    void shouldComputeLtvFromRollups() {
+        // Given
+        BigDecimal expected = orderRepository.getTotalRevenue()
+                .divide(BigDecimal.valueOf(userRepository.count()), 2, RoundingMode.HALF_UP);
+
+        // When
+        BigDecimal ltv = financialMetricsService.getLTV();
+
+        // Then
+        assertEquals(expected, ltv);
+    }
+
+    @Test
+    @DisplayName("Should keep approximate unique users close to exact counts")
+    void shouldKeepApproximateCountsCloseToExact() {
+        // Given
+        LocalDateTime start = to.minusDays(90).atStartOfDay();
+        LocalDateTime end = to.atStartOfDay();
+
+        // When
+        Map<String, Map<LocalDate, Integer>> exact = audienceMetricsService.getAudienceMetrics(start, end, "week", MetricsPrecision.EXACT);
+        Map<String, Map<LocalDate, Integer>> approx = audienceMetricsService.getAudienceMetrics(start, end, "week", MetricsPrecision.APPROX);
+
+        // Then - a few hundred users per bucket stay in the sketch's near-exact coupon mode
+        assertFalse(exact.get("MAU").isEmpty());
+        for (String metric : exact.keySet()) {
+            assertEquals(exact.get(metric).keySet(), approx.get(metric).keySet());
+            exact.get(metric).forEach((date, count) ->
+                    assertEquals(count, approx.get(metric).get(date), Math.max(1, count * 0.01), metric + " on " + date));
+        }
+        BigDecimal exactArppu = financialMetricsService.getARPPU(start, end, MetricsPrecision.EXACT);
+        BigDecimal approxArppu = financialMetricsService.getARPPU(start, end, MetricsPrecision.APPROX);
+        assertEquals(exactArppu.doubleValue(), approxArppu.doubleValue(), exactArppu.doubleValue() * 0.01);
+    }
+
+    private void assertRollupsMatchRawTables() {
+        LocalDateTime start = from.atStartOfDay();
+        LocalDateTime end = to.atStartOfDay();
+        assertEquals(orderRepository.countByOrderDateBetween(start, end), dailySalesRepository.sumOrderCount(from, to));
+        assertEquals(0, orderRepository.getTotalRevenueBetween(start, end).compareTo(dailySalesRepository.sumRevenue(from, to)));
+        assertEquals(userRepository.countByRegistrationDateBetween(start, end), dailyUsersRepository.sumNewUsers(from, to));
+        assertEquals(userRepository.countByLastActivityDateBetween(start, end), dailyUsersRepository.sumActiveUsers(from, to));
+        assertTrue(dailySalesRepository.sumRevenue(from, to).compareTo(BigDecimal.ZERO) > 0);
+        BigDecimal cohortRevenue = dailyCohortRevenueRepository.findAll().stream()
+                .filter(day -> !day.getStatDate().isBefore(from) && day.getStatDate().isBefore(to))
+                .map(DailyCohortRevenue::getRevenue)
+                .reduce(BigDecimal.ZERO, BigDecimal::add);
+        assertEquals(0, dailySalesRepository.sumRevenue(from, to).compareTo(cohortRevenue));
+    }
+}
@@ -0,0 +1,119 @@
+package com.linter.eduanalitycs.integration;
+
+import com.linter.eduanalitycs.model.entity.Course;
+import com.linter.eduanalitycs.model.entity.Order;
+import com.linter.eduanalitycs.model.entity.User;
+import com.linter.eduanalitycs.repository.CourseRepository;
+import com.linter.eduanalitycs.repository.OrderRepository;
+import com.linter.eduanalitycs.repository.UserRepository;
+import com.opencsv.CSVReader;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStreamReader;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.zip.GZIPInputStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+@TestPropertySource(properties = {
+        "spring.datasource.url=jdbc:h2:mem:exporttestdb",
+        "app.data.users=50",
+        "app.data.seed=5",
+        "metrics.snapshot.enabled=false"
+})
+@DisplayName("Export Integration Tests")
+class ExportIntegrationTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private CourseRepository courseRepository;
+
+    @Autowired
+    private OrderRepository orderRepository;
+
+    @Test
+    @DisplayName("Should stream gzipped orders of the requested days")
+    void shouldExportOrders() throws Exception {
+        // Given - a day far from the generated data
+        LocalDate day = LocalDate.now().plusYears(1);
+        User user = userRepository.findAll().getFirst();
+        Course course = courseRepository.findAll().getFirst();
+        orderRepository.save(new Order(null, user, course, day.atTime(9, 30), new BigDecimal("1500.50")));
+        orderRepository.save(new Order(null, user, course, day.plusDays(1).atTime(0, 0), new BigDecimal("10.00")));
+
+        // When
+        List<String[]> rows = export("/api/export/orders", day, day);
+
+        // Then - header and one order; the next day is outside the range
+        assertEquals(2, rows.size());
+        assertArrayEquals(new String[]{"orderId", "userId", "courseId", "courseName", "orderDate", "amount"}, rows.get(0));
+        assertEquals(String.valueOf(user.getId()), rows.get(1)[1]);
+        assertEquals(course.getName(), rows.get(1)[3]);
+        assertEquals(day.atTime(9, 30).toString(), rows.get(1)[4]);
+        assertEquals("1500.50", rows.get(1)[5]);
+    }
+
+    @Test
+    @DisplayName("Should export sales of every course and the DAU series")
+    void shouldExportAggregates() throws Exception {
+        // Given
+        LocalDate to = LocalDate.now();
+        LocalDate from = to.minusDays(90);
+        long courses = courseRepository.count();
+
+        // When
+        List<String[]> products = export("/api/export/product-performance", from, to);
+        List<String[]> dau = export("/api/export/dau", from, to);
+
+        // Then
+        assertTrue(products.size() > 1 && products.size() <= courses + 1);
+        assertEquals("revenue", products.get(0)[3]);
+        assertTrue(dau.size() > 1);
+        assertArrayEquals(new String[]{"date", "activeUsers"}, dau.get(0));
+        assertTrue(Long.parseLong(dau.get(1)[1]) > 0);
+    }
+
+    @Test
+    @DisplayName("Should reject a range that ends before it starts")
+    void shouldRejectReversedRange() throws Exception {
+        mockMvc.perform(get("/api/export/orders").param("from", "2024-02-01").param("to", "2024-01-01"))
+                .andExpect(status().isBadRequest());
+    }
+
+    private List<String[]> export(String path, LocalDate from, LocalDate to) throws Exception {
+        MvcResult started = mockMvc.perform(get(path).param("from", from.toString()).param("to", to.toString()))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        byte[] body = mockMvc.perform(asyncDispatch(started))
+                .andExpect(status().isOk())
+                .andExpect(header().string("Content-Type", "application/gzip"))
+                .andReturn().getResponse().getContentAsByteArray();
+        try (CSVReader reader = new CSVReader(new InputStreamReader(
+                new GZIPInputStream(new ByteArrayInputStream(body)), StandardCharsets.UTF_8))) {
+            return reader.readAll();
+        }
+    }
+}
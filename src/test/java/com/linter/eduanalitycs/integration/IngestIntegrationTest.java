@@ -0,0 +1,298 @@
+package com.linter.eduanalitycs.integration;
+
+import com.linter.eduanalitycs.model.entity.Course;
+import com.linter.eduanalitycs.model.entity.User;
+import com.linter.eduanalitycs.repository.ActivityEventRepository;
+import com.linter.eduanalitycs.repository.CourseRepository;
+import com.linter.eduanalitycs.repository.DailySalesRepository;
+import com.linter.eduanalitycs.repository.DailySketchRepository;
+import com.linter.eduanalitycs.repository.IngestRepository;
+import com.linter.eduanalitycs.repository.OrderRepository;
+import com.linter.eduanalitycs.repository.SequenceIdAllocator;
+import com.linter.eduanalitycs.repository.UserRepository;
+import com.linter.eduanalitycs.service.DailyRollupService;
+import com.linter.eduanalitycs.service.MarketingSpendIndex;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.roaringbitmap.longlong.Roaring64Bitmap;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+@TestPropertySource(properties = {
+        "spring.datasource.url=jdbc:h2:mem:ingesttestdb",
+        "app.data.users=50",
+        "app.data.seed=3",
+        "app.ingest.batch-size=2",
+        "metrics.snapshot.enabled=false"
+})
+@DisplayName("Ingest Integration Tests")
+class IngestIntegrationTest {
+    private static final AtomicInteger NEXT_DAY = new AtomicInteger();
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private CourseRepository courseRepository;
+
+    @Autowired
+    private OrderRepository orderRepository;
+
+    @Autowired
+    private DailySalesRepository dailySalesRepository;
+
+    @Autowired
+    private ActivityEventRepository activityEventRepository;
+
+    @Autowired
+    private MarketingSpendIndex marketingSpendIndex;
+
+    @Autowired
+    private DailySketchRepository dailySketchRepository;
+
+    @Autowired
+    private IngestRepository ingestRepository;
+
+    @Autowired
+    private SequenceIdAllocator idAllocator;
+
+    @Autowired
+    private DailyRollupService dailyRollupService;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    private User user;
+    private Course course;
+    private LocalDate day;
+
+    @BeforeEach
+    void setUp() {
+        user = userRepository.findAll().getFirst();
+        course = courseRepository.findAll().getFirst();
+        // У каждого теста свой день, чтобы дневные агрегаты не пересекались
+        day = LocalDate.now().plusDays(30 + NEXT_DAY.getAndIncrement());
+    }
+
+    @Test
+    @DisplayName("Should write NDJSON orders in batches and reject rows with unknown users")
+    void shouldIngestNdjsonOrdersInBatches() throws Exception {
+        // Given
+        long ordersBefore = orderRepository.count();
+        String body = String.join("\n",
+                order(user.getId(), "100.00"),
+                order(user.getId(), null),
+                order(999_999L, "100.00"),
+                order(user.getId(), "50.00"),
+                order(user.getId(), "25.00"));
+
+        // When / Then
+        mockMvc.perform(post("/api/ingest/orders").contentType("application/x-ndjson").content(body))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.rowsAccepted").value(4))
+                .andExpect(jsonPath("$.rowsRejected").value(1))
+                .andExpect(jsonPath("$.batches.length()").value(3))
+                .andExpect(jsonPath("$.batches[1].firstRow").value(3))
+                .andExpect(jsonPath("$.batches[1].error").value("row 3: unknown user 999999"))
+                .andExpect(jsonPath("$.batches[2].status").value("COMMITTED"));
+
+        assertEquals(ordersBefore + 4, orderRepository.count());
+        assertEquals(4, dailySalesRepository.sumOrderCount(day, day.plusDays(1)));
+    }
+
+    @Test
+    @DisplayName("Should reject orders with a negative amount")
+    void shouldRejectNegativeOrderAmount() throws Exception {
+        // Given
+        long ordersBefore = orderRepository.count();
+        String body = String.join("\n",
+                order(user.getId(), "-100.00"),
+                order(user.getId(), "40.00"));
+
+        // When / Then
+        mockMvc.perform(post("/api/ingest/orders").contentType("application/x-ndjson").content(body))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.rowsAccepted").value(1))
+                .andExpect(jsonPath("$.rowsRejected").value(1))
+                .andExpect(jsonPath("$.batches[0].error").value("row 1: negative amount -100.00"));
+
+        assertEquals(ordersBefore + 1, orderRepository.count());
+        assertEquals(0, new BigDecimal("40.00").compareTo(dailySalesRepository.sumRevenue(day, day.plusDays(1))));
+    }
+
+    @Test
+    @DisplayName("Should log CSV activity events and move last activity forward")
+    void shouldIngestCsvActivity() throws Exception {
+        // Given
+        LocalDateTime later = LocalDateTime.now().plusDays(40).withNano(0);
+        String body = "userId,activityDate\n"
+                + user.getId() + "," + later.minusDays(1) + "\n"
+                + user.getId() + "," + later + "\n";
+
+        // When / Then
+        mockMvc.perform(post("/api/ingest/activity").contentType("text/csv").content(body))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.rowsAccepted").value(2));
+
+        assertEquals(later, userRepository.findById(user.getId()).orElseThrow().getLastActivityDate());
+        var dailyActive = activityEventRepository.findDailyActiveUsers(
+                later.toLocalDate().minusDays(1), later.toLocalDate().plusDays(1));
+        assertEquals(2, dailyActive.size());
+        assertTrue(dailyActive.values().stream().allMatch(users -> users.contains(user.getId())));
+    }
+
+    @Test
+    @DisplayName("Should stop at a malformed line and keep the batches already committed")
+    void shouldStopAtMalformedLine() throws Exception {
+        // Given
+        long ordersBefore = orderRepository.count();
+        String body = String.join("\n",
+                order(user.getId(), "10.00"),
+                order(user.getId(), "10.00"),
+                "{not json",
+                order(user.getId(), "10.00"));
+
+        // When / Then
+        mockMvc.perform(post("/api/ingest/orders").contentType("application/x-ndjson").content(body))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.rowsAccepted").value(2))
+                .andExpect(jsonPath("$.batches[0].status").value("COMMITTED"))
+                .andExpect(jsonPath("$.batches[1].status").value("FAILED"))
+                .andExpect(jsonPath("$.batches[1].firstRow").value(3));
+
+        assertEquals(ordersBefore + 2, orderRepository.count());
+    }
+
+    @Test
+    @DisplayName("Should upsert marketing spend and use it for CAC")
+    void shouldIngestMarketingSpend() throws Exception {
+        // Given - the second load of the same day and channel replaces the amount
+        String body = "date,channel,amount\n"
+                + day + ",ads,300.00\n"
+                + day + ",email,200.00\n"
+                + day + ",ads,100.00\n"
+                + day + ",ads,-1\n";
+
+        // When / Then
+        mockMvc.perform(post("/api/ingest/marketing-spend").contentType("text/csv").content(body))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.rowsAccepted").value(3))
+                .andExpect(jsonPath("$.rowsRejected").value(1));
+
+        assertEquals(new BigDecimal("300.00"), marketingSpendIndex.costOf(day, day.plusDays(1)));
+    }
+
+    private String order(long userId, String amount) {
+        return "{\"userId\":" + userId + ",\"courseId\":" + course.getId()
+                + ",\"orderDate\":\"" + day.atTime(10, 0) + "\""
+                + (amount != null ? ",\"amount\":" + amount : "") + "}";
+    }
+
+    @Test
+    @DisplayName("Should keep both loads' users when two transactions create the same day's summary")
+    void shouldMergeConcurrentFirstLoadsOfDay() throws Exception {
+        // Given - the first load inserts the day and holds its transaction open
+        CountDownLatch inserted = new CountDownLatch(1);
+        CompletableFuture<Void> first = CompletableFuture.runAsync(() -> transactionTemplate.executeWithoutResult(status -> {
+            activityEventRepository.mergeDailyActiveUsers(Map.of(day, Roaring64Bitmap.bitmapOf(1)));
+            inserted.countDown();
+            pause();
+        }));
+        inserted.await();
+
+        // When - the second load finds no committed row for the day either
+        transactionTemplate.executeWithoutResult(status ->
+                activityEventRepository.mergeDailyActiveUsers(Map.of(day, Roaring64Bitmap.bitmapOf(2))));
+        first.get();
+
+        // Then
+        assertArrayEquals(new long[]{1, 2},
+                activityEventRepository.findDailyActiveUsers(day, day.plusDays(1)).get(day).toArray());
+    }
+
+    @Test
+    @DisplayName("Should merge both loads' sketches when two transactions create the same day")
+    void shouldMergeConcurrentFirstSketchesOfDay() throws Exception {
+        // Given
+        CountDownLatch inserted = new CountDownLatch(1);
+        CompletableFuture<Void> first = CompletableFuture.runAsync(() -> transactionTemplate.executeWithoutResult(status -> {
+            dailySketchRepository.addUsers(DailySketchRepository.Kind.PAYING_USERS, Map.of(day, Roaring64Bitmap.bitmapOf(1)));
+            inserted.countDown();
+            pause();
+        }));
+        inserted.await();
+
+        // When
+        transactionTemplate.executeWithoutResult(status ->
+                dailySketchRepository.addUsers(DailySketchRepository.Kind.PAYING_USERS, Map.of(day, Roaring64Bitmap.bitmapOf(2))));
+        first.get();
+
+        // Then - HLL is exact for two users
+        assertEquals(2.0, dailySketchRepository.find(DailySketchRepository.Kind.PAYING_USERS, day, day.plusDays(1))
+                .get(day).getEstimate(), 0.01);
+    }
+
+    @Test
+    @DisplayName("Should serialize two transactions refreshing the same day's rollups")
+    void shouldSerializeConcurrentRollupRefreshesOfDay() throws Exception {
+        // Given - the first write refreshes the day and holds its transaction open
+        CountDownLatch refreshed = new CountDownLatch(1);
+        CompletableFuture<Void> first = CompletableFuture.runAsync(() -> transactionTemplate.executeWithoutResult(status -> {
+            insertOrderAndRefresh(new BigDecimal("100.00"));
+            refreshed.countDown();
+            pause();
+        }));
+        refreshed.await();
+
+        // When - the second write finds no committed rollup rows for the day either
+        transactionTemplate.executeWithoutResult(status -> insertOrderAndRefresh(new BigDecimal("50.00")));
+        first.get();
+
+        // Then - the second refresh ran after the first commit and counted both orders
+        assertEquals(2, dailySalesRepository.sumOrderCount(day, day.plusDays(1)));
+        assertEquals(0, new BigDecimal("150.00").compareTo(dailySalesRepository.sumRevenue(day, day.plusDays(1))));
+        assertEquals(1.0, dailySketchRepository.find(DailySketchRepository.Kind.PAYING_USERS, day, day.plusDays(1))
+                .get(day).getEstimate(), 0.01);
+    }
+
+    private void insertOrderAndRefresh(BigDecimal amount) {
+        long id = idAllocator.allocate(SequenceIdAllocator.ORDERS_SEQUENCE, 1)[0];
+        ingestRepository.insertOrders(List.<Object[]>of(
+                new Object[]{id, user.getId(), course.getId(), Timestamp.valueOf(day.atTime(12, 0)), amount}));
+        dailyRollupService.refresh(Set.of(day));
+    }
+
+    private static void pause() {
+        try {
+            Thread.sleep(300);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
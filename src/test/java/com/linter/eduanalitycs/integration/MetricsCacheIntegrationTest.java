@@ -0,0 +1,122 @@
+package com.linter.eduanalitycs.integration;
+
+import com.linter.eduanalitycs.config.CacheConfig;
+import com.linter.eduanalitycs.model.dto.CacheStatsDTO;
+import com.linter.eduanalitycs.model.dto.CompleteMetricsResponse;
+import com.linter.eduanalitycs.model.entity.Course;
+import com.linter.eduanalitycs.model.entity.Order;
+import com.linter.eduanalitycs.model.entity.User;
+import com.linter.eduanalitycs.repository.CourseRepository;
+import com.linter.eduanalitycs.repository.OrderRepository;
+import com.linter.eduanalitycs.repository.UserRepository;
+import com.linter.eduanalitycs.service.MetricsCacheService;
+import com.linter.eduanalitycs.service.MetricsFacadeService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.caffeine.CaffeineCache;
+import org.springframework.test.context.TestPropertySource;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest
+@TestPropertySource(properties = {
+        "spring.datasource.url=jdbc:h2:mem:cachetestdb",
+        "spring.jpa.hibernate.ddl-auto=create-drop",
+        "metrics.snapshot.enabled=false"
+})
+@DisplayName("Metrics Cache Integration Tests")
+class MetricsCacheIntegrationTest {
+
+    @Autowired
+    private MetricsFacadeService metricsFacadeService;
+
+    @Autowired
+    private MetricsCacheService metricsCacheService;
+
+    @Autowired
+    private CacheManager cacheManager;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private CourseRepository courseRepository;
+
+    @Autowired
+    private OrderRepository orderRepository;
+
+    private LocalDateTime start;
+    private LocalDateTime end;
+
+    @BeforeEach
+    void setUp() {
+        metricsCacheService.invalidateAll();
+        LocalDate today = LocalDate.now();
+        start = today.minusDays(30).atStartOfDay();
+        end = today.plusDays(1).atStartOfDay();
+    }
+
+    @Test
+    @DisplayName("Should serve repeated requests for the same period from cache")
+    void shouldServeRepeatedRequestsFromCache() {
+        // Given
+        CacheStatsDTO before = completeMetricsStats();
+
+        // When
+        CompleteMetricsResponse first = metricsFacadeService.getCompleteMetrics(start, end);
+        CompleteMetricsResponse second = metricsFacadeService.getCompleteMetrics(start.plusSeconds(5), end.plusSeconds(5));
+
+        // Then
+        CacheStatsDTO after = completeMetricsStats();
+        assertSame(first, second);
+        assertEquals(1, after.missCount() - before.missCount());
+        assertEquals(1, after.hitCount() - before.hitCount());
+    }
+
+    @Test
+    @DisplayName("Should invalidate cached metrics when an order is written")
+    void shouldInvalidateCacheWhenOrderIsWritten() {
+        // Given
+        CompleteMetricsResponse cached = metricsFacadeService.getCompleteMetrics(start, end);
+        long ordersBefore = cached.getDashboardStats().getOrderCount();
+
+        Course course = courseRepository.save(new Course(null, "Cache Course", new BigDecimal("1000")));
+        User user = userRepository.save(new User(null, "Cache User", LocalDateTime.now().minusDays(1), LocalDateTime.now(), null));
+
+        // When
+        orderRepository.save(new Order(null, user, course, LocalDateTime.now(), course.getPrice()));
+        CompleteMetricsResponse refreshed = metricsFacadeService.getCompleteMetrics(start, end);
+
+        // Then
+        assertNotSame(cached, refreshed);
+        assertEquals(ordersBefore + 1, refreshed.getDashboardStats().getOrderCount());
+    }
+
+    @Test
+    @DisplayName("Should keep closed cohort rows without a write TTL")
+    void shouldKeepCohortRowsWithoutWriteTtl() {
+        // When
+        var cohortRows = ((CaffeineCache) cacheManager.getCache(CacheConfig.COHORT_ROWS_CACHE)).getNativeCache();
+        var completeMetrics = ((CaffeineCache) cacheManager.getCache(CacheConfig.COMPLETE_METRICS_CACHE)).getNativeCache();
+
+        // Then
+        assertTrue(cohortRows.policy().expireAfterWrite().isEmpty());
+        assertEquals(500, cohortRows.policy().eviction().orElseThrow().getMaximum());
+        assertTrue(completeMetrics.policy().expireAfterWrite().isPresent());
+    }
+
+    private CacheStatsDTO completeMetricsStats() {
+        return metricsCacheService.getStats().stream()
+                .filter(stats -> stats.cacheName().equals(CacheConfig.COMPLETE_METRICS_CACHE))
+                .findFirst()
+                .orElseThrow();
+    }
+}
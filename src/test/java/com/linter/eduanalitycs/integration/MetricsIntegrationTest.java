@@ -1,23 +1,30 @@
 package com.linter.eduanalitycs.integration;
 
 import com.linter.eduanalitycs.model.dto.CompleteMetricsResponse;
+import com.linter.eduanalitycs.model.dto.MetricsPrecision;
+import com.linter.eduanalitycs.model.dto.MetricsSection;
 import com.linter.eduanalitycs.model.entity.Course;
 import com.linter.eduanalitycs.model.entity.Order;
 import com.linter.eduanalitycs.model.entity.User;
 import com.linter.eduanalitycs.repository.CourseRepository;
 import com.linter.eduanalitycs.repository.OrderRepository;
 import com.linter.eduanalitycs.repository.UserRepository;
+import com.linter.eduanalitycs.service.FinancialMetricsService;
 import com.linter.eduanalitycs.service.MetricsFacadeService;
+import com.linter.eduanalitycs.service.MetricsRequestContext;
+import com.linter.eduanalitycs.service.MetricsRequestContexts;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.test.context.TestPropertySource;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
+import java.util.EnumSet;
 
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -25,7 +32,10 @@ import static org.junit.jupiter.api.Assertions.*;
 @TestPropertySource(properties = {
         "spring.jpa.hibernate.ddl-auto=create-drop",
         "spring.datasource.url=jdbc:h2:mem:testdb",
-        "spring.jpa.show-sql=false"
+        "spring.jpa.show-sql=false",
+        // Фикстуры живут в транзакции теста и не видны секциям в собственных потоках
+        "metrics.execution.parallel=false",
+        "metrics.snapshot.enabled=false"
 })
 @Transactional
 @DisplayName("Metrics Integration Tests")
@@ -34,6 +44,12 @@ class MetricsIntegrationTest {
     @Autowired
     private MetricsFacadeService metricsFacadeService;
 
+    @Autowired
+    private FinancialMetricsService financialMetricsService;
+
+    @Autowired
+    private MetricsRequestContexts metricsRequestContexts;
+
     @Autowired
     private UserRepository userRepository;
 
@@ -43,6 +59,9 @@ class MetricsIntegrationTest {
     @Autowired
     private OrderRepository orderRepository;
 
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
     private User user1;
     private User user2;
     private User user3;
@@ -54,6 +73,7 @@ class MetricsIntegrationTest {
     @BeforeEach
     void setUp() {
         // Clear existing data
+        jdbcTemplate.update("DELETE FROM activity_events");
         orderRepository.deleteAll();
         userRepository.deleteAll();
         courseRepository.deleteAll();
@@ -88,6 +108,39 @@ class MetricsIntegrationTest {
         orderRepository.save(order4);
     }
 
+    @Test
+    @DisplayName("Should read the period's order summary once for stats and ARPPU")
+    void shouldShareOrderSummaryBetweenSections() {
+        // When - counters of this calculation only, not the process-wide ones
+        int savedQueries = metricsRequestContexts.withContext(() -> {
+            metricsFacadeService.getDashboardStats(testStart, testEnd);
+            financialMetricsService.getARPPU(testStart, testEnd, MetricsPrecision.EXACT);
+            return MetricsRequestContext.current().orElseThrow().savedQueries();
+        });
+        CompleteMetricsResponse response = metricsFacadeService.calculateCompleteMetrics(testStart, testEnd, MetricsPrecision.EXACT);
+
+        // Then - 26000 from 3 buyers
+        assertEquals(1, savedQueries);
+        assertEquals(4, response.getDashboardStats().getOrderCount());
+        assertEquals(new BigDecimal("8666.67"), response.getArppu());
+    }
+
+    @Test
+    @DisplayName("Should calculate only the requested sections")
+    void shouldCalculateOnlyRequestedSections() {
+        // When
+        CompleteMetricsResponse response = metricsFacadeService.calculateCompleteMetrics(testStart, testEnd,
+                MetricsPrecision.EXACT, "day", EnumSet.of(MetricsSection.PRODUCTS));
+
+        // Then
+        assertEquals(2, response.getProductPerformance().size());
+        assertNull(response.getDashboardStats());
+        assertNull(response.getAudienceMetrics());
+        assertNull(response.getRetentionRate());
+        assertNull(response.getRetentionTrend());
+        assertNull(response.getArppu());
+    }
+
     @Test
     @DisplayName("Should get complete metrics with real data")
     void shouldGetCompleteMetricsWithRealData() {
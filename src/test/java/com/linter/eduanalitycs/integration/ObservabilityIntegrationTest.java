@@ -0,0 +1,97 @@
+package com.linter.eduanalitycs.integration;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.actuate.observability.AutoConfigureObservability;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.time.LocalDate;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+@AutoConfigureObservability
+@TestPropertySource(properties = {
+        "spring.datasource.url=jdbc:h2:mem:observabilitytestdb",
+        "app.data.users=50",
+        "app.data.seed=3",
+        "metrics.snapshot.enabled=false"
+})
+@DisplayName("Observability Integration Tests")
+class ObservabilityIntegrationTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Test
+    @DisplayName("Should expose section, repository, HTTP, pool and cache metrics to Prometheus")
+    void shouldExposeDashboardMetrics() throws Exception {
+        // Given - a live calculation of a standard window
+        mockMvc.perform(get("/api/metrics").param("period", "last90days").param("live", "true"))
+                .andExpect(status().isOk());
+
+        // When
+        String scrape = mockMvc.perform(get("/actuator/prometheus"))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+
+        // Then
+        assertTrue(scrape.contains("metrics_section_seconds_count{aggregation=\"week\",application=\"edu-analitycs\",outcome=\"success\",period=\"last90days\",section=\"dashboardStats\"}"), scrape);
+        assertTrue(scrape.contains("metrics_repository_query_seconds_count{aggregation=\"week\",application=\"edu-analitycs\",method=\"countDistinctPayingUsers\",outcome=\"success\",period=\"last90days\",repository=\"OrderRepository\"}"));
+        assertTrue(scrape.contains("metrics_repository_rows"));
+        assertTrue(scrape.contains("http_server_requests_seconds_count{aggregation=\"week\",application=\"edu-analitycs\",error=\"none\",exception=\"none\",method=\"GET\",outcome=\"SUCCESS\",period=\"last90days\",status=\"200\",uri=\"/api/metrics\"}"));
+        assertTrue(scrape.contains("hikaricp_connections_pending"));
+        assertTrue(scrape.contains("cache_gets_total{application=\"edu-analitycs\",cache=\"completeMetrics\""));
+        assertTrue(scrape.contains("metrics_query_memo_total{application=\"edu-analitycs\",result=\"saved\"}"));
+    }
+
+    @Test
+    @DisplayName("Should tag HTTP requests with the effective custom window and granularity")
+    void shouldTagCustomWindowRequests() throws Exception {
+        // Given - 10 days with an explicit daily step
+        LocalDate to = LocalDate.now().minusDays(1);
+        mockMvc.perform(get("/api/metrics")
+                        .param("from", to.minusDays(9).toString())
+                        .param("to", to.toString())
+                        .param("granularity", "day")
+                        .param("fields", "stats"))
+                .andExpect(status().isOk());
+
+        // When
+        String scrape = mockMvc.perform(get("/actuator/prometheus"))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+
+        // Then
+        assertTrue(scrape.contains("http_server_requests_seconds_count{aggregation=\"day\",application=\"edu-analitycs\",error=\"none\",exception=\"none\",method=\"GET\",outcome=\"SUCCESS\",period=\"custom\",status=\"200\",uri=\"/api/metrics\"}"), scrape);
+    }
+
+    @Test
+    @DisplayName("Should leave window tags of requests outside /api/metrics at none")
+    void shouldNotTagWindowOutsideMetricsApi() throws Exception {
+        // Given - the export validates from/to itself, the dashboard range rules do not apply to it
+        mockMvc.perform(get("/api/export/orders").param("from", "2024-02-01").param("to", "2024-01-01"))
+                .andExpect(status().isBadRequest());
+
+        // When
+        String scrape = mockMvc.perform(get("/actuator/prometheus"))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+
+        // Then
+        List<String> exportSeries = scrape.lines()
+                .filter(line -> line.startsWith("http_server_requests_seconds_count") && line.contains("uri=\"/api/export/orders\""))
+                .toList();
+        assertFalse(exportSeries.isEmpty(), scrape);
+        assertTrue(exportSeries.stream().allMatch(line -> line.contains("aggregation=\"none\"") && line.contains("period=\"none\"")),
+                exportSeries.toString());
+    }
+}
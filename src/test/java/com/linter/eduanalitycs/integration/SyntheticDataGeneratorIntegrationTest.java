@@ -0,0 +1,73 @@
+package com.linter.eduanalitycs.integration;
+
+import com.linter.eduanalitycs.model.entity.Course;
+import com.linter.eduanalitycs.model.entity.Order;
+import com.linter.eduanalitycs.model.entity.User;
+import com.linter.eduanalitycs.repository.CourseRepository;
+import com.linter.eduanalitycs.repository.OrderRepository;
+import com.linter.eduanalitycs.repository.UserRepository;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.TestPropertySource;
+
+import java.time.LocalDateTime;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest
+@TestPropertySource(properties = {
+        "spring.datasource.url=jdbc:h2:mem:generatortestdb",
+        "app.data.users=2500",
+        "app.data.chunk-size=1000",
+        "app.data.batch-size=300",
+        "app.data.threads=3",
+        "app.data.seed=7",
+        "metrics.snapshot.enabled=false"
+})
+@DisplayName("Synthetic Data Generator Integration Tests")
+class SyntheticDataGeneratorIntegrationTest {
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private CourseRepository courseRepository;
+
+    @Autowired
+    private OrderRepository orderRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    @DisplayName("Should generate the configured number of users with orders only in the past")
+    void shouldGenerateConfiguredUsersAndOrders() {
+        // Then
+        assertEquals(2500, userRepository.count());
+        assertTrue(orderRepository.count() > 0);
+        assertEquals(0, jdbcTemplate.queryForObject(
+                "SELECT COUNT(*) FROM orders WHERE order_date > CURRENT_TIMESTAMP", Long.class));
+        assertEquals(0, jdbcTemplate.queryForObject(
+                "SELECT COUNT(*) FROM users WHERE last_activity_date < registration_date", Long.class));
+    }
+
+    @Test
+    @DisplayName("Should not hand out ids already used by generated rows")
+    void shouldNotReuseGeneratedIds() {
+        // Given
+        Course course = courseRepository.findAll().getFirst();
+        long maxUserId = jdbcTemplate.queryForObject("SELECT MAX(id) FROM users", Long.class);
+        long maxOrderId = jdbcTemplate.queryForObject("SELECT MAX(id) FROM orders", Long.class);
+
+        // When
+        User user = userRepository.save(new User(null, "JPA User", LocalDateTime.now().minusDays(1), LocalDateTime.now(), null));
+        Order order = orderRepository.save(new Order(null, user, course, LocalDateTime.now(), course.getPrice()));
+
+        // Then
+        assertTrue(user.getId() > maxUserId);
+        assertTrue(order.getId() > maxOrderId);
+    }
+}
@@ -0,0 +1,112 @@
+package com.linter.eduanalitycs.repository;
+
+import com.linter.eduanalitycs.model.entity.User;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.roaringbitmap.longlong.Roaring64Bitmap;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.TestPropertySource;
+
+import java.sql.Date;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DataJpaTest
+@Import(ActivityEventRepository.class)
+@TestPropertySource(properties = {
+        "spring.jpa.hibernate.ddl-auto=validate",
+        "spring.datasource.url=jdbc:h2:mem:activitytestdb"
+})
+@DisplayName("ActivityEventRepository Tests")
+class ActivityEventRepositoryTest {
+
+    @Autowired
+    private TestEntityManager entityManager;
+
+    @Autowired
+    private ActivityEventRepository activityEventRepository;
+
+    private User user1;
+    private User user2;
+    private LocalDate day;
+    private long nextEventId;
+
+    @BeforeEach
+    void setUp() {
+        day = LocalDate.of(2024, 3, 1);
+        user1 = entityManager.persist(new User(null, "User 1", day.atStartOfDay(), day.atStartOfDay(), null));
+        user2 = entityManager.persist(new User(null, "User 2", day.atStartOfDay(), day.atStartOfDay(), null));
+        entityManager.flush();
+        nextEventId = 1;
+    }
+
+    @Test
+    @DisplayName("Should count a user on every day they were active")
+    void shouldCountUserOnEveryActiveDay() {
+        // Given - user 1 every day, user 2 twice on the second day
+        insertEvents(
+                event(user1, day.atTime(9, 0)),
+                event(user1, day.plusDays(1).atTime(9, 0)),
+                event(user1, day.plusDays(2).atTime(9, 0)),
+                event(user2, day.plusDays(1).atTime(10, 0)),
+                event(user2, day.plusDays(1).atTime(18, 0)));
+
+        // When
+        activityEventRepository.rebuildDailyActiveUsers(day, day.plusDays(3));
+        NavigableMap<LocalDate, Roaring64Bitmap> daily = activityEventRepository.findDailyActiveUsers(day, day.plusDays(3));
+
+        // Then
+        assertEquals(3, daily.size());
+        assertEquals(1, daily.get(day).getLongCardinality());
+        assertEquals(2, daily.get(day.plusDays(1)).getLongCardinality());
+        assertEquals(1, daily.get(day.plusDays(2)).getLongCardinality());
+    }
+
+    @Test
+    @DisplayName("Should merge new users into an existing day summary")
+    void shouldMergeNewUsersIntoDaySummary() {
+        // Given
+        activityEventRepository.mergeDailyActiveUsers(Map.of(day, Roaring64Bitmap.bitmapOf(user1.getId())));
+
+        // When
+        activityEventRepository.mergeDailyActiveUsers(Map.of(day, Roaring64Bitmap.bitmapOf(user1.getId(), user2.getId())));
+
+        // Then
+        Roaring64Bitmap users = activityEventRepository.findDailyActiveUsers(day, day.plusDays(1)).get(day);
+        assertEquals(Roaring64Bitmap.bitmapOf(user1.getId(), user2.getId()), users);
+    }
+
+    @Test
+    @DisplayName("Should read only days inside the half-open range")
+    void shouldReadOnlyDaysInsideRange() {
+        // Given
+        activityEventRepository.mergeDailyActiveUsers(Map.of(
+                day, Roaring64Bitmap.bitmapOf(user1.getId()),
+                day.plusDays(1), Roaring64Bitmap.bitmapOf(user2.getId())));
+
+        // When
+        NavigableMap<LocalDate, Roaring64Bitmap> daily = activityEventRepository.findDailyActiveUsers(day.plusDays(1), day.plusDays(2));
+
+        // Then
+        assertEquals(List.of(day.plusDays(1)), new ArrayList<>(daily.keySet()));
+    }
+
+    private Object[] event(User user, LocalDateTime occurredAt) {
+        return new Object[]{nextEventId++, user.getId(), Timestamp.valueOf(occurredAt), Date.valueOf(occurredAt.toLocalDate())};
+    }
+
+    private void insertEvents(Object[]... events) {
+        activityEventRepository.insertEvents(List.of(events));
+    }
+}
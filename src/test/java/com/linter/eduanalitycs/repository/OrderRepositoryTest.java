@@ -1,5 +1,9 @@
 package com.linter.eduanalitycs.repository;
 
+import com.linter.eduanalitycs.model.dto.OrderExportRow;
+import com.linter.eduanalitycs.model.dto.OrderRangeSummary;
+import com.linter.eduanalitycs.model.dto.ProductPerformanceDTO;
+import com.linter.eduanalitycs.model.dto.ProductSort;
 import com.linter.eduanalitycs.model.entity.Course;
 import com.linter.eduanalitycs.model.entity.Order;
 import com.linter.eduanalitycs.model.entity.User;
@@ -9,11 +13,14 @@ import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
 import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
 import org.springframework.test.context.TestPropertySource;
 
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
 import java.util.List;
+import java.util.stream.Stream;
 
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -129,17 +136,36 @@ class OrderRepositoryTest {
     }
 
     @Test
-    @DisplayName("Should count distinct paying users between dates")
+    @DisplayName("Should summarize orders, revenue and paying users in one query")
+    void shouldGetRangeSummary() {
+        // Given
+        LocalDateTime start = LocalDateTime.now().minusDays(15);
+        LocalDateTime end = LocalDateTime.now();
+
+        // When
+        OrderRangeSummary summary = orderRepository.getRangeSummary(start, end);
+
+        // Then
+        assertEquals(orderRepository.countByOrderDateBetween(start, end), summary.orderCount());
+        assertEquals(0, new BigDecimal("18000").compareTo(summary.revenue()));
+        assertEquals(2, summary.buyerCount());
+    }
+
+    @Test
+    @DisplayName("Should count distinct paying users in a half-open range")
     void shouldCountDistinctPayingUsersBetweenDates() {
         // Given
         LocalDateTime start = LocalDateTime.now().minusDays(15);
         LocalDateTime end = LocalDateTime.now();
 
         // When
-        long payingUsers = orderRepository.countDistinctPayingUsersBetween(start, end);
+        long payingUsers = orderRepository.countDistinctPayingUsers(start, end);
 
         // Then
         assertEquals(2, payingUsers); // user1 and user2
+        entityManager.clear();
+        LocalDateTime order3Date = orderRepository.findById(order3.getId()).orElseThrow().getOrderDate();
+        assertEquals(1, orderRepository.countDistinctPayingUsers(start, order3Date)); // order3 is at the end bound
     }
 
     @Test
@@ -150,16 +176,34 @@ class OrderRepositoryTest {
         LocalDateTime end = LocalDateTime.now();
 
         // When
-        List<Object[]> performance = orderRepository.getProductPerformance(start, end);
+        List<ProductPerformanceDTO> performance = orderRepository.getProductPerformance(start, end,
+                Pageable.unpaged(OrderRepository.productPerformanceSort(ProductSort.SALES)));
 
         // Then
         assertNotNull(performance);
         assertTrue(performance.size() >= 2);
 
         // Check first product (should be course1 with 2 orders)
-        Object[] firstProduct = performance.get(0);
-        assertNotNull(firstProduct);
-        assertEquals(2, firstProduct.length >= 3 ? ((Number) firstProduct[2]).longValue() : 0);
+        ProductPerformanceDTO firstProduct = performance.get(0);
+        assertEquals(course1.getId(), firstProduct.getCourseId());
+        assertEquals(2L, firstProduct.getSalesCount());
+        assertEquals(0, new BigDecimal("10000").compareTo(firstProduct.getRevenue()));
+    }
+
+    @Test
+    @DisplayName("Should return the top course by revenue with a database limit")
+    void shouldLimitProductPerformanceByRevenue() {
+        // Given
+        LocalDateTime start = LocalDateTime.now().minusDays(15);
+        LocalDateTime end = LocalDateTime.now();
+
+        // When
+        List<ProductPerformanceDTO> performance = orderRepository.getProductPerformance(start, end,
+                PageRequest.of(0, 1, OrderRepository.productPerformanceSort(ProductSort.REVENUE)));
+
+        // Then - course1 sold twice for 10000, course2 once for 8000
+        assertEquals(1, performance.size());
+        assertEquals(course1.getId(), performance.get(0).getCourseId());
     }
 
     @Test
@@ -187,5 +231,25 @@ class OrderRepositoryTest {
         assertNotNull(revenue);
         assertEquals(BigDecimal.ZERO, revenue);
     }
-}
 
+    @Test
+    @DisplayName("Should stream export rows in date order with the course name")
+    void shouldStreamOrdersForExport() {
+        // Given
+        LocalDateTime start = LocalDateTime.now().minusDays(6);
+        LocalDateTime end = LocalDateTime.now().plusDays(1);
+
+        // When
+        List<OrderExportRow> rows;
+        try (Stream<OrderExportRow> stream = orderRepository.streamForExport(start, end)) {
+            rows = stream.toList();
+        }
+
+        // Then
+        assertEquals(2, rows.size());
+        assertEquals(order2.getId(), rows.get(0).orderId());
+        assertEquals("Python Advanced", rows.get(0).courseName());
+        assertEquals(user2.getId(), rows.get(1).userId());
+        assertEquals(0, new BigDecimal("5000").compareTo(rows.get(1).amount()));
+    }
+}
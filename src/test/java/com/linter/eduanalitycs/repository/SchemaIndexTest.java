@@ -0,0 +1,105 @@
+package com.linter.eduanalitycs.repository;
+
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.test.context.TestPropertySource;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DataJpaTest
+@TestPropertySource(properties = {
+        // Схему создаёт Flyway, Hibernate только сверяет её с сущностями
+        "spring.jpa.hibernate.ddl-auto=validate",
+        "spring.datasource.url=jdbc:h2:mem:schemaindextestdb"
+})
+@DisplayName("Schema Index Tests")
+class SchemaIndexTest {
+    private static final String PERIOD = "TIMESTAMP '2024-01-01 00:00:00' AND TIMESTAMP '2024-02-01 00:00:00'";
+
+    @Autowired
+    private EntityManager entityManager;
+
+    @Test
+    @DisplayName("Should read period revenue and order count from the covering order_date index")
+    void shouldUseCoveringIndexForPeriodRevenue() {
+        // When
+        String plan = explain("SELECT COUNT(*), SUM(amount) FROM orders WHERE order_date BETWEEN " + PERIOD);
+
+        // Then
+        assertUsesIndex(plan, "IDX_ORDERS_DATE_COURSE_AMOUNT");
+    }
+
+    @Test
+    @DisplayName("Should use an order_date index for product performance")
+    void shouldUseOrderDateIndexForProductPerformance() {
+        // When
+        String plan = explain("SELECT c.id, c.name, COUNT(o.id), SUM(o.amount) FROM orders o JOIN courses c ON c.id = o.course_id " +
+                "WHERE o.order_date BETWEEN " + PERIOD + " GROUP BY c.id, c.name");
+
+        // Then
+        assertUsesIndex(plan, "IDX_ORDERS_DATE_");
+    }
+
+    @Test
+    @DisplayName("Should use an order_date index for paying users in period")
+    void shouldUseOrderDateIndexForPayingUsers() {
+        // When
+        String plan = explain("SELECT COUNT(DISTINCT user_id) FROM orders WHERE order_date BETWEEN " + PERIOD);
+
+        // Then
+        assertUsesIndex(plan, "IDX_ORDERS_DATE_");
+    }
+
+    @Test
+    @DisplayName("Should use the user index for orders of a user")
+    void shouldUseUserIndexForUserOrders() {
+        // When
+        String plan = explain("SELECT * FROM orders WHERE user_id = 1 AND order_date < TIMESTAMP '2024-01-01 00:00:00'");
+
+        // Then
+        assertUsesIndex(plan, "IDX_ORDERS_USER_DATE");
+    }
+
+    @Test
+    @DisplayName("Should use the last_activity_date index for active users")
+    void shouldUseLastActivityIndexForActiveUsers() {
+        // When
+        String plan = explain("SELECT CAST(last_activity_date AS DATE), id FROM users WHERE last_activity_date BETWEEN " + PERIOD);
+
+        // Then
+        assertUsesIndex(plan, "IDX_USERS_LAST_ACTIVITY");
+    }
+
+    @Test
+    @DisplayName("Should use the registration_date index for new users")
+    void shouldUseRegistrationIndexForNewUsers() {
+        // When
+        String plan = explain("SELECT COUNT(*) FROM users WHERE registration_date BETWEEN " + PERIOD);
+
+        // Then
+        assertUsesIndex(plan, "IDX_USERS_REGISTRATION");
+    }
+
+    @Test
+    @DisplayName("Should read cohort activity in user order from the user_id index")
+    void shouldUseUserIndexForCohortActivity() {
+        // When
+        String plan = explain("SELECT user_id, activity_date FROM activity_events WHERE user_id BETWEEN 1 AND 1000 " +
+                "AND activity_date >= DATE '2024-01-01' ORDER BY user_id, activity_date");
+
+        // Then
+        assertUsesIndex(plan, "IDX_ACTIVITY_EVENTS_USER_DATE");
+    }
+
+    private String explain(String sql) {
+        return String.valueOf(entityManager.createNativeQuery("EXPLAIN " + sql).getSingleResult());
+    }
+
+    private static void assertUsesIndex(String plan, String indexName) {
+        assertTrue(plan.contains(indexName), "Expected index " + indexName + " in plan:\n" + plan);
+        assertFalse(plan.contains("tableScan"), "Unexpected table scan in plan:\n" + plan);
+    }
+}
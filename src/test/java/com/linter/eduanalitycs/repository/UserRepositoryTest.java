@@ -13,7 +13,6 @@ import org.springframework.test.context.TestPropertySource;
 
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
-import java.util.List;
 
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -96,50 +95,6 @@ class UserRepositoryTest {
         assertTrue(count >= 1); // user3 should be in range
     }
 
-    @Test
-    @DisplayName("Should get daily active users")
-    void shouldGetDailyActiveUsers() {
-        // Given
-        LocalDateTime start = LocalDateTime.now().minusDays(10);
-        LocalDateTime end = LocalDateTime.now();
-
-        // When
-        List<Object[]> dailyActive = userRepository.getDailyActiveUsers(start, end);
-
-        // Then
-        assertNotNull(dailyActive);
-        // Should return data if users have activity in range
-    }
-
-    @Test
-    @DisplayName("Should find users with orders in period")
-    void shouldFindUsersWithOrdersInPeriod() {
-        // Given
-        LocalDateTime start = LocalDateTime.now().minusDays(10);
-        LocalDateTime end = LocalDateTime.now();
-
-        // When
-        List<User> users = userRepository.findUsersWithOrdersInPeriod(start, end);
-
-        // Then
-        assertNotNull(users);
-        assertTrue(users.size() >= 2); // user1 and user2 have orders
-    }
-
-    @Test
-    @DisplayName("Should find users with any orders before date")
-    void shouldFindUsersWithAnyOrdersBeforeDate() {
-        // Given
-        LocalDateTime end = LocalDateTime.now();
-
-        // When
-        List<User> users = userRepository.findUsersWithAnyOrdersBefore(end);
-
-        // Then
-        assertNotNull(users);
-        assertTrue(users.size() >= 2); // user1 and user2 have orders
-    }
-
     @Test
     @DisplayName("Should return empty list when no users match criteria")
     void shouldReturnEmptyListWhenNoUsersMatchCriteria() {
@@ -153,25 +108,4 @@ class UserRepositoryTest {
         // Then
         assertEquals(0, count);
     }
-
-    @Test
-    @DisplayName("Should handle users without orders")
-    void shouldHandleUsersWithoutOrders() {
-        // Given
-        User userWithoutOrders = new User(null, "User Without Orders", 
-                LocalDateTime.now().minusDays(5), LocalDateTime.now(), null);
-        userWithoutOrders = userRepository.save(userWithoutOrders);
-
-        LocalDateTime end = LocalDateTime.now();
-
-        // When
-        List<User> users = userRepository.findUsersWithAnyOrdersBefore(end);
-
-        // Then
-        assertNotNull(users);
-        // userWithoutOrders should not be in the list
-        assertFalse(users.contains(userWithoutOrders));
-    }
 }
-
-
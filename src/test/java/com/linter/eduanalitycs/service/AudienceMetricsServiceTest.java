@@ -0,0 +1,209 @@
+package com.linter.eduanalitycs.service;
+
+import com.linter.eduanalitycs.model.dto.MetricsPrecision;
+import com.linter.eduanalitycs.repository.ActivityEventRepository;
+import com.linter.eduanalitycs.repository.DailySketchRepository;
+import org.apache.datasketches.hll.HllSketch;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.RepeatedTest;
+import org.junit.jupiter.api.RepetitionInfo;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.roaringbitmap.longlong.Roaring64Bitmap;
+
+import java.sql.Date;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Random;
+import java.util.Set;
+import java.util.TreeMap;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+@DisplayName("AudienceMetricsService Tests")
+class AudienceMetricsServiceTest {
+
+    @Mock
+    private ActivityEventRepository activityEventRepository;
+
+    @Mock
+    private DailySketchRepository dailySketchRepository;
+
+    @InjectMocks
+    private AudienceMetricsService audienceMetricsService;
+
+    private LocalDate firstDay;
+    private LocalDateTime startDate;
+    private LocalDateTime endDate;
+
+    @BeforeEach
+    void setUp() {
+        firstDay = LocalDate.of(2024, 1, 1);
+        startDate = firstDay.atStartOfDay();
+        endDate = firstDay.plusDays(120).atStartOfDay();
+    }
+
+    @Test
+    @DisplayName("Should keep user in MAU while any of their days is still in the window")
+    void shouldKeepUserInMauWhileActiveInWindow() {
+        // Given - user 1 active on day 0 and day 5, user 2 only on day 31
+        List<Object[]> rows = List.of(
+                row(firstDay, 1L),
+                row(firstDay.plusDays(5), 1L),
+                row(firstDay.plusDays(31), 2L)
+        );
+        when(activityEventRepository.findDailyActiveUsers(any(LocalDate.class), any(LocalDate.class)))
+                .thenAnswer(invocation -> daily(rows));
+
+        // When
+        Map<String, Map<LocalDate, Integer>> metrics = audienceMetricsService.getAudienceMetrics(startDate, endDate, "day");
+
+        // Then - day 0 dropped out of the window, but day 5 is still in it
+        assertEquals(2, metrics.get("MAU").get(firstDay.plusDays(31)));
+        assertEquals(1, metrics.get("WAU").get(firstDay.plusDays(31)));
+        assertEquals(1, metrics.get("DAU").get(firstDay.plusDays(31)));
+    }
+
+    @RepeatedTest(20)
+    @DisplayName("Should match naive set-based reference on random activity")
+    void shouldMatchNaiveReferenceOnRandomActivity(RepetitionInfo repetition) {
+        // Given - seeded by the repetition, so a failing one can be reproduced
+        Random random = new Random(repetition.getCurrentRepetition());
+        List<Object[]> rows = new ArrayList<>();
+        for (int i = 0; i < 2_000; i++) {
+            rows.add(row(firstDay.plusDays(random.nextInt(120)), 1L + random.nextInt(300)));
+        }
+        when(activityEventRepository.findDailyActiveUsers(any(LocalDate.class), any(LocalDate.class)))
+                .thenAnswer(invocation -> daily(rows));
+
+        // When
+        Map<String, Map<LocalDate, Integer>> metrics = audienceMetricsService.getAudienceMetrics(startDate, endDate, "day");
+
+        // Then
+        TreeMap<LocalDate, Set<Long>> reference = new TreeMap<>();
+        for (Object[] row : rows) {
+            reference.computeIfAbsent(((Date) row[0]).toLocalDate(), k -> new HashSet<>()).add((Long) row[1]);
+        }
+        assertEquals(naiveRolling(reference, 1), metrics.get("DAU"));
+        assertEquals(naiveRolling(reference, 7), metrics.get("WAU"));
+        assertEquals(naiveRolling(reference, 30), metrics.get("MAU"));
+    }
+
+    @Test
+    @DisplayName("Should count distinct users per week bucket")
+    void shouldCountDistinctUsersPerWeekBucket() {
+        // Given - 2024-01-01 is a Monday
+        List<Object[]> rows = List.of(
+                row(firstDay, 1L),
+                row(firstDay.plusDays(2), 1L),
+                row(firstDay.plusDays(3), 2L),
+                row(firstDay.plusDays(8), 3L)
+        );
+        when(activityEventRepository.findDailyActiveUsers(any(LocalDate.class), any(LocalDate.class)))
+                .thenAnswer(invocation -> daily(rows));
+
+        // When
+        Map<String, Map<LocalDate, Integer>> metrics = audienceMetricsService.getAudienceMetrics(startDate, endDate, "week");
+
+        // Then
+        assertEquals(Map.of(firstDay, 2, firstDay.plusDays(7), 1), metrics.get("DAU"));
+    }
+
+    @Test
+    @DisplayName("Should report a month bucket's distinct users as its WAU and MAU")
+    void shouldReuseMonthBucketsForRollingWindows() {
+        // Given - February 2023 has 28 days, so a 30-day window ending on March 1 reaches February 1
+        LocalDate february = LocalDate.of(2023, 2, 1);
+        List<Object[]> rows = List.of(
+                row(february, 1L),
+                row(february.plusDays(10), 2L),
+                row(february.plusDays(28), 3L),
+                row(february.plusDays(40), 1L)
+        );
+        when(activityEventRepository.findDailyActiveUsers(any(LocalDate.class), any(LocalDate.class)))
+                .thenAnswer(invocation -> daily(rows));
+
+        // When
+        Map<String, Map<LocalDate, Integer>> metrics = audienceMetricsService.getAudienceMetrics(
+                february.atStartOfDay(), february.plusMonths(2).atStartOfDay(), "month");
+
+        // Then - March is not merged with February
+        Map<LocalDate, Integer> expected = Map.of(february, 2, february.plusMonths(1), 2);
+        assertEquals(expected, metrics.get("DAU"));
+        assertEquals(expected, metrics.get("WAU"));
+        assertEquals(expected, metrics.get("MAU"));
+    }
+
+    @Test
+    @DisplayName("Should estimate DAU and MAU from daily sketches within the error bound")
+    void shouldEstimateAudienceFromSketches() {
+        // Given - 90 days, 2000 of 20000 users active each day
+        Random random = new Random(7);
+        List<Object[]> rows = new ArrayList<>();
+        for (int day = 0; day < 90; day++) {
+            for (int i = 0; i < 2000; i++) {
+                rows.add(row(firstDay.plusDays(day), (long) random.nextInt(20_000)));
+            }
+        }
+        when(activityEventRepository.findDailyActiveUsers(any(LocalDate.class), any(LocalDate.class)))
+                .thenAnswer(invocation -> daily(rows));
+        when(dailySketchRepository.find(eq(DailySketchRepository.Kind.ACTIVE_USERS), any(LocalDate.class), any(LocalDate.class)))
+                .thenAnswer(invocation -> sketches(daily(rows)));
+
+        // When
+        Map<String, Map<LocalDate, Integer>> exact = audienceMetricsService.getAudienceMetrics(startDate, endDate, "day", MetricsPrecision.EXACT);
+        Map<String, Map<LocalDate, Integer>> approx = audienceMetricsService.getAudienceMetrics(startDate, endDate, "day", MetricsPrecision.APPROX);
+
+        // Then - lgK 14 gives ~0.8% standard error, 4% is five sigma
+        for (String metric : List.of("DAU", "WAU", "MAU")) {
+            assertEquals(exact.get(metric).keySet(), approx.get(metric).keySet());
+            exact.get(metric).forEach((date, count) ->
+                    assertEquals(count, approx.get(metric).get(date), count * 0.04, metric + " on " + date));
+        }
+    }
+
+    private Map<LocalDate, Integer> naiveRolling(TreeMap<LocalDate, Set<Long>> daily, int days) {
+        Map<LocalDate, Integer> result = new TreeMap<>();
+        for (LocalDate date : daily.keySet()) {
+            Set<Long> window = new HashSet<>();
+            daily.subMap(date.minusDays(days - 1), true, date, true).values().forEach(window::addAll);
+            result.put(date, window.size());
+        }
+        return result;
+    }
+
+    private static NavigableMap<LocalDate, Roaring64Bitmap> daily(List<Object[]> rows) {
+        NavigableMap<LocalDate, Roaring64Bitmap> daily = new TreeMap<>();
+        for (Object[] row : rows) {
+            daily.computeIfAbsent(((Date) row[0]).toLocalDate(), k -> new Roaring64Bitmap()).addLong((Long) row[1]);
+        }
+        return daily;
+    }
+
+    private static NavigableMap<LocalDate, HllSketch> sketches(NavigableMap<LocalDate, Roaring64Bitmap> daily) {
+        NavigableMap<LocalDate, HllSketch> sketches = new TreeMap<>();
+        daily.forEach((date, users) -> {
+            HllSketch sketch = new HllSketch(14);
+            users.forEach(sketch::update);
+            sketches.put(date, sketch);
+        });
+        return sketches;
+    }
+
+    private static Object[] row(LocalDate date, long userId) {
+        return new Object[]{Date.valueOf(date), userId};
+    }
+}
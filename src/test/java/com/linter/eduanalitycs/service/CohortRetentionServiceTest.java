@@ -0,0 +1,171 @@
+package com.linter.eduanalitycs.service;
+
+import com.linter.eduanalitycs.config.CacheConfig;
+import com.linter.eduanalitycs.model.dto.CohortEvent;
+import com.linter.eduanalitycs.model.dto.CohortGranularity;
+import com.linter.eduanalitycs.model.dto.CohortMatrix;
+import com.linter.eduanalitycs.model.dto.CohortRow;
+import com.linter.eduanalitycs.model.entity.Course;
+import com.linter.eduanalitycs.model.entity.Order;
+import com.linter.eduanalitycs.model.entity.User;
+import com.linter.eduanalitycs.repository.CohortRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.concurrent.ConcurrentMapCacheManager;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.TestPropertySource;
+
+import java.math.BigDecimal;
+import java.sql.Date;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DataJpaTest
+@Import({CohortRetentionService.class, CohortRepository.class, CohortRetentionServiceTest.CacheTestConfig.class})
+@TestPropertySource(properties = {
+        "spring.jpa.hibernate.ddl-auto=validate",
+        "spring.datasource.url=jdbc:h2:mem:cohorttestdb"
+})
+@DisplayName("CohortRetentionService Tests")
+class CohortRetentionServiceTest {
+
+    @TestConfiguration
+    static class CacheTestConfig {
+        @Bean
+        CacheManager cacheManager() {
+            return new ConcurrentMapCacheManager(CacheConfig.COHORT_ROWS_CACHE);
+        }
+    }
+
+    @Autowired
+    private TestEntityManager entityManager;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private CohortRetentionService cohortRetentionService;
+
+    @Autowired
+    private CacheManager cacheManager;
+
+    // Понедельник
+    private final LocalDate week0 = LocalDate.of(2024, 1, 1);
+    private long nextEventId;
+
+    @BeforeEach
+    void setUp() {
+        nextEventId = 1;
+        cacheManager.getCache(CacheConfig.COHORT_ROWS_CACHE).clear();
+    }
+
+    @Test
+    @DisplayName("Should count each user once per period of their registration cohort")
+    void shouldBuildWeeklyActivityMatrix() {
+        // Given - three users in week 0, two in week 1
+        User a = createUser(week0);
+        User b = createUser(week0.plusDays(2));
+        User c = createUser(week0.plusDays(6));
+        User d = createUser(week0.plusDays(7));
+        User e = createUser(week0.plusDays(10));
+        visit(a, week0, week0.plusDays(8), week0.plusDays(9), week0.plusDays(15));
+        visit(b, week0.plusDays(2), week0.plusDays(16));
+        visit(c, week0.plusDays(6));
+        visit(d, week0.plusDays(7), week0.plusDays(14));
+        visit(e, week0.plusDays(12));
+
+        // When - today is in week 2
+        CohortMatrix matrix = cohortRetentionService.getMatrix(week0, week0.plusDays(14), CohortGranularity.WEEK,
+                CohortEvent.ACTIVITY, week0.plusDays(17));
+
+        // Then
+        assertEquals(2, matrix.cohorts().size());
+        CohortRow first = matrix.cohorts().get(0);
+        assertEquals(week0, first.cohortStart());
+        assertEquals(3, first.users());
+        assertEquals(2, first.closedPeriods());
+        assertArrayEquals(new int[]{3, 1, 2}, first.retained());
+        assertEquals(33.33, first.retentionRates()[1], 0.001);
+
+        CohortRow second = matrix.cohorts().get(1);
+        assertEquals(2, second.users());
+        assertArrayEquals(new int[]{2, 1}, second.retained());
+    }
+
+    @Test
+    @DisplayName("Should use purchases as retention events")
+    void shouldBuildMonthlyPurchaseMatrix() {
+        // Given
+        Course course = entityManager.persist(new Course(null, "Java Basics", new BigDecimal("5000")));
+        User buyer = createUser(week0.plusDays(3));
+        createUser(week0.plusDays(20));
+        entityManager.persist(new Order(null, buyer, course, week0.plusDays(40).atTime(12, 0), course.getPrice()));
+        entityManager.persist(new Order(null, buyer, course, week0.plusDays(45).atTime(12, 0), course.getPrice()));
+        entityManager.flush();
+
+        // When
+        CohortMatrix matrix = cohortRetentionService.getMatrix(week0, week0.plusDays(1), CohortGranularity.MONTH,
+                CohortEvent.PURCHASE, LocalDate.of(2024, 3, 10));
+
+        // Then
+        CohortRow january = matrix.cohorts().getFirst();
+        assertEquals(2, january.users());
+        assertArrayEquals(new int[]{0, 1, 0}, january.retained());
+    }
+
+    @Test
+    @DisplayName("Should reuse cached closed periods and read only the newly closed one")
+    void shouldExtendCachedCohortWhenPeriodCloses() {
+        // Given
+        User user = createUser(week0);
+        visit(user, week0, week0.plusDays(8));
+        cohortRetentionService.getMatrix(week0, week0.plusDays(1), CohortGranularity.WEEK, CohortEvent.ACTIVITY, week0.plusDays(15));
+
+        // When - a late event lands in the cached week 1, and week 2 closes
+        User late = createUser(week0.plusDays(1));
+        visit(late, week0.plusDays(9), week0.plusDays(16));
+        CohortMatrix matrix = cohortRetentionService.getMatrix(week0, week0.plusDays(1), CohortGranularity.WEEK,
+                CohortEvent.ACTIVITY, week0.plusDays(22));
+
+        // Then - week 1 comes from the cache, week 2 and the current week 3 are counted
+        CohortRow row = matrix.cohorts().getFirst();
+        assertEquals(3, row.closedPeriods());
+        assertArrayEquals(new int[]{1, 1, 1, 0}, row.retained());
+        assertEquals(2, row.users());
+    }
+
+    @Test
+    @DisplayName("Should return no cohorts for a period after today")
+    void shouldReturnNoCohortsAfterToday() {
+        // When
+        CohortMatrix matrix = cohortRetentionService.getMatrix(week0.plusDays(30), week0.plusDays(60), CohortGranularity.WEEK,
+                CohortEvent.ACTIVITY, week0);
+
+        // Then
+        assertEquals(List.of(), matrix.cohorts());
+    }
+
+    private User createUser(LocalDate registration) {
+        User user = entityManager.persist(new User(null, "User", registration.atTime(9, 0), registration.atTime(9, 0), null));
+        entityManager.flush();
+        return user;
+    }
+
+    private void visit(User user, LocalDate... days) {
+        for (LocalDate day : days) {
+            jdbcTemplate.update("INSERT INTO activity_events (id, user_id, occurred_at, activity_date) VALUES (?, ?, ?, ?)",
+                    nextEventId++, user.getId(), Timestamp.valueOf(day.atTime(10, 0)), Date.valueOf(day));
+        }
+    }
+}
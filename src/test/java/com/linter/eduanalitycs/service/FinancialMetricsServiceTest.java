@@ -1,17 +1,35 @@
 package com.linter.eduanalitycs.service;
 
+import com.linter.eduanalitycs.config.MarketingProperties;
+import com.linter.eduanalitycs.model.dto.CohortCac;
+import com.linter.eduanalitycs.model.dto.CohortGranularity;
+import com.linter.eduanalitycs.model.dto.CohortLtv;
+import com.linter.eduanalitycs.model.dto.MetricsPrecision;
+import com.linter.eduanalitycs.model.dto.OrderRangeSummary;
+import com.linter.eduanalitycs.model.entity.DailyCohortRevenue;
+import com.linter.eduanalitycs.model.entity.DailyUsers;
+import com.linter.eduanalitycs.repository.DailyCohortRevenueRepository;
+import com.linter.eduanalitycs.repository.DailySalesRepository;
+import com.linter.eduanalitycs.repository.DailySketchRepository;
+import com.linter.eduanalitycs.repository.DailyUsersRepository;
+import com.linter.eduanalitycs.repository.MarketingSpendRepository;
 import com.linter.eduanalitycs.repository.OrderRepository;
 import com.linter.eduanalitycs.repository.UserRepository;
+import org.apache.datasketches.hll.HllSketch;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
 
 import java.math.BigDecimal;
+import java.time.LocalDate;
 import java.time.LocalDateTime;
+import java.util.List;
+import java.util.TreeMap;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.any;
@@ -27,6 +45,23 @@ class FinancialMetricsServiceTest {
     @Mock
     private OrderRepository orderRepository;
 
+    @Mock
+    private DailySalesRepository dailySalesRepository;
+
+    @Mock
+    private DailyUsersRepository dailyUsersRepository;
+
+    @Mock
+    private DailySketchRepository dailySketchRepository;
+
+    @Mock
+    private DailyCohortRevenueRepository dailyCohortRevenueRepository;
+
+    // Без загруженных расходов индекс считает по 50000 за 30 дней
+    @Spy
+    private MarketingSpendIndex marketingSpendIndex =
+            new MarketingSpendIndex(mock(MarketingSpendRepository.class), new MarketingProperties(new BigDecimal("50000")));
+
     @InjectMocks
     private FinancialMetricsService financialMetricsService;
 
@@ -46,8 +81,8 @@ class FinancialMetricsServiceTest {
         BigDecimal totalRevenue = new BigDecimal("1000000");
         long totalUsers = 100L;
 
-        when(orderRepository.getTotalRevenue()).thenReturn(totalRevenue);
-        when(userRepository.count()).thenReturn(totalUsers);
+        when(dailySalesRepository.sumAllRevenue()).thenReturn(totalRevenue);
+        when(dailyUsersRepository.sumAllNewUsers()).thenReturn(totalUsers);
 
         // When
         BigDecimal ltv = financialMetricsService.getLTV();
@@ -55,16 +90,16 @@ class FinancialMetricsServiceTest {
         // Then
         assertNotNull(ltv);
         assertEquals(new BigDecimal("10000.00"), ltv);
-        verify(orderRepository, times(1)).getTotalRevenue();
-        verify(userRepository, times(1)).count();
+        verify(orderRepository, never()).getTotalRevenue();
+        verify(userRepository, never()).count();
     }
 
     @Test
     @DisplayName("Should return zero LTV when no users")
     void shouldReturnZeroLTVWhenNoUsers() {
         // Given
-        when(orderRepository.getTotalRevenue()).thenReturn(new BigDecimal("1000000"));
-        when(userRepository.count()).thenReturn(0L);
+        when(dailySalesRepository.sumAllRevenue()).thenReturn(new BigDecimal("1000000"));
+        when(dailyUsersRepository.sumAllNewUsers()).thenReturn(0L);
 
         // When
         BigDecimal ltv = financialMetricsService.getLTV();
@@ -115,10 +150,8 @@ class FinancialMetricsServiceTest {
         BigDecimal periodRevenue = new BigDecimal("500000");
         long payingUsers = 100L;
 
-        when(orderRepository.getTotalRevenueBetween(any(LocalDateTime.class), any(LocalDateTime.class)))
-                .thenReturn(periodRevenue);
-        when(orderRepository.countDistinctPayingUsersBetween(any(LocalDateTime.class), any(LocalDateTime.class)))
-                .thenReturn(payingUsers);
+        when(orderRepository.getRangeSummary(startDate, endDate))
+                .thenReturn(new OrderRangeSummary(150L, periodRevenue, payingUsers));
 
         // When
         BigDecimal arppu = financialMetricsService.getARPPU(startDate, endDate);
@@ -126,18 +159,17 @@ class FinancialMetricsServiceTest {
         // Then
         assertNotNull(arppu);
         assertEquals(new BigDecimal("5000.00"), arppu);
-        verify(orderRepository, times(1)).getTotalRevenueBetween(startDate, endDate);
-        verify(orderRepository, times(1)).countDistinctPayingUsersBetween(startDate, endDate);
+        verify(orderRepository, times(1)).getRangeSummary(startDate, endDate);
+        verify(orderRepository, never()).getTotalRevenueBetween(any(LocalDateTime.class), any(LocalDateTime.class));
+        verify(orderRepository, never()).countDistinctPayingUsers(any(LocalDateTime.class), any(LocalDateTime.class));
     }
 
     @Test
     @DisplayName("Should return zero ARPPU when no paying users")
     void shouldReturnZeroARPPUWhenNoPayingUsers() {
         // Given
-        when(orderRepository.getTotalRevenueBetween(any(LocalDateTime.class), any(LocalDateTime.class)))
-                .thenReturn(new BigDecimal("500000"));
-        when(orderRepository.countDistinctPayingUsersBetween(any(LocalDateTime.class), any(LocalDateTime.class)))
-                .thenReturn(0L);
+        when(orderRepository.getRangeSummary(any(LocalDateTime.class), any(LocalDateTime.class)))
+                .thenReturn(new OrderRangeSummary(0L, new BigDecimal("500000"), 0L));
 
         // When
         BigDecimal arppu = financialMetricsService.getARPPU(startDate, endDate);
@@ -150,12 +182,12 @@ class FinancialMetricsServiceTest {
     @Test
     @DisplayName("Should calculate period costs correctly for different periods")
     void shouldCalculatePeriodCostsCorrectly() {
-        // Given - 15 days period
+        // Given - 15 whole days, so new users come from the daily rollup
         LocalDateTime start = LocalDateTime.of(2024, 1, 1, 0, 0);
         LocalDateTime end = LocalDateTime.of(2024, 1, 16, 0, 0);
         long newUsers = 10L;
 
-        when(userRepository.countByRegistrationDateBetween(any(LocalDateTime.class), any(LocalDateTime.class)))
+        when(dailyUsersRepository.sumNewUsers(LocalDate.of(2024, 1, 1), LocalDate.of(2024, 1, 16)))
                 .thenReturn(newUsers);
 
         // When
@@ -166,6 +198,100 @@ class FinancialMetricsServiceTest {
         // Expected: (50000 * 15 / 30) / 10 = 25000 / 10 = 2500
         assertEquals(new BigDecimal("2500.00"), cac);
     }
-}
 
+    @Test
+    @DisplayName("Should divide each cohort's spend by users registered in it")
+    void shouldCalculateCacByCohort() {
+        // Given - two weeks, the second one cut off by the end of the period
+        LocalDate monday = LocalDate.of(2024, 1, 1);
+        when(dailyUsersRepository.findRange(monday, monday.plusDays(10))).thenReturn(List.of(
+                new DailyUsers(monday, 3, 0),
+                new DailyUsers(monday.plusDays(6), 2, 0),
+                new DailyUsers(monday.plusDays(8), 6, 0)));
+
+        // When
+        List<CohortCac> cohorts = financialMetricsService.getCacByCohort(monday.plusDays(2), monday.plusDays(10), CohortGranularity.WEEK);
+
+        // Then - 50000 * 7 / 30 = 11666.67 and 50000 * 3 / 30 = 5000
+        assertEquals(2, cohorts.size());
+        assertEquals(new CohortCac(monday, 5, new BigDecimal("11666.67"), new BigDecimal("2333.33")), cohorts.get(0));
+        assertEquals(new CohortCac(monday.plusDays(7), 6, new BigDecimal("5000.00"), new BigDecimal("833.33")), cohorts.get(1));
+    }
+
+    @Test
+    @DisplayName("Should accumulate cohort revenue by months since registration")
+    void shouldCalculateLtvByCohort() {
+        // Given - January and February cohorts, today is in March
+        LocalDate january = LocalDate.of(2024, 1, 1);
+        LocalDate february = LocalDate.of(2024, 2, 1);
+        when(dailyUsersRepository.findRange(january, LocalDate.of(2024, 3, 1))).thenReturn(List.of(
+                new DailyUsers(january.plusDays(4), 3, 0),
+                new DailyUsers(january.plusDays(20), 1, 0),
+                new DailyUsers(february.plusDays(9), 2, 0)));
+        when(dailyCohortRevenueRepository.findCohorts(january, LocalDate.of(2024, 3, 1))).thenReturn(List.of(
+                new DailyCohortRevenue(january.plusDays(5), january, 1, new BigDecimal("4000")),
+                new DailyCohortRevenue(january.plusDays(25), january, 1, new BigDecimal("2000")),
+                new DailyCohortRevenue(february.plusDays(3), january, 1, new BigDecimal("5000")),
+                new DailyCohortRevenue(february.plusDays(12), february, 2, new BigDecimal("9000")),
+                new DailyCohortRevenue(LocalDate.of(2024, 3, 2), february, 1, new BigDecimal("3000"))));
+
+        // When
+        List<CohortLtv> cohorts = financialMetricsService.getLtvByCohort(january.plusDays(10), LocalDate.of(2024, 2, 20),
+                LocalDate.of(2024, 3, 5));
+
+        // Then
+        assertEquals(2, cohorts.size());
+        assertEquals(new CohortLtv(january, 4, new BigDecimal("11000"),
+                List.of(new BigDecimal("1500.00"), new BigDecimal("2750.00"), new BigDecimal("2750.00"))), cohorts.get(0));
+        assertEquals(new CohortLtv(february, 2, new BigDecimal("12000"),
+                List.of(new BigDecimal("4500.00"), new BigDecimal("6000.00"))), cohorts.get(1));
+    }
 
+    @Test
+    @DisplayName("Should take ARPPU revenue from daily rollup for whole-day periods")
+    void shouldTakeArppuRevenueFromRollupForWholeDays() {
+        // Given
+        LocalDateTime start = LocalDateTime.of(2024, 1, 1, 0, 0);
+        LocalDateTime end = LocalDateTime.of(2024, 2, 1, 0, 0);
+
+        when(dailySalesRepository.sumRevenue(LocalDate.of(2024, 1, 1), LocalDate.of(2024, 2, 1)))
+                .thenReturn(new BigDecimal("300000"));
+        when(orderRepository.countDistinctPayingUsers(start, end)).thenReturn(60L);
+
+        // When
+        BigDecimal arppu = financialMetricsService.getARPPU(start, end);
+
+        // Then
+        assertEquals(new BigDecimal("5000.00"), arppu);
+        verify(orderRepository, never()).getTotalRevenueBetween(any(LocalDateTime.class), any(LocalDateTime.class));
+    }
+
+    @Test
+    @DisplayName("Should estimate ARPPU paying users from daily sketches in approximate mode")
+    void shouldEstimateArppuPayingUsersFromSketches() {
+        // Given - users 0..59 paid on Jan 1, users 30..89 on Jan 2: 90 unique
+        LocalDateTime start = LocalDateTime.of(2024, 1, 1, 0, 0);
+        LocalDateTime end = LocalDateTime.of(2024, 1, 3, 0, 0);
+        HllSketch first = new HllSketch(14);
+        HllSketch second = new HllSketch(14);
+        for (long userId = 0; userId < 60; userId++) {
+            first.update(userId);
+            second.update(userId + 30);
+        }
+        TreeMap<LocalDate, HllSketch> sketches = new TreeMap<>();
+        sketches.put(LocalDate.of(2024, 1, 1), first);
+        sketches.put(LocalDate.of(2024, 1, 2), second);
+
+        when(dailySalesRepository.sumRevenue(LocalDate.of(2024, 1, 1), LocalDate.of(2024, 1, 3)))
+                .thenReturn(new BigDecimal("9000"));
+        when(dailySketchRepository.find(DailySketchRepository.Kind.PAYING_USERS, LocalDate.of(2024, 1, 1), LocalDate.of(2024, 1, 3)))
+                .thenReturn(sketches);
+
+        // When
+        BigDecimal arppu = financialMetricsService.getARPPU(start, end, MetricsPrecision.APPROX);
+
+        // Then - small cardinalities are counted exactly by the sketch
+        assertEquals(new BigDecimal("100.00"), arppu);
+        verify(orderRepository, never()).countDistinctPayingUsers(any(LocalDateTime.class), any(LocalDateTime.class));
+    }
+}
@@ -0,0 +1,75 @@
+package com.linter.eduanalitycs.service;
+
+import com.linter.eduanalitycs.config.MarketingProperties;
+import com.linter.eduanalitycs.model.dto.DailyAmount;
+import com.linter.eduanalitycs.repository.MarketingSpendRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+@DisplayName("MarketingSpendIndex Tests")
+class MarketingSpendIndexTest {
+
+    @Mock
+    private MarketingSpendRepository marketingSpendRepository;
+
+    private MarketingSpendIndex index;
+
+    private final LocalDate day = LocalDate.of(2024, 3, 1);
+
+    @BeforeEach
+    void setUp() {
+        index = new MarketingSpendIndex(marketingSpendRepository, new MarketingProperties(new BigDecimal("3000")));
+    }
+
+    @Test
+    @DisplayName("Should use the default monthly cost until spend is loaded")
+    void shouldUseDefaultCostWithoutData() {
+        // 3000 за 30 дней — 100 в день
+        assertEquals(new BigDecimal("1500.00"), index.costOf(day, day.plusDays(15)));
+        assertEquals(new BigDecimal("0.00"), index.costOf(day, day));
+    }
+
+    @Test
+    @DisplayName("Should sum loaded spend for any range from prefix sums")
+    void shouldSumLoadedSpend() {
+        // Given - a gap on day 2 counts as zero spend
+        when(marketingSpendRepository.sumByDay()).thenReturn(List.of(
+                new DailyAmount(day, new BigDecimal("10.50")),
+                new DailyAmount(day.plusDays(1), new BigDecimal("20.25")),
+                new DailyAmount(day.plusDays(3), new BigDecimal("5.00"))));
+
+        // When
+        index.reload();
+
+        // Then
+        assertEquals(new BigDecimal("35.75"), index.costOf(day, day.plusDays(4)));
+        assertEquals(new BigDecimal("25.25"), index.costOf(day.plusDays(1), day.plusDays(4)));
+        assertEquals(new BigDecimal("0.00"), index.costOf(day.plusDays(2), day.plusDays(3)));
+    }
+
+    @Test
+    @DisplayName("Should fall back to the default cost outside the loaded days")
+    void shouldFallBackOutsideLoadedDays() {
+        // Given
+        when(marketingSpendRepository.sumByDay()).thenReturn(List.of(
+                new DailyAmount(day, new BigDecimal("10.00")),
+                new DailyAmount(day.plusDays(1), new BigDecimal("10.00"))));
+        index.reload();
+
+        // When / Then - two default days before, two loaded days, one default day after
+        assertEquals(new BigDecimal("320.00"), index.costOf(day.minusDays(2), day.plusDays(3)));
+        assertEquals(new BigDecimal("500.00"), index.costOf(day.plusDays(10), day.plusDays(15)));
+    }
+}
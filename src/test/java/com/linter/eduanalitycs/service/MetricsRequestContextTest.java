@@ -0,0 +1,76 @@
+package com.linter.eduanalitycs.service;
+
+import com.linter.eduanalitycs.model.dto.QueryMemoStatsDTO;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DisplayName("MetricsRequestContext Tests")
+class MetricsRequestContextTest {
+
+    private final LocalDate from = LocalDate.of(2024, 1, 1);
+    private final LocalDate to = LocalDate.of(2024, 2, 1);
+
+    @Test
+    @DisplayName("Should run a query once per request for the same bounds")
+    void shouldMemoizeQueryWithinRequest() {
+        // Given
+        MetricsRequestContexts contexts = new MetricsRequestContexts();
+        AtomicInteger calls = new AtomicInteger();
+
+        // When
+        int result = contexts.withContext(() -> {
+            int first = MetricsRequestContext.memo("revenue", calls::incrementAndGet, from, to);
+            int second = MetricsRequestContext.memo("revenue", calls::incrementAndGet, from, to);
+            int otherBounds = MetricsRequestContext.memo("revenue", calls::incrementAndGet, from, to.plusDays(1));
+            return first + second + otherBounds;
+        });
+
+        // Then
+        assertEquals(2, calls.get());
+        assertEquals(1 + 1 + 2, result);
+        assertEquals(new QueryMemoStatsDTO(1, 2, 1, 1.0 / 3), contexts.getStats());
+    }
+
+    @Test
+    @DisplayName("Should not share results between requests or outside a request")
+    void shouldNotShareResultsBetweenRequests() {
+        // Given
+        MetricsRequestContexts contexts = new MetricsRequestContexts();
+        AtomicInteger calls = new AtomicInteger();
+
+        // When
+        contexts.withContext(() -> MetricsRequestContext.memo("revenue", calls::incrementAndGet, from, to));
+        contexts.withContext(() -> MetricsRequestContext.memo("revenue", calls::incrementAndGet, from, to));
+        MetricsRequestContext.memo("revenue", calls::incrementAndGet, from, to);
+        MetricsRequestContext.memo("revenue", calls::incrementAndGet, from, to);
+
+        // Then
+        assertEquals(4, calls.get());
+        assertEquals(0, contexts.getStats().savedQueries());
+    }
+
+    @Test
+    @DisplayName("Should retry a query that failed instead of remembering the error")
+    void shouldNotMemoizeFailures() {
+        // Given
+        MetricsRequestContexts contexts = new MetricsRequestContexts();
+        AtomicInteger calls = new AtomicInteger();
+
+        // When
+        int result = contexts.withContext(() -> {
+            assertThrows(IllegalStateException.class, () -> MetricsRequestContext.memo("revenue", () -> {
+                calls.incrementAndGet();
+                throw new IllegalStateException("connection reset");
+            }, from, to));
+            return MetricsRequestContext.memo("revenue", calls::incrementAndGet, from, to);
+        });
+
+        // Then
+        assertEquals(2, result);
+    }
+}
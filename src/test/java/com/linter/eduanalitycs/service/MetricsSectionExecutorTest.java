@@ -0,0 +1,212 @@
+package com.linter.eduanalitycs.service;
+
+import com.linter.eduanalitycs.config.MetricsExecutionProperties;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.SimpleTransactionStatus;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+@DisplayName("MetricsSectionExecutor Tests")
+class MetricsSectionExecutorTest {
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private MetricsSectionExecutor executor;
+
+    @AfterEach
+    void tearDown() {
+        if (executor != null) {
+            executor.destroy();
+        }
+    }
+
+    @Test
+    @DisplayName("Should run each section in a read-only transaction limited by the section timeout")
+    void shouldRunSectionInReadOnlyTransaction() {
+        // Given
+        PlatformTransactionManager transactionManager = transactionManager();
+        executor = new MetricsSectionExecutor(new MetricsExecutionProperties(false, 1, Duration.ofSeconds(1)), transactionManager, meterRegistry);
+
+        // When
+        Integer result = executor.await("answer", executor.submit("answer", () -> 42));
+
+        // Then
+        assertEquals(42, result);
+        verify(transactionManager).getTransaction(argThat(definition -> definition.isReadOnly() && definition.getTimeout() == 1));
+        verify(transactionManager).commit(any());
+    }
+
+    @Test
+    @DisplayName("Should not exceed the configured concurrency")
+    void shouldNotExceedConfiguredConcurrency() {
+        // Given
+        executor = new MetricsSectionExecutor(new MetricsExecutionProperties(true, 2, Duration.ofSeconds(5)), transactionManager(), meterRegistry);
+        AtomicInteger running = new AtomicInteger();
+        AtomicInteger maxRunning = new AtomicInteger();
+
+        // When
+        List<CompletableFuture<Integer>> futures = new ArrayList<>();
+        for (int i = 0; i < 8; i++) {
+            int section = i;
+            futures.add(executor.submit("section" + i, () -> {
+                maxRunning.accumulateAndGet(running.incrementAndGet(), Math::max);
+                sleep(50);
+                running.decrementAndGet();
+                return section;
+            }));
+        }
+
+        // Then
+        for (int i = 0; i < futures.size(); i++) {
+            assertEquals(i, executor.await("section" + i, futures.get(i)));
+        }
+        assertTrue(maxRunning.get() <= 2, "Sections running at once: " + maxRunning.get());
+    }
+
+    @Test
+    @DisplayName("Should share memoized queries between parallel sections of one request")
+    void shouldPropagateRequestContextToSections() {
+        // Given
+        executor = new MetricsSectionExecutor(new MetricsExecutionProperties(true, 4, Duration.ofSeconds(5)), transactionManager(), meterRegistry);
+        MetricsRequestContexts contexts = new MetricsRequestContexts();
+        AtomicInteger calls = new AtomicInteger();
+
+        // When
+        int total = contexts.withContext(() -> {
+            List<CompletableFuture<Integer>> futures = new ArrayList<>();
+            for (int i = 0; i < 4; i++) {
+                futures.add(executor.submit("section" + i, () -> MetricsRequestContext.memo("revenue", () -> {
+                    sleep(20);
+                    return calls.incrementAndGet();
+                })));
+            }
+            return futures.stream().mapToInt(future -> executor.await("section", future)).sum();
+        });
+
+        // Then
+        assertEquals(1, calls.get());
+        assertEquals(4, total);
+        assertEquals(3, contexts.getStats().savedQueries());
+    }
+
+    @Test
+    @DisplayName("Should time each section with the request's period and aggregation")
+    void shouldTimeSectionsWithRequestTags() {
+        // Given
+        executor = new MetricsSectionExecutor(new MetricsExecutionProperties(true, 2, Duration.ofSeconds(1)), transactionManager(), meterRegistry);
+        Tags tags = Tags.of("period", "last7days", "aggregation", "day");
+
+        // When
+        new MetricsRequestContexts().withContext(tags, () -> executor.await("ltv", executor.submit("ltv", () -> 1)));
+
+        // Then
+        Timer timer = meterRegistry.find("metrics.section")
+                .tags(tags).tag("section", "ltv").tag("outcome", "success")
+                .timer();
+        assertNotNull(timer);
+        assertEquals(1, timer.count());
+    }
+
+    @Test
+    @DisplayName("Should fail a section that exceeds its timeout")
+    void shouldFailSectionThatExceedsTimeout() {
+        // Given
+        executor = new MetricsSectionExecutor(new MetricsExecutionProperties(true, 1, Duration.ofMillis(50)), transactionManager(), meterRegistry);
+
+        // When
+        CompletableFuture<Integer> slow = executor.submit("slow", () -> {
+            sleep(1000);
+            return 1;
+        });
+
+        // Then
+        IllegalStateException error = assertThrows(IllegalStateException.class, () -> executor.await("slow", slow));
+        assertTrue(error.getMessage().contains("slow"));
+    }
+
+    @Test
+    @DisplayName("Should start the section timeout only after the section gets a permit")
+    void shouldNotCountQueueWaitTowardsTimeout() {
+        // Given - one permit; each section takes 200 ms of its 300 ms timeout
+        executor = new MetricsSectionExecutor(new MetricsExecutionProperties(true, 1, Duration.ofMillis(300)), transactionManager(), meterRegistry);
+
+        // When - the third section waits ~400 ms for the permit
+        List<CompletableFuture<Integer>> sections = new ArrayList<>();
+        for (int i = 0; i < 3; i++) {
+            int section = i;
+            sections.add(executor.submit("section" + i, () -> {
+                sleep(200);
+                return section;
+            }));
+        }
+
+        // Then
+        for (int i = 0; i < 3; i++) {
+            assertEquals(i, executor.await("section" + i, sections.get(i)));
+        }
+    }
+
+    @Test
+    @DisplayName("Should not run a queued section the caller has already given up on")
+    void shouldSkipCancelledQueuedSection() {
+        // Given
+        executor = new MetricsSectionExecutor(new MetricsExecutionProperties(true, 1, Duration.ofSeconds(5)), transactionManager(), meterRegistry);
+        AtomicInteger runs = new AtomicInteger();
+        CompletableFuture<Integer> first = executor.submit("first", () -> {
+            sleep(200);
+            return 1;
+        });
+        sleep(50);
+        CompletableFuture<Integer> queued = executor.submit("queued", runs::incrementAndGet);
+
+        // When
+        queued.cancel(false);
+        executor.await("first", first);
+        sleep(100);
+
+        // Then
+        assertEquals(0, runs.get());
+    }
+
+    @Test
+    @DisplayName("Should rethrow the original section error")
+    void shouldRethrowOriginalSectionError() {
+        // Given
+        executor = new MetricsSectionExecutor(new MetricsExecutionProperties(true, 1, Duration.ofSeconds(1)), transactionManager(), meterRegistry);
+
+        // When
+        CompletableFuture<Integer> failing = executor.submit("failing", () -> {
+            throw new IllegalArgumentException("boom");
+        });
+
+        // Then
+        assertThrows(IllegalArgumentException.class, () -> executor.await("failing", failing));
+    }
+
+    private PlatformTransactionManager transactionManager() {
+        PlatformTransactionManager transactionManager = mock(PlatformTransactionManager.class);
+        when(transactionManager.getTransaction(any())).thenReturn(new SimpleTransactionStatus());
+        return transactionManager;
+    }
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
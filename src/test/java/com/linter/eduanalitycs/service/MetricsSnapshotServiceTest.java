@@ -0,0 +1,153 @@
+package com.linter.eduanalitycs.service;
+
+import com.linter.eduanalitycs.event.MetricsDaysChangedEvent;
+import com.linter.eduanalitycs.model.dto.CompleteMetricsResponse;
+import com.linter.eduanalitycs.model.dto.MetricsPeriod;
+import com.linter.eduanalitycs.model.dto.MetricsPrecision;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+@DisplayName("MetricsSnapshotService Tests")
+class MetricsSnapshotServiceTest {
+
+    @Mock
+    private MetricsFacadeService metricsFacadeService;
+
+    @Mock
+    private FinancialMetricsService financialMetricsService;
+
+    @Mock
+    private RetentionMetricsService retentionMetricsService;
+
+    @InjectMocks
+    private MetricsSnapshotService metricsSnapshotService;
+
+    private final LocalDate today = LocalDate.now();
+
+    @Test
+    @DisplayName("Should compute every standard period on the first refresh")
+    void shouldComputeAllPeriodsInitially() {
+        // Given
+        stubFacade();
+
+        // When
+        metricsSnapshotService.refresh();
+
+        // Then
+        verify(metricsFacadeService, times(MetricsPeriod.values().length))
+                .calculateCompleteMetrics(any(LocalDateTime.class), any(LocalDateTime.class), eq(MetricsPrecision.EXACT));
+        CompleteMetricsResponse snapshot = metricsSnapshotService.getSnapshot(MetricsPeriod.LAST_30_DAYS).orElseThrow();
+        assertTrue(snapshot.isSnapshot());
+        assertNotNull(snapshot.getGeneratedAt());
+    }
+
+    @Test
+    @DisplayName("Should recompute only the periods that contain a changed day")
+    void shouldRecomputeOnlyAffectedPeriods() {
+        // Given
+        stubFacade();
+        metricsSnapshotService.refresh();
+        clearInvocations(metricsFacadeService);
+
+        // When - the day is inside last90days and last365days, before the start of the shorter periods
+        metricsSnapshotService.onDaysChanged(MetricsDaysChangedEvent.of(Set.of(today.minusDays(60))));
+        when(financialMetricsService.getLTV()).thenReturn(new BigDecimal("7000.00"));
+        metricsSnapshotService.refresh();
+
+        // Then - the full sections are recalculated twice, the shorter periods only get history-based metrics
+        verify(metricsFacadeService, times(2))
+                .calculateCompleteMetrics(any(LocalDateTime.class), any(LocalDateTime.class), eq(MetricsPrecision.EXACT));
+        verify(retentionMetricsService, times(2)).getRetentionRate(any(LocalDateTime.class), any(LocalDateTime.class));
+        assertEquals(new BigDecimal("7000.00"), metricsSnapshotService.getSnapshot(MetricsPeriod.LAST_7_DAYS).orElseThrow().getLtv());
+    }
+
+    @Test
+    @DisplayName("Should recompute the whole snapshot for a day in the first retention cohort before the period")
+    void shouldRecomputeSnapshotForDayInFirstCohortBeforePeriod() {
+        // Given - last30days starts on Wednesday 2024-05-22, its first weekly cohort on Monday 2024-05-20
+        LocalDate friday = LocalDate.of(2024, 6, 21);
+        stubFacade();
+        metricsSnapshotService.refresh(Set.of(), false, friday);
+        clearInvocations(metricsFacadeService);
+
+        // When - a user registered on the Tuesday before the period
+        metricsSnapshotService.refresh(Set.of(LocalDate.of(2024, 5, 21)), false, friday);
+
+        // Then - last30days, last90days and last365days are recalculated, retention trend included
+        verify(metricsFacadeService).calculateCompleteMetrics(
+                LocalDate.of(2024, 5, 22).atStartOfDay(), friday.plusDays(1).atStartOfDay(), MetricsPrecision.EXACT);
+        verify(metricsFacadeService, times(3))
+                .calculateCompleteMetrics(any(LocalDateTime.class), any(LocalDateTime.class), eq(MetricsPrecision.EXACT));
+    }
+
+    @Test
+    @DisplayName("Should not serve stale snapshots and retry the days when a refresh fails")
+    void shouldRetryDaysAfterFailedRefresh() {
+        // Given
+        stubFacade();
+        metricsSnapshotService.refresh();
+        metricsSnapshotService.onDaysChanged(MetricsDaysChangedEvent.of(Set.of(today)));
+        when(metricsFacadeService.calculateCompleteMetrics(any(LocalDateTime.class), any(LocalDateTime.class), any(MetricsPrecision.class)))
+                .thenThrow(new IllegalStateException("database is down"));
+
+        // When
+        metricsSnapshotService.refresh();
+
+        // Then - the day is still pending
+        assertTrue(metricsSnapshotService.getSnapshot(MetricsPeriod.LAST_7_DAYS).isEmpty());
+        reset(metricsFacadeService);
+        stubFacade();
+        metricsSnapshotService.refresh();
+        verify(metricsFacadeService, times(MetricsPeriod.values().length))
+                .calculateCompleteMetrics(any(LocalDateTime.class), any(LocalDateTime.class), eq(MetricsPrecision.EXACT));
+        assertTrue(metricsSnapshotService.getSnapshot(MetricsPeriod.LAST_7_DAYS).isPresent());
+    }
+
+    @Test
+    @DisplayName("Should not serve a snapshot while a change inside or before its period is pending")
+    void shouldSkipSnapshotWithPendingChanges() {
+        // Given
+        stubFacade();
+        metricsSnapshotService.refresh(Set.of(), false, today);
+
+        // When
+        metricsSnapshotService.onDaysChanged(MetricsDaysChangedEvent.of(Set.of(today.plusDays(1))));
+        boolean servedAfterFutureDay = metricsSnapshotService.getSnapshot(MetricsPeriod.LAST_7_DAYS).isPresent();
+        metricsSnapshotService.onDaysChanged(MetricsDaysChangedEvent.of(Set.of(today.minusDays(100))));
+
+        // Then - a day before the period still changes LTV and retention rate
+        assertTrue(servedAfterFutureDay);
+        assertTrue(metricsSnapshotService.getSnapshot(MetricsPeriod.LAST_7_DAYS).isEmpty());
+        assertTrue(metricsSnapshotService.getSnapshot(MetricsPeriod.LAST_365_DAYS).isEmpty());
+    }
+
+    @Test
+    @DisplayName("Should not serve a snapshot before the first refresh")
+    void shouldReturnEmptyBeforeFirstRefresh() {
+        assertTrue(metricsSnapshotService.getSnapshot(MetricsPeriod.LAST_30_DAYS).isEmpty());
+    }
+
+    private void stubFacade() {
+        when(metricsFacadeService.calculateCompleteMetrics(any(LocalDateTime.class), any(LocalDateTime.class), any(MetricsPrecision.class)))
+                .thenAnswer(invocation -> CompleteMetricsResponse.builder()
+                        .ltv(new BigDecimal("5000.00"))
+                        .retentionRate(40.0)
+                        .precision(MetricsPrecision.EXACT)
+                        .build());
+    }
+}
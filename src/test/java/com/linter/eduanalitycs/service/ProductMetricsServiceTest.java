@@ -1,16 +1,21 @@
 package com.linter.eduanalitycs.service;
 
 import com.linter.eduanalitycs.model.dto.ProductPerformanceDTO;
+import com.linter.eduanalitycs.model.dto.ProductSort;
+import com.linter.eduanalitycs.repository.DailyCourseSalesRepository;
 import com.linter.eduanalitycs.repository.OrderRepository;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.Pageable;
 
 import java.math.BigDecimal;
+import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.util.ArrayList;
 import java.util.Arrays;
@@ -18,6 +23,7 @@ import java.util.List;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.*;
 
 @ExtendWith(MockitoExtension.class)
@@ -27,6 +33,9 @@ class ProductMetricsServiceTest {
     @Mock
     private OrderRepository orderRepository;
 
+    @Mock
+    private DailyCourseSalesRepository dailyCourseSalesRepository;
+
     @InjectMocks
     private ProductMetricsService productMetricsService;
 
@@ -43,12 +52,12 @@ class ProductMetricsServiceTest {
     @DisplayName("Should return product performance list")
     void shouldReturnProductPerformance() {
         // Given
-        Object[] data1 = new Object[]{1L, "Java Основы", 50L, new BigDecimal("250000")};
-        Object[] data2 = new Object[]{2L, "Python для начинающих", 30L, new BigDecimal("120000")};
-        Object[] data3 = new Object[]{3L, "Data Science Intro", 20L, new BigDecimal("120000")};
-        List<Object[]> mockData = Arrays.asList(data1, data2, data3);
+        ProductPerformanceDTO data1 = new ProductPerformanceDTO(1L, "Java Основы", 50L, new BigDecimal("250000"));
+        ProductPerformanceDTO data2 = new ProductPerformanceDTO(2L, "Python для начинающих", 30L, new BigDecimal("120000"));
+        ProductPerformanceDTO data3 = new ProductPerformanceDTO(3L, "Data Science Intro", 20L, new BigDecimal("120000"));
+        List<ProductPerformanceDTO> mockData = Arrays.asList(data1, data2, data3);
 
-        when(orderRepository.getProductPerformance(any(LocalDateTime.class), any(LocalDateTime.class)))
+        when(orderRepository.getProductPerformance(any(LocalDateTime.class), any(LocalDateTime.class), any(Pageable.class)))
                 .thenReturn(mockData);
 
         // When
@@ -64,39 +73,48 @@ class ProductMetricsServiceTest {
         assertEquals(50L, first.getSalesCount());
         assertEquals(new BigDecimal("250000"), first.getRevenue());
 
-        verify(orderRepository, times(1)).getProductPerformance(startDate, endDate);
+        verify(orderRepository, times(1)).getProductPerformance(eq(startDate), eq(endDate), any(Pageable.class));
     }
 
     @Test
-    @DisplayName("Should limit results to 5 products")
-    void shouldLimitResultsToFive() {
+    @DisplayName("Should push the top 5 limit and sales order into the query")
+    void shouldLimitResultsToFiveInQuery() {
         // Given
-        List<Object[]> mockData = Arrays.asList(
-                new Object[]{1L, "Course 1", 100L, new BigDecimal("500000")},
-                new Object[]{2L, "Course 2", 90L, new BigDecimal("450000")},
-                new Object[]{3L, "Course 3", 80L, new BigDecimal("400000")},
-                new Object[]{4L, "Course 4", 70L, new BigDecimal("350000")},
-                new Object[]{5L, "Course 5", 60L, new BigDecimal("300000")},
-                new Object[]{6L, "Course 6", 50L, new BigDecimal("250000")},
-                new Object[]{7L, "Course 7", 40L, new BigDecimal("200000")}
-        );
-
-        when(orderRepository.getProductPerformance(any(LocalDateTime.class), any(LocalDateTime.class)))
-                .thenReturn(mockData);
+        when(orderRepository.getProductPerformance(any(LocalDateTime.class), any(LocalDateTime.class), any(Pageable.class)))
+                .thenReturn(List.of());
 
         // When
-        List<ProductPerformanceDTO> result = productMetricsService.getProductPerformance(startDate, endDate);
+        productMetricsService.getProductPerformance(startDate, endDate);
 
         // Then
-        assertNotNull(result);
-        assertEquals(5, result.size());
+        ArgumentCaptor<Pageable> page = ArgumentCaptor.forClass(Pageable.class);
+        verify(orderRepository).getProductPerformance(eq(startDate), eq(endDate), page.capture());
+        assertEquals(5, page.getValue().getPageSize());
+        assertEquals(OrderRepository.productPerformanceSort(ProductSort.SALES), page.getValue().getSort());
+    }
+
+    @Test
+    @DisplayName("Should request the given number of courses by revenue")
+    void shouldRequestTopByRevenue() {
+        // Given
+        when(orderRepository.getProductPerformance(any(LocalDateTime.class), any(LocalDateTime.class), any(Pageable.class)))
+                .thenReturn(List.of());
+
+        // When
+        productMetricsService.getProductPerformance(startDate, endDate, ProductSort.REVENUE, 20);
+
+        // Then
+        ArgumentCaptor<Pageable> page = ArgumentCaptor.forClass(Pageable.class);
+        verify(orderRepository).getProductPerformance(eq(startDate), eq(endDate), page.capture());
+        assertEquals(20, page.getValue().getPageSize());
+        assertEquals(OrderRepository.productPerformanceSort(ProductSort.REVENUE), page.getValue().getSort());
     }
 
     @Test
     @DisplayName("Should return empty list when no data")
     void shouldReturnEmptyListWhenNoData() {
         // Given
-        when(orderRepository.getProductPerformance(any(LocalDateTime.class), any(LocalDateTime.class)))
+        when(orderRepository.getProductPerformance(any(LocalDateTime.class), any(LocalDateTime.class), any(Pageable.class)))
                 .thenReturn(Arrays.asList());
 
         // When
@@ -105,18 +123,18 @@ class ProductMetricsServiceTest {
         // Then
         assertNotNull(result);
         assertTrue(result.isEmpty());
-        verify(orderRepository, times(1)).getProductPerformance(startDate, endDate);
+        verify(orderRepository, times(1)).getProductPerformance(eq(startDate), eq(endDate), any(Pageable.class));
     }
 
     @Test
-    @DisplayName("Should map data correctly to DTO")
-    void shouldMapDataCorrectlyToDTO() {
+    @DisplayName("Should pass projected DTOs through unchanged")
+    void shouldPassProjectedDtosThrough() {
         // Given
-        Object[] data = new Object[]{10L, "Test Course", 25L, new BigDecimal("125000")};
-        List<Object[]> mockData = new ArrayList<>();
+        ProductPerformanceDTO data = new ProductPerformanceDTO(10L, "Test Course", 25L, new BigDecimal("125000"));
+        List<ProductPerformanceDTO> mockData = new ArrayList<>();
         mockData.add(data);
 
-        when(orderRepository.getProductPerformance(any(LocalDateTime.class), any(LocalDateTime.class)))
+        when(orderRepository.getProductPerformance(any(LocalDateTime.class), any(LocalDateTime.class), any(Pageable.class)))
                 .thenReturn(mockData);
 
         // When
@@ -130,5 +148,25 @@ class ProductMetricsServiceTest {
         assertEquals(25L, dto.getSalesCount());
         assertEquals(new BigDecimal("125000"), dto.getRevenue());
     }
-}
 
+    @Test
+    @DisplayName("Should read product performance from daily rollup for whole-day periods")
+    void shouldReadFromRollupForWholeDays() {
+        // Given
+        LocalDateTime start = LocalDateTime.of(2024, 1, 1, 0, 0);
+        LocalDateTime end = LocalDateTime.of(2025, 1, 1, 0, 0);
+        List<ProductPerformanceDTO> rollupData = new ArrayList<>();
+        rollupData.add(new ProductPerformanceDTO(10L, "Test Course", 25L, new BigDecimal("125000")));
+
+        when(dailyCourseSalesRepository.getProductPerformance(eq(LocalDate.of(2024, 1, 1)), eq(LocalDate.of(2025, 1, 1)), any(Pageable.class)))
+                .thenReturn(rollupData);
+
+        // When
+        List<ProductPerformanceDTO> result = productMetricsService.getProductPerformance(start, end);
+
+        // Then
+        assertEquals(1, result.size());
+        assertEquals(25L, result.get(0).getSalesCount());
+        verify(orderRepository, never()).getProductPerformance(any(LocalDateTime.class), any(LocalDateTime.class), any(Pageable.class));
+    }
+}
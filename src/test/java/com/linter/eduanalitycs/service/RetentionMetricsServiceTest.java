@@ -0,0 +1,196 @@
+package com.linter.eduanalitycs.service;
+
+import com.linter.eduanalitycs.config.CacheConfig;
+import com.linter.eduanalitycs.model.entity.Course;
+import com.linter.eduanalitycs.model.entity.Order;
+import com.linter.eduanalitycs.model.entity.User;
+import com.linter.eduanalitycs.repository.CohortRepository;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.core.AutoConfigureCache;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.TestPropertySource;
+
+import java.math.BigDecimal;
+import java.sql.Date;
+import java.sql.Timestamp;
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.temporal.TemporalAdjusters;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DataJpaTest
+@AutoConfigureCache
+@Import({RetentionMetricsService.class, CohortRetentionService.class, CohortRepository.class, CacheConfig.class})
+@TestPropertySource(properties = {
+        "spring.jpa.hibernate.ddl-auto=create-drop",
+        "spring.datasource.url=jdbc:h2:mem:testdb",
+        "spring.jpa.properties.hibernate.generate_statistics=true"
+})
+@DisplayName("RetentionMetricsService Tests")
+class RetentionMetricsServiceTest {
+
+    @Autowired
+    private TestEntityManager entityManager;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    private RetentionMetricsService retentionMetricsService;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private Course course;
+    private LocalDateTime now;
+    private int userSequence;
+
+    @BeforeEach
+    void setUp() {
+        now = LocalDateTime.now();
+        course = entityManager.persist(new Course(null, "Java Basics", new BigDecimal("5000")));
+    }
+
+    @Test
+    @DisplayName("Should calculate repeat purchase rate")
+    void shouldCalculateRepeatPurchaseRate() {
+        // Given - 2 of 4 buyers bought twice, one user never bought
+        createBuyers(2, 1);
+        createBuyers(2, 2);
+        createBuyers(1, 0);
+        flushAndClear();
+
+        // When
+        double rate = retentionMetricsService.getRetentionRate(now.minusDays(30), now);
+
+        // Then
+        assertEquals(50.0, rate, 0.001);
+    }
+
+    @Test
+    @DisplayName("Should ignore orders placed after the period end")
+    void shouldIgnoreOrdersAfterPeriodEnd() {
+        // Given
+        User user = createUser();
+        createOrder(user, now.minusDays(10));
+        createOrder(user, now.plusDays(10));
+        flushAndClear();
+
+        // When
+        double rate = retentionMetricsService.getRetentionRate(now.minusDays(30), now);
+
+        // Then
+        assertEquals(0.0, rate, 0.001);
+    }
+
+    @Test
+    @DisplayName("Should return zero when there are no buyers")
+    void shouldReturnZeroWhenNoBuyers() {
+        // Given
+        createBuyers(3, 0);
+        flushAndClear();
+
+        // When
+        double rate = retentionMetricsService.getRetentionRate(now.minusDays(30), now);
+
+        // Then
+        assertEquals(0.0, rate);
+    }
+
+    @Test
+    @DisplayName("Should keep query count constant as the number of buyers grows")
+    void shouldKeepQueryCountConstantAsBuyersGrow() {
+        // Given
+        createBuyers(10, 2);
+        flushAndClear();
+        long smallDatasetStatements = countStatements();
+
+        createBuyers(200, 2);
+        flushAndClear();
+        long largeDatasetStatements = countStatements();
+
+        // Then
+        assertTrue(smallDatasetStatements <= 2, "Expected at most 2 statements, got " + smallDatasetStatements);
+        assertEquals(smallDatasetStatements, largeDatasetStatements);
+    }
+
+    @Test
+    @DisplayName("Should take retention trend from the second column of the weekly cohort matrix")
+    void shouldTakeRetentionTrendFromCohortMatrix() {
+        // Given - four users registered three weeks ago, one of them came back the next week
+        LocalDate cohortWeek = now.toLocalDate().minusWeeks(3).with(TemporalAdjusters.previousOrSame(DayOfWeek.MONDAY));
+        for (int i = 0; i < 4; i++) {
+            User user = entityManager.persist(new User(null, "Cohort " + i, cohortWeek.atTime(9, 0), cohortWeek.atTime(9, 0), null));
+            entityManager.flush();
+            LocalDate visit = i == 0 ? cohortWeek.plusDays(8) : cohortWeek;
+            jdbcTemplate.update("INSERT INTO activity_events (id, user_id, occurred_at, activity_date) VALUES (?, ?, ?, ?)",
+                    i + 1, user.getId(), Timestamp.valueOf(visit.atTime(10, 0)), Date.valueOf(visit));
+        }
+
+        // When
+        Map<LocalDate, Double> trend = retentionMetricsService.getRetentionTrend(
+                cohortWeek.atStartOfDay(), cohortWeek.plusDays(7).atStartOfDay(), "week");
+
+        // Then
+        assertEquals(Map.of(cohortWeek, 25.0), trend);
+    }
+
+    @Test
+    @DisplayName("Should leave cohorts whose next period is still open out of the retention trend")
+    void shouldSkipCohortsWithOpenNextPeriodInRetentionTrend() {
+        // Given - registered last week, so the following week is the current, unfinished one
+        LocalDate lastWeek = now.toLocalDate().minusWeeks(1).with(TemporalAdjusters.previousOrSame(DayOfWeek.MONDAY));
+        User user = entityManager.persist(new User(null, "Open cohort", lastWeek.atTime(9, 0), lastWeek.atTime(9, 0), null));
+        entityManager.flush();
+        jdbcTemplate.update("INSERT INTO activity_events (id, user_id, occurred_at, activity_date) VALUES (?, ?, ?, ?)",
+                1, user.getId(), Timestamp.valueOf(lastWeek.atTime(10, 0)), Date.valueOf(lastWeek));
+
+        // When
+        Map<LocalDate, Double> trend = retentionMetricsService.getRetentionTrend(
+                lastWeek.atStartOfDay(), now.toLocalDate().plusDays(1).atStartOfDay(), "week");
+
+        // Then
+        assertTrue(trend.isEmpty());
+    }
+
+    private long countStatements() {
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+        retentionMetricsService.getRetentionRate(now.minusDays(30), now);
+        return statistics.getPrepareStatementCount();
+    }
+
+    private void createBuyers(int count, int ordersPerUser) {
+        for (int i = 0; i < count; i++) {
+            User user = createUser();
+            for (int j = 0; j < ordersPerUser; j++) {
+                createOrder(user, now.minusDays(j + 1));
+            }
+        }
+    }
+
+    private User createUser() {
+        return entityManager.persist(new User(null, "User " + (++userSequence), now.minusDays(60), now, null));
+    }
+
+    private void createOrder(User user, LocalDateTime orderDate) {
+        entityManager.persist(new Order(null, user, course, orderDate, course.getPrice()));
+    }
+
+    private void flushAndClear() {
+        entityManager.flush();
+        entityManager.clear();
+    }
+}